@@ -17,6 +17,33 @@ MAIN_CLASS="fr.tp.inf112.projects.robotsim.test.SimulatorApplicationTest"
 # Logging properties file
 LOGGING_PROPERTIES="config/logging.properties"
 
+# Headless batch run: the arguments other than -b and -batch are given to the runner,
+# and the messages of this script go to the error output, leaving the KPIs alone on the standard output
+BATCH=false
+for arg in "$@"; do
+    if [ "$arg" = "-batch" ]; then
+        BATCH=true
+    fi
+done
+if [ "$BATCH" = true ]; then
+    for arg in "$@"; do
+        shift
+        case "$arg" in
+            "-b")
+                echo "Building before lauching..." >&2
+                ./build.sh >&2
+                ;;
+            "-batch")
+                ;;
+            *)
+                set -- "$@" "$arg"
+                ;;
+        esac
+    done
+    echo "Launching Batch Simulation Runner..." >&2
+    exec java -Djava.awt.headless=true -Djava.util.logging.config.file="$LOGGING_PROPERTIES" -cp "$BUILD_DIR":"$DEPENDENCIES" fr.tp.inf112.projects.robotsim.view.BatchSimulationRunner "$@"
+fi
+
 # Parse arguments for scenario number (0, 1, or 2) and test selection
 for arg in "$@"; do
     if [ "$arg" = "0" ] || [ "$arg" = "1" ] || [ "$arg" = "2" ]; then
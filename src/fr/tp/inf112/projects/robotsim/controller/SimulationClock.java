@@ -0,0 +1,251 @@
+package fr.tp.inf112.projects.robotsim.controller;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+
+/**
+ * Fixed-timestep clock running the simulation of a {@link Factory}.
+ *
+ * <p>
+ * Each call to {@link Factory#behave()} advances the simulation by one logical timestep, whatever
+ * the time the tick takes to compute. The clock paces the ticks against the wall clock scaled by
+ * a real-time factor: at 1x, one timestep of simulated time per timestep of real time; at 10x,
+ * ten times faster; at {@link #AS_FAST_AS_POSSIBLE}, one tick right after the other. When a tick
+ * takes longer than its share of real time, the following ones run back to back to catch up, at
+ * most {@link #getMaxCatchUpTicks()} in a row; the time still late after them is dropped, so that
+ * a simulation too slow for its factor runs slower instead of never yielding.
+ * </p>
+ *
+ * <p>
+ * In headless mode, the clock runs as fast as possible and the observers of the factory are not
+ * notified during the ticks, only once when the clock stops: hours of simulated production run
+ * in seconds.
+ * </p>
+ *
+ * <p>
+ * The settings can be changed from another thread while the clock runs; they apply from the
+ * next tick.
+ * </p>
+ *
+ * @author team-24
+ */
+public class SimulationClock {
+    private static final Logger LOGGER = Logger.getLogger(SimulationClock.class.getName());
+
+    /** Default logical timestep, in milliseconds: the pace of the simulator before the clock. */
+    public static final long DEFAULT_TIMESTEP_MILLIS = 100;
+    /** Default number of ticks run back to back to catch up with the wall clock. */
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+    /** Real-time factor running the ticks one right after the other. */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+    private final Factory factory;
+    private final long timestepNanos;
+    private volatile double realTimeFactor;
+    private volatile int maxCatchUpTicks;
+    private volatile boolean headless;
+    private volatile long ticks;
+    private volatile long droppedTicks;
+
+    /**
+     * Constructs a clock running a factory at the default timestep, in real time.
+     *
+     * @param factory The factory to simulate.
+     */
+    public SimulationClock(Factory factory) {
+        this(factory, DEFAULT_TIMESTEP_MILLIS);
+    }
+
+    /**
+     * Constructs a clock running a factory in real time.
+     *
+     * @param factory The factory to simulate.
+     * @param timestepMillis The simulated duration of a tick, in milliseconds.
+     * @throws IllegalArgumentException if the timestep is not positive.
+     */
+    public SimulationClock(Factory factory, long timestepMillis) {
+        if (timestepMillis <= 0) throw new IllegalArgumentException("The timestep must be positive: " + timestepMillis);
+        this.factory = factory;
+        this.timestepNanos = TimeUnit.MILLISECONDS.toNanos(timestepMillis);
+        this.realTimeFactor = 1;
+        this.maxCatchUpTicks = DEFAULT_MAX_CATCH_UP_TICKS;
+    }
+
+    /**
+     * Gets the factory simulated by the clock.
+     *
+     * @return The {@link Factory}.
+     */
+    public Factory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Gets the simulated duration of a tick.
+     *
+     * @return The timestep, in milliseconds.
+     */
+    public long getTimestepMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(timestepNanos);
+    }
+
+    /**
+     * Gets the number of timesteps simulated per timestep of real time.
+     *
+     * @return The real-time factor, {@link #AS_FAST_AS_POSSIBLE} if the ticks are not paced.
+     */
+    public double getRealTimeFactor() {
+        return realTimeFactor;
+    }
+
+    /**
+     * Sets the number of timesteps simulated per timestep of real time: 1 for real time, 10 for
+     * ten times faster, {@link #AS_FAST_AS_POSSIBLE} not to pace the ticks.
+     *
+     * @param realTimeFactor The real-time factor.
+     * @throws IllegalArgumentException if the factor is not positive.
+     */
+    public void setRealTimeFactor(double realTimeFactor) {
+        if (!(realTimeFactor > 0)) throw new IllegalArgumentException("The real-time factor must be positive: " + realTimeFactor);
+        this.realTimeFactor = realTimeFactor;
+    }
+
+    /**
+     * Gets the number of ticks run back to back to catch up with the wall clock.
+     *
+     * @return The maximum number of ticks run in a row.
+     */
+    public int getMaxCatchUpTicks() {
+        return maxCatchUpTicks;
+    }
+
+    /**
+     * Sets the number of ticks run back to back to catch up with the wall clock, beyond which the
+     * time late is dropped.
+     *
+     * @param maxCatchUpTicks The maximum number of ticks run in a row, at least 1.
+     */
+    public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+        this.maxCatchUpTicks = Math.max(1, maxCatchUpTicks);
+    }
+
+    /**
+     * Tells if the clock runs headless.
+     *
+     * @return true if the ticks run as fast as possible, without notifying the observers.
+     */
+    public boolean isHeadless() {
+        return headless;
+    }
+
+    /**
+     * Sets whether the clock runs headless: as fast as possible, the observers of the factory being
+     * notified only when the clock stops.
+     *
+     * @param headless true to run headless.
+     */
+    public void setHeadless(boolean headless) {
+        this.headless = headless;
+    }
+
+    /**
+     * Gets the number of ticks run by the clock.
+     *
+     * @return The number of ticks.
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Gets the simulated time elapsed, the ticks run times the timestep.
+     *
+     * @return The simulated time, in milliseconds.
+     */
+    public long getSimulatedMillis() {
+        return ticks * getTimestepMillis();
+    }
+
+    /**
+     * Gets the number of ticks given up to catch up with the wall clock, because the simulation was
+     * too slow for its real-time factor.
+     *
+     * @return The number of ticks dropped.
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Starts the simulation of the factory and runs its ticks until it stops, or the calling thread
+     * is interrupted, which stops it.
+     */
+    public void run() {
+        run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts the simulation of the factory and runs at most the given number of ticks, then stops
+     * the simulation; runs fewer if the simulation is stopped meanwhile, or the calling thread is
+     * interrupted, which stops it too.
+     *
+     * @param count The maximum number of ticks to run.
+     * @return The number of ticks run.
+     */
+    public long run(long count) {
+        factory.startSimulation();
+        boolean suspended = false;
+        long run = 0;
+        try {
+            // simulated time due but not run yet, in nanoseconds
+            double lag = 0;
+            long previous = System.nanoTime();
+            while (run < count && factory.isSimulationRunning()) {
+                if (headless != suspended) {
+                    suspended = headless;
+                    factory.setNotificationsSuspended(suspended);
+                }
+                double factor = realTimeFactor;
+                if (suspended || Double.isInfinite(factor)) {
+                    tick();
+                    run++;
+                    lag = 0;
+                    previous = System.nanoTime();
+                    if (Thread.currentThread().isInterrupted()) break;
+                    continue;
+                }
+                long now = System.nanoTime();
+                lag += (now - previous) * factor;
+                previous = now;
+                for (int caughtUp = 0; lag >= timestepNanos && run < count && factory.isSimulationRunning(); ) {
+                    tick();
+                    run++;
+                    lag -= timestepNanos;
+                    if (++caughtUp >= maxCatchUpTicks && lag >= timestepNanos) {
+                        long dropped = (long) (lag / timestepNanos);
+                        droppedTicks += dropped;
+                        lag -= dropped * timestepNanos;
+                        LOGGER.fine("Simulation late, " + dropped + " ticks dropped.");
+                        break;
+                    }
+                }
+                // waits for the next tick to be due
+                long wait = (long) ((timestepNanos - lag) / factor);
+                if (wait > 0) LockSupport.parkNanos(wait);
+                if (Thread.currentThread().isInterrupted()) break;
+            }
+        } finally {
+            factory.stopSimulation();
+            if (suspended) factory.setNotificationsSuspended(false);
+        }
+        return run;
+    }
+
+    private void tick() {
+        factory.behave();
+        ticks++;
+    }
+}
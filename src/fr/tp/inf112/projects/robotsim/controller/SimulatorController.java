@@ -4,6 +4,7 @@ import fr.tp.inf112.projects.canvas.controller.CanvasViewerController;
 import fr.tp.inf112.projects.canvas.model.Canvas;
 import fr.tp.inf112.projects.canvas.model.CanvasPersistenceManager;
 import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.PathPlanner;
 import fr.tp.inf112.projects.canvas.controller.Observer;
 
 /**
@@ -16,7 +17,8 @@ import fr.tp.inf112.projects.canvas.controller.Observer;
  * </p>
  * 
  * <p>
- * This controller delegates simulation logic to the {@link Factory} model.
+ * This controller delegates simulation logic to the {@link Factory} model, whose ticks are
+ * paced by a {@link SimulationClock}.
  * </p>
  * 
  * @author team-24
@@ -24,6 +26,7 @@ import fr.tp.inf112.projects.canvas.controller.Observer;
 public class SimulatorController implements CanvasViewerController {
     private Factory factoryModel;
     private CanvasPersistenceManager persistenceManager;
+    private SimulationClock clock;
 
     /**
      * Constructs a {@code SimulatorController} with the specified factory model
@@ -35,6 +38,7 @@ public class SimulatorController implements CanvasViewerController {
     public SimulatorController(Factory factoryModel, CanvasPersistenceManager persistenceManager) {
         this.factoryModel = factoryModel;
         this.persistenceManager = persistenceManager;
+        this.clock = new SimulationClock(factoryModel);
     }
 
     /**
@@ -49,13 +53,30 @@ public class SimulatorController implements CanvasViewerController {
 
     /**
      * Sets the canvas to the specified model if it is an instance of {@link Factory}.
+     * The path planner and the clock settings of the previous factory carry over to the new one.
      * 
      * @param canvasModel The new canvas model.
      */
     @Override
     public void setCanvas(Canvas canvasModel) {
         if (factoryModel != null && canvasModel instanceof Factory) {
+            Factory previousFactory = this.factoryModel;
             this.factoryModel = (Factory) canvasModel;
+            // the planner is not saved with a factory: the one opened takes over the workers of the previous one
+            PathPlanner planner = previousFactory.getPathPlanner();
+            if (planner != null && planner != factoryModel.getPathPlanner()) {
+                previousFactory.setPathPlanner(null);
+                if (factoryModel.getPathPlanner() == null) {
+                    factoryModel.setPathPlanner(planner);
+                } else {
+                    planner.shutdown();
+                }
+            }
+            SimulationClock previous = this.clock;
+            this.clock = new SimulationClock(factoryModel, previous.getTimestepMillis());
+            this.clock.setRealTimeFactor(previous.getRealTimeFactor());
+            this.clock.setMaxCatchUpTicks(previous.getMaxCatchUpTicks());
+            this.clock.setHeadless(previous.isHeadless());
         }
     }
 
@@ -70,19 +91,20 @@ public class SimulatorController implements CanvasViewerController {
     }
 
     /**
-     * Starts the animation by running the factory simulation in a loop.
+     * Returns the clock pacing the simulation, e.g. to change its real-time factor.
+     *
+     * @return The {@link SimulationClock} of the factory model.
+     */
+    public SimulationClock getSimulationClock() {
+        return this.clock;
+    }
+
+    /**
+     * Starts the animation by running the factory simulation on its clock, until it is stopped.
      */
     @Override
     public void startAnimation() {
-        this.factoryModel.startSimulation();
-        while (factoryModel.isSimulationRunning()) {
-            factoryModel.behave();
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ex) {
-                ex.printStackTrace();
-            }
-        }
+        this.clock.run();
     }
 
     /**
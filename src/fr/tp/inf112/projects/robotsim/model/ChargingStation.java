@@ -1,5 +1,6 @@
 package fr.tp.inf112.projects.robotsim.model;
 
+import java.util.ArrayList;
 import java.util.Set;
 import java.util.HashSet;
 import fr.tp.inf112.projects.canvas.model.impl.BasicStyle;
@@ -109,7 +110,8 @@ public class ChargingStation extends Component {
      * and connecting robots that need charging.
      */
     public void behave() {
-        for (Robot robot : chargingRobots) {
+        // charged robots are disconnected while iterating
+        for (Robot robot : new ArrayList<>(chargingRobots)) {
             double newBatteryLevel = robot.getBattery() + this.chargingRate;
             robot.setBattery(newBatteryLevel);
             if (newBatteryLevel >= 100) {
@@ -117,7 +119,8 @@ public class ChargingStation extends Component {
             }
         }
 
-        for (Robot robot : getFactory().getRobots()) {
+        int left = getxCoordinate(), top = getyCoordinate();
+        for (Robot robot : getFactory().getRobotOccupancy().getRobotsOverlapping(left, top, left + getWidth(), top + getHeight())) {
             if (contains(robot) && robot.getNeedCharging()) {
                 connectRobot(robot);
             }
@@ -133,4 +136,13 @@ public class ChargingStation extends Component {
     public String toString() {
         return getName() +"(" + chargingRate + ")" +  chargingRobots.toString();
     }
+
+    /**
+     * {@inheritDoc}
+     * Robots come back to charge at the station.
+     */
+    @Override
+    public boolean isPointOfInterest() {
+        return true;
+    }
 }
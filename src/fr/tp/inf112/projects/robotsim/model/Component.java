@@ -60,10 +60,10 @@ public abstract class Component implements Figure, Serializable, Visitable {
         this.style = style;
         this.shape = shape;
         this.factory = factory;
+        this.obstacle = obstacle;
         if (factory != null) {
             factory.addComponent(this);
         }
-        this.obstacle = obstacle;
         this.visitPosition = getCenter();
     }
 
@@ -178,6 +178,60 @@ public abstract class Component implements Figure, Serializable, Visitable {
         return obstacle && overlays(x, y, width, height);
     }
 
+    /**
+     * Tells if the component can change the walkability of the navigation grids, so that the
+     * grids must be refreshed when it is added, moved or resized.
+     *
+     * @return {@code true} for obstacles.
+     */
+    boolean affectsNavigation() {
+        return obstacle;
+    }
+
+    /**
+     * Called once the position or size of the component changed, before the factory refreshes
+     * its navigation structures and notifies its observers. Does nothing by default.
+     */
+    void boundsChanged() {
+    }
+
+    /**
+     * Tells if the visit position of the component is a point of interest: a destination robots
+     * keep coming back to, whose routes are worth precomputing.
+     *
+     * @return {@code false} by default.
+     */
+    public boolean isPointOfInterest() {
+        return false;
+    }
+
+    /**
+     * Gets the area whose walkability depends on this component, before inflation by the robot
+     * footprint.
+     *
+     * @return The bounds {left, top, right, bottom} of the area, all inclusive.
+     */
+    int[] getNavigationBounds() {
+        return new int[] {getxCoordinate(), getyCoordinate(), getxCoordinate() + width, getyCoordinate() + height};
+    }
+
+    /**
+     * Blocks in a navigation grid the cells where a robot of the grid footprint, centered on the
+     * cell, would hit this component, i.e. the cells for which
+     * {@link #isObstacle(int, int, int, int)} holds. Subclasses overriding the obstacle test must
+     * override this method accordingly.
+     *
+     * @param grid The navigation grid to update.
+     */
+    void markObstacleCells(NavigationGrid grid) {
+        if (!obstacle) return;
+        // the footprint overlays the component as long as its center is strictly within half its size of the bounds
+        int halfWidth = grid.getRobotWidth() / 2;
+        int halfHeight = grid.getRobotHeight() / 2;
+        grid.block(getxCoordinate() - halfWidth + 1, getyCoordinate() - halfHeight + 1,
+                   getxCoordinate() + width + halfWidth - 1, getyCoordinate() + height + halfHeight - 1);
+    }
+
     /**
      * Gets the corners of the component.
      * Order of corners: top-left, top-right, bottom-left, bottom-right.
@@ -208,7 +262,9 @@ public abstract class Component implements Figure, Serializable, Visitable {
      * @param position New position of the component.
      */
     public void setCoordinate(Position position) {
+        int[] previous = affectsNavigation() ? getNavigationBounds() : null;
         this.position = position;
+        getFactory().componentBoundsChanged(this, previous);
         getFactory().notifyObservers();
     }
 
@@ -238,7 +294,9 @@ public abstract class Component implements Figure, Serializable, Visitable {
      * @param height New height of the component.
      */
     public void setHeight(int height) {
+        int[] previous = affectsNavigation() ? getNavigationBounds() : null;
         this.height = height;
+        getFactory().componentBoundsChanged(this, previous);
         getFactory().notifyObservers();
     }
 
@@ -248,7 +306,9 @@ public abstract class Component implements Figure, Serializable, Visitable {
      * @param width New width of the component.
      */
     public void setWidth(int width) {
+        int[] previous = affectsNavigation() ? getNavigationBounds() : null;
         this.width = width;
+        getFactory().componentBoundsChanged(this, previous);
         getFactory().notifyObservers();
     }
 
@@ -449,6 +509,7 @@ public abstract class Component implements Figure, Serializable, Visitable {
      */
     public void setVisitPosition(Position position) {
         visitPosition = position;
+        visitPositionChanged();
     }
 
     /**
@@ -459,6 +520,7 @@ public abstract class Component implements Figure, Serializable, Visitable {
      */
     public void setVisitPosition(int x, int y) {
         visitPosition = new Position(x, y);
+        visitPositionChanged();
     }
 
     /**
@@ -513,6 +575,14 @@ public abstract class Component implements Figure, Serializable, Visitable {
             default:
                 throw new IllegalArgumentException("Unknown label: " + label);
         }
+        visitPositionChanged();
+    }
+
+    /**
+     * Notifies the factory that the visit position of a point of interest changed.
+     */
+    private void visitPositionChanged() {
+        if (factory != null && isPointOfInterest()) factory.pointsOfInterestChanged();
     }
 
     /**
@@ -0,0 +1,788 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import fr.tp.inf112.projects.robotsim.model.impl.CoarseGrid;
+import fr.tp.inf112.projects.robotsim.model.impl.ScheduledPath;
+
+/**
+ * Offline solver planning the visits of a whole fleet at once, with no collision and a minimal
+ * sum of costs, by Conflict-Based Search (CBS), e.g. for the start of a shift.
+ *
+ * <p>
+ * The robots move on a {@link CoarseGrid} whose cells are as large as the largest robot, one cell
+ * per step, a step lasting as many ticks as the slowest robot needs to cross a cell, all of them
+ * moving in step. Two robots are in conflict when they are in the same cell at the same step, or
+ * when one enters a cell the other was in at the step before, unless both move in the same
+ * direction: a convoy keeps one cell apart all along, whereas robots crossing or swapping cells
+ * would overlap half way. The visits are reached at the center of their cell, and a robot off the
+ * center of its cell drives there during the first step, where any robot following it conflicts.
+ * </p>
+ *
+ * <p>
+ * The high level searches a tree of constraints, each one forbidding a cell to a robot at a step.
+ * Each node holds the shortest paths of the robots under its constraints, and its first conflict
+ * splits it into two children, forbidding the conflict to one robot or the other, whose path is
+ * searched again by a space-time A* over (cell, visit, step). A robot already at the end of its
+ * route stays in its last cell, so a conflict with it is split on the length of its route
+ * instead: either it arrives after the conflict, or it arrives by then and the other robot keeps
+ * off the cell from the conflict on.
+ * </p>
+ *
+ * <p>
+ * The nodes are expanded from a focal list: the nodes whose sum of costs is within a factor, the
+ * suboptimality, of the lowest one left, by number of conflicts. With a suboptimality of 1, the
+ * default, the first solution found is optimal; a larger one trades cost for far fewer nodes on
+ * crowded floors, the solution costing at most that factor more than the optimum. Several threads
+ * expand the nodes in parallel, the nodes being expanded counting in the lowest cost. The search
+ * stops at a node or time limit, with no solution.
+ * </p>
+ *
+ * @author team-24
+ */
+public class ConflictBasedSearchSolver {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(ConflictBasedSearchSolver.class.getName());
+
+    /** Default maximum number of constraint tree nodes expanded. */
+    public static final int DEFAULT_NODE_LIMIT = 100000;
+    /** Default maximum duration of a search, in milliseconds. */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 60000;
+
+    /** Constraint forbidding a cell to a robot at a step. */
+    private static final int AT = 0;
+    /** Constraint forbidding a cell to a robot from a step on. */
+    private static final int FROM = 1;
+    /** Constraint making the route of a robot end after a step. */
+    private static final int LONGER = 2;
+    /** Constraint making the route of a robot end at a step at the latest. */
+    private static final int SHORTER = 3;
+
+    private final int threads;
+    private int nodeLimit = DEFAULT_NODE_LIMIT;
+    private long timeLimitMillis = DEFAULT_TIME_LIMIT_MILLIS;
+    private double suboptimality = 1;
+
+    /**
+     * Constructs a solver with one thread per available processor.
+     */
+    public ConflictBasedSearchSolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a solver.
+     *
+     * @param threads The number of threads searching the constraint tree.
+     */
+    public ConflictBasedSearchSolver(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    /** @return The number of threads searching the constraint tree. */
+    public int getThreads() { return threads; }
+
+    /** @return The maximum number of constraint tree nodes expanded. */
+    public int getNodeLimit() { return nodeLimit; }
+
+    /**
+     * Sets the maximum number of constraint tree nodes expanded by a search.
+     *
+     * @param nodeLimit The node limit.
+     */
+    public void setNodeLimit(int nodeLimit) { this.nodeLimit = Math.max(1, nodeLimit); }
+
+    /** @return The maximum duration of a search, in milliseconds. */
+    public long getTimeLimitMillis() { return timeLimitMillis; }
+
+    /**
+     * Sets the maximum duration of a search.
+     *
+     * @param timeLimitMillis The time limit, in milliseconds.
+     */
+    public void setTimeLimitMillis(long timeLimitMillis) { this.timeLimitMillis = Math.max(1, timeLimitMillis); }
+
+    /** @return The factor bounding the sum of costs of a solution over the optimal one. */
+    public double getSuboptimality() { return suboptimality; }
+
+    /**
+     * Sets the factor bounding the sum of costs of a solution over the optimal one.
+     *
+     * @param suboptimality The factor, 1 for an optimal solution.
+     */
+    public void setSuboptimality(double suboptimality) { this.suboptimality = Math.max(1, suboptimality); }
+
+    /**
+     * Plans the visits of the robots of a factory navigating with a path finder.
+     *
+     * @param factory The factory.
+     * @return The plan of the robots.
+     */
+    public FleetPlan solve(Factory factory) {
+        List<Robot> robots = new ArrayList<>();
+        for (Robot robot : factory.getRobots()) {
+            if (robot.hasPathFinder()) robots.add(robot);
+        }
+        return solve(factory, robots);
+    }
+
+    /**
+     * Plans the visits of some robots of a factory, from their current position through their
+     * list of visits, in order. The other robots of the factory are ignored.
+     *
+     * @param factory The factory.
+     * @param robots The robots to plan.
+     * @return The plan of the robots, unsolved if a robot or a visit lies off the coarse grid, if
+     *         two robots start or end in the same cell, or if no solution was found within the limits.
+     */
+    public FleetPlan solve(Factory factory, List<Robot> robots) {
+        long start = System.nanoTime();
+        Search search = new Search(factory, robots);
+        if (!search.prepare()) {
+            return new FleetPlan(robots, null, false, -1, -1, 0, 0, 0, threads, System.nanoTime() - start);
+        }
+        search.run(start);
+        long independent = search.root == null ? -1 : search.root.cost * search.stepTicks;
+        Node best = search.best;
+        if (best == null) {
+            LOGGER.warning("No collision-free plan found for " + robots.size() + " robots"
+                           + (search.limited ? " within the limits." : "."));
+        }
+        return new FleetPlan(robots, best == null ? null : search.toPaths(best), best != null && suboptimality == 1,
+                             best == null ? -1 : best.cost * search.stepTicks, independent, search.expanded,
+                             search.generated, search.lowLevelExpansions.get(), threads, System.nanoTime() - start);
+    }
+
+    /**
+     * Robot to plan, with its cells on the coarse grid of its footprint.
+     */
+    private static final class Agent {
+        private final Robot robot;
+        private final CoarseGrid grid;
+        private final int start;
+        /** Cells of the visits, in order. */
+        private final int[] goals;
+        /** Cell the robot stays in at the end: its last visit, or its start if it has none. */
+        private final int last;
+        /** Distances of every cell to each visit, then to the last cell. */
+        private final int[][] distances;
+        /** Distance from each visit to the last one, through the others. */
+        private final int[] remaining;
+
+        private Agent(Robot robot, CoarseGrid grid, int start, int[] goals) {
+            this.robot = robot;
+            this.grid = grid;
+            this.start = start;
+            this.goals = goals;
+            this.last = goals.length == 0 ? start : goals[goals.length - 1];
+            this.distances = new int[goals.length + 1][];
+            for (int i = 0; i < goals.length; i++) {
+                distances[i] = grid.distancesTo(goals[i]);
+            }
+            distances[goals.length] = goals.length == 0 ? grid.distancesTo(start) : distances[goals.length - 1];
+            this.remaining = new int[goals.length + 1];
+            for (int i = goals.length - 2; i >= 0; i--) {
+                int leg = distances[i + 1][goals[i]];
+                remaining[i] = leg == Integer.MAX_VALUE ? Integer.MAX_VALUE : leg + remaining[i + 1];
+            }
+        }
+
+        /** Number of moves left to the end from a cell, the visits before {@code visit} being done. */
+        private int estimate(int cell, int visit) {
+            int distance = distances[visit][cell];
+            if (distance == Integer.MAX_VALUE || remaining[visit] == Integer.MAX_VALUE) return Integer.MAX_VALUE;
+            return distance + remaining[visit];
+        }
+
+        /** Index of the next visit to do once in a cell. */
+        private int advance(int cell, int visit) {
+            while (visit < goals.length && goals[visit] == cell) visit++;
+            return visit;
+        }
+    }
+
+    /**
+     * Path of a robot on the coarse grid: its cell at each step, and the step each visit is done.
+     */
+    private static final class Route {
+        private final int[] cells;
+        private final int[] visitSteps;
+
+        private Route(int[] cells, int[] visitSteps) {
+            this.cells = cells;
+            this.visitSteps = visitSteps;
+        }
+
+        private int cost() { return cells.length - 1; }
+
+        /** Cell at a step, the robot staying in its last cell after the end. */
+        private int at(int step) { return cells[Math.min(step, cells.length - 1)]; }
+    }
+
+    /**
+     * Node of the constraint tree: one more constraint than its parent, the routes satisfying them,
+     * and how many conflicts are left between the routes. A node may only link a constraint to the
+     * tree, with no route of its own.
+     */
+    private static final class Node {
+        private final Node parent;
+        private final int agent;
+        private final int kind;
+        /** Cell and step of the constraint, as {@code step * cellCount + cell}. */
+        private final long constraint;
+        private final long id;
+        private Route[] routes;
+        private long cost;
+        private int conflicts;
+        /** First conflict, as filled by {@link Search#countConflicts(Route[], long[])}. */
+        private final long[] conflict = new long[7];
+
+        private Node(Node parent, int agent, int kind, long constraint, long id) {
+            this.parent = parent;
+            this.agent = agent;
+            this.kind = kind;
+            this.constraint = constraint;
+            this.id = id;
+        }
+
+        private void setRoutes(Route[] routes) {
+            this.routes = routes;
+            long sum = 0;
+            for (Route route : routes) {
+                sum += route.cost();
+            }
+            this.cost = sum;
+        }
+    }
+
+    /**
+     * State of the space-time search of a route.
+     */
+    private static final class Step {
+        private final int cell;
+        private final int visit;
+        private final int step;
+        private final int estimate;
+        /** Conflicts with the routes of the other robots on the way. */
+        private final int conflicts;
+        private final Step parent;
+
+        private Step(int cell, int visit, int step, int estimate, int conflicts, Step parent) {
+            this.cell = cell;
+            this.visit = visit;
+            this.step = step;
+            this.estimate = estimate;
+            this.conflicts = conflicts;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * One search: the agents, and the constraint tree shared by the threads.
+     */
+    private final class Search {
+        private final Factory factory;
+        private final List<Robot> robots;
+        private final List<Agent> agents = new ArrayList<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        /** Nodes left to expand, by cost. */
+        private final TreeSet<Node> open = new TreeSet<>(
+            Comparator.comparingLong((Node node) -> node.cost).thenComparingLong(node -> node.id));
+        /** Nodes left to expand within the bound, by number of conflicts. */
+        private final PriorityQueue<Node> focal = new PriorityQueue<>(
+            Comparator.comparingInt((Node node) -> node.conflicts).thenComparingLong(node -> node.cost)
+                      .thenComparingLong(node -> node.id));
+        private final List<Node> inFlight = new ArrayList<>();
+        /** Key to look for the nodes of the open list above a cost. */
+        private final Node probe = new Node(null, -1, AT, -1, Long.MIN_VALUE);
+        private final AtomicLong ids = new AtomicLong();
+        private final AtomicLong lowLevelExpansions = new AtomicLong();
+        private int cellCount;
+        private int stepTicks;
+        private long deadline;
+        private Node root;
+        private Node best;
+        private double bound = -1;
+        private boolean stopped;
+        private boolean limited;
+        private long expanded;
+        private long generated;
+
+        private Search(Factory factory, List<Robot> robots) {
+            this.factory = factory;
+            this.robots = robots;
+        }
+
+        /**
+         * Builds the agents, and tells if the problem can be solved at all.
+         */
+        private boolean prepare() {
+            int cellSize = 1;
+            int slowest = Integer.MAX_VALUE;
+            for (Robot robot : robots) {
+                cellSize = Math.max(cellSize, Math.max(robot.getWidth(), robot.getHeight()));
+                slowest = Math.min(slowest, Math.max(1, robot.getSpeed()));
+            }
+            stepTicks = robots.isEmpty() ? 1 : (cellSize + slowest - 1) / slowest;
+
+            Map<Long, CoarseGrid> grids = new HashMap<>();
+            Set<Integer> starts = new HashSet<>();
+            Set<Integer> lasts = new HashSet<>();
+            for (Robot robot : robots) {
+                long footprint = ((long) robot.getWidth() << 32) | robot.getHeight();
+                final int size = cellSize;
+                CoarseGrid grid = grids.computeIfAbsent(footprint, key -> new CoarseGrid(
+                    factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()),
+                    factory.getxCoordinate(), factory.getyCoordinate(), factory.getWidth(), factory.getHeight(), size));
+                cellCount = grid.getCellCount();
+
+                int start = grid.cellAt(robot.getxCenter(), robot.getyCenter());
+                if (start < 0 || !grid.isWalkable(start)) {
+                    LOGGER.warning(robot.getName() + " does not stand on a walkable cell of the fleet grid.");
+                    return false;
+                }
+                List<Visitable> visits = robot.getToVisit();
+                int[] goals = new int[visits.size()];
+                for (int i = 0; i < goals.length; i++) {
+                    goals[i] = grid.cellAt(visits.get(i).getxVisit(), visits.get(i).getyVisit());
+                    if (goals[i] < 0 || !grid.isWalkable(goals[i])) {
+                        LOGGER.warning("Visit " + i + " of " + robot.getName() + " does not lie on a walkable cell of the fleet grid.");
+                        return false;
+                    }
+                }
+                Agent agent = new Agent(robot, grid, start, goals);
+                if (!starts.add(start) || !lasts.add(agent.last)) {
+                    LOGGER.warning(robot.getName() + " starts or ends in the cell of another robot of the fleet.");
+                    return false;
+                }
+                agents.add(agent);
+            }
+            return true;
+        }
+
+        /**
+         * Plans the robots on their own, then searches the constraint tree from there.
+         */
+        private void run(long start) {
+            deadline = start + timeLimitMillis * 1000000L;
+            Route[] routes = new Route[agents.size()];
+            for (int i = 0; i < routes.length; i++) {
+                routes[i] = plan(i, null, null);
+                if (routes[i] == null) {
+                    LOGGER.warning(agents.get(i).robot.getName() + " cannot reach its visits on the fleet grid.");
+                    return;
+                }
+            }
+            root = new Node(null, -1, AT, -1, ids.getAndIncrement());
+            root.setRoutes(routes);
+            root.conflicts = countConflicts(routes, root.conflict);
+            add(root);
+            updateFocal();
+
+            if (threads == 1) {
+                work();
+                return;
+            }
+            AtomicInteger count = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "fleet-solver-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    workers.add(executor.submit(this::work));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                stop(true);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Fleet solver failed", ex.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private void stop(boolean limit) {
+            lock.lock();
+            try {
+                stopped = true;
+                limited |= limit;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Expands nodes of the tree until a solution comes out of the focal list, or a limit is
+         * reached. The low-level searches run outside of the lock.
+         */
+        private void work() {
+            while (true) {
+                Node node;
+                lock.lock();
+                try {
+                    while ((node = focal.poll()) == null) {
+                        if (stopped) return;
+                        if (inFlight.isEmpty()) {
+                            // nothing left to expand: there is no solution
+                            stopped = true;
+                            changed.signalAll();
+                            return;
+                        }
+                        changed.await();
+                    }
+                    if (stopped) return;
+                    open.remove(node);
+                    if (node.conflicts == 0) {
+                        best = node;
+                        stopped = true;
+                        changed.signalAll();
+                        return;
+                    }
+                    if (expanded >= nodeLimit || System.nanoTime() > deadline) {
+                        stopped = true;
+                        limited = true;
+                        changed.signalAll();
+                        return;
+                    }
+                    expanded++;
+                    inFlight.add(node);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    stopped = true;
+                    limited = true;
+                    changed.signalAll();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                List<Node> children = new ArrayList<>(2);
+                for (int side = 0; side < 2; side++) {
+                    int agent = (int) node.conflict[3 * side];
+                    Node parent = node;
+                    if (side == 1 && node.conflict[6] >= 0) {
+                        // the route of the robot at its end already satisfies the constraint linked
+                        parent = new Node(node, (int) node.conflict[6], SHORTER, node.conflict[5], -1);
+                    }
+                    Node child = new Node(parent, agent, (int) node.conflict[3 * side + 1], node.conflict[3 * side + 2],
+                                          ids.getAndIncrement());
+                    Route route = plan(agent, child, node.routes);
+                    if (route == null) continue;
+                    Route[] routes = node.routes.clone();
+                    routes[agent] = route;
+                    child.setRoutes(routes);
+                    child.conflicts = countConflicts(routes, child.conflict);
+                    children.add(child);
+                }
+
+                lock.lock();
+                try {
+                    inFlight.remove(node);
+                    for (Node child : children) {
+                        add(child);
+                    }
+                    updateFocal();
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        /**
+         * Adds a node to the open list, and to the focal list if it is within the bound.
+         */
+        private void add(Node node) {
+            open.add(node);
+            generated++;
+            if (node.cost <= bound) focal.add(node);
+        }
+
+        /**
+         * Raises the bound of the focal list with the lower bound of the costs, the cheapest node
+         * left to expand or being expanded, and moves the nodes now within it to the focal list.
+         */
+        private void updateFocal() {
+            long lowest = open.isEmpty() ? Long.MAX_VALUE : open.first().cost;
+            for (Node node : inFlight) {
+                lowest = Math.min(lowest, node.cost);
+            }
+            if (lowest == Long.MAX_VALUE) return;
+            double raised = suboptimality * lowest;
+            if (raised <= bound) return;
+            probe.cost = (long) Math.floor(bound) + 1;
+            for (Node node : open.tailSet(probe)) {
+                if (node.cost > raised) break;
+                focal.add(node);
+            }
+            bound = raised;
+        }
+
+        /**
+         * Counts the conflicts between routes, and gets the earliest one.
+         *
+         * @param routes The routes.
+         * @param first Filled with the earliest conflict, if any, as the two ways of solving it,
+         *        {agent, kind, constraint} each, then the robot at its end whose route must end
+         *        by the step of the second way, or -1.
+         * @return The number of conflicts.
+         */
+        private int countConflicts(Route[] routes, long[] first) {
+            int length = 0;
+            for (Route route : routes) {
+                length = Math.max(length, route.cells.length);
+            }
+            int[] current = new int[cellCount];
+            int[] previous = new int[cellCount];
+            Arrays.fill(previous, -1);
+            int count = 0;
+            for (int step = 0; step < length; step++) {
+                Arrays.fill(current, -1);
+                for (int i = 0; i < routes.length; i++) {
+                    int cell = routes[i].at(step);
+                    if (current[cell] >= 0) {
+                        int other = current[cell];
+                        long key = (long) step * cellCount + cell;
+                        if (count++ > 0) continue;
+                        if (step >= routes[other].cost()) {
+                            set(first, other, LONGER, key, i, FROM, key, other);
+                        } else if (step >= routes[i].cost()) {
+                            set(first, i, LONGER, key, other, FROM, key, i);
+                        } else {
+                            set(first, other, AT, key, i, AT, key, -1);
+                        }
+                    } else {
+                        current[cell] = i;
+                    }
+                }
+                for (int i = 0; i < routes.length; i++) {
+                    int cell = routes[i].at(step);
+                    int other = previous[cell];
+                    if (other >= 0 && other != i && !inLine(routes[i], routes[other], step) && count++ == 0) {
+                        set(first, i, AT, (long) step * cellCount + cell, other, AT, (long) (step - 1) * cellCount + cell, -1);
+                    }
+                }
+                int[] swap = previous;
+                previous = current;
+                current = swap;
+            }
+            return count;
+        }
+
+        /**
+         * Tells if a robot entering a cell at a step follows the robot leaving it in the same direction.
+         */
+        private boolean inLine(Route follower, Route leader, int step) {
+            if (step < 2) return false;
+            int from = follower.at(step - 1), cell = follower.at(step);
+            return from != cell && leader.at(step - 1) == cell && leader.at(step) - cell == cell - from;
+        }
+
+        private void set(long[] conflict, int agent, int kind, long constraint, int other, int otherKind, long otherConstraint,
+                         int linked) {
+            conflict[0] = agent;
+            conflict[1] = kind;
+            conflict[2] = constraint;
+            conflict[3] = other;
+            conflict[4] = otherKind;
+            conflict[5] = otherConstraint;
+            conflict[6] = linked;
+        }
+
+        /**
+         * Searches the shortest route of an agent under the constraints of a node, by A* over
+         * (cell, visit, step), waits included. Among the shortest routes, the one with the fewest
+         * conflicts with the routes of the other agents is preferred.
+         *
+         * @param index The index of the agent.
+         * @param node The node, null for no constraint.
+         * @param routes The routes of the agents, null to ignore them.
+         * @return The route, or null if there is none.
+         */
+        private Route plan(int index, Node node, Route[] routes) {
+            Agent agent = agents.get(index);
+            Set<Long> constraints = new HashSet<>();
+            Map<Integer, Integer> forbidden = new HashMap<>();
+            // the route ends after latest, and by end
+            int latest = -1, end = Integer.MAX_VALUE;
+            for (Node n = node; n != null && n.agent >= 0; n = n.parent) {
+                if (n.agent != index) continue;
+                int cell = (int) (n.constraint % cellCount), step = (int) (n.constraint / cellCount);
+                switch (n.kind) {
+                case AT:
+                    constraints.add(n.constraint);
+                    if (cell == agent.last) latest = Math.max(latest, step);
+                    break;
+                case FROM:
+                    forbidden.merge(cell, step, Math::min);
+                    break;
+                case LONGER:
+                    latest = Math.max(latest, step);
+                    break;
+                default:
+                    end = Math.min(end, step);
+                }
+            }
+            if (forbidden.containsKey(agent.last) || latest >= end) return null;
+
+            // cells taken by the other agents at each step, and from which step they stay in their last one
+            Set<Long> taken = new HashSet<>();
+            int[] parked = new int[cellCount];
+            Arrays.fill(parked, Integer.MAX_VALUE);
+            for (int i = 0; routes != null && i < routes.length; i++) {
+                if (i == index) continue;
+                int[] cells = routes[i].cells;
+                for (int step = 0; step < cells.length - 1; step++) {
+                    taken.add((long) step * cellCount + cells[step]);
+                }
+                parked[cells[cells.length - 1]] = Math.min(parked[cells[cells.length - 1]], cells.length - 1);
+            }
+
+            int visits = agent.goals.length + 1;
+            // past the last constraint, a route needs no more steps than visiting every cell for each visit
+            int maxStep = Math.min(end, latest + 1 + visits * cellCount);
+
+            PriorityQueue<Step> steps = new PriorityQueue<>(
+                Comparator.comparingInt((Step step) -> step.estimate).thenComparingInt(step -> step.conflicts)
+                          .thenComparingInt(step -> -step.step));
+            Set<Long> closed = new HashSet<>();
+            int first = agent.advance(agent.start, 0);
+            steps.add(new Step(agent.start, first, 0, agent.estimate(agent.start, first), 0, null));
+            long expansions = 0;
+            try {
+                while (!steps.isEmpty()) {
+                    Step current = steps.poll();
+                    if (!closed.add(((long) current.step * visits + current.visit) * cellCount + current.cell)) continue;
+                    expansions++;
+                    if (current.visit == agent.goals.length && current.cell == agent.last && current.step > latest) {
+                        return toRoute(agent, current);
+                    }
+                    if (current.step >= maxStep) continue;
+
+                    for (int direction = -1; direction < CoarseGrid.DIRECTIONS; direction++) {
+                        int cell = direction < 0 ? current.cell : agent.grid.move(current.cell, direction);
+                        if (cell < 0 || constraints.contains((long) (current.step + 1) * cellCount + cell)
+                            || forbidden.getOrDefault(cell, Integer.MAX_VALUE) <= current.step + 1) continue;
+                        int visit = agent.advance(cell, current.visit);
+                        int estimate = agent.estimate(cell, visit);
+                        if (estimate == Integer.MAX_VALUE) continue;
+                        int conflicts = current.conflicts + conflicts(taken, parked, current.cell, cell, current.step + 1);
+                        steps.add(new Step(cell, visit, current.step + 1, current.step + 1 + estimate, conflicts, current));
+                    }
+                }
+                return null;
+            } finally {
+                lowLevelExpansions.addAndGet(expansions);
+            }
+        }
+
+        /**
+         * Counts the possible conflicts of a move with the other agents: another agent in the cell reached,
+         * or in it at the step before, or entering the cell left.
+         */
+        private int conflicts(Set<Long> taken, int[] parked, int from, int to, int step) {
+            int count = 0;
+            if (taken.contains((long) step * cellCount + to) || parked[to] <= step) count++;
+            if (taken.contains((long) (step - 1) * cellCount + to) || parked[to] <= step - 1) count++;
+            if (from != to && (taken.contains((long) step * cellCount + from) || parked[from] <= step)) count++;
+            return count;
+        }
+
+        private Route toRoute(Agent agent, Step end) {
+            int[] cells = new int[end.step + 1];
+            for (Step step = end; step != null; step = step.parent) {
+                cells[step.step] = step.cell;
+            }
+            int[] visitSteps = new int[agent.goals.length];
+            for (int step = 0, visit = 0; step < cells.length && visit < visitSteps.length; step++) {
+                int next = agent.advance(cells[step], visit);
+                for (; visit < next; visit++) {
+                    visitSteps[visit] = step;
+                }
+            }
+            return new Route(cells, visitSteps);
+        }
+
+        /**
+         * Turns the routes of a solution into the paths of the robots, one per visit, the last one
+         * running to the end of the route.
+         */
+        private List<List<Path>> toPaths(Node solution) {
+            List<List<Path>> paths = new ArrayList<>(agents.size());
+            for (int i = 0; i < agents.size(); i++) {
+                Agent agent = agents.get(i);
+                Route route = solution.routes[i];
+                List<Path> legs = new ArrayList<>(agent.goals.length);
+                for (int visit = 0; visit < agent.goals.length; visit++) {
+                    int from = visit == 0 ? 0 : route.visitSteps[visit - 1];
+                    int to = visit == agent.goals.length - 1 ? route.cost() : route.visitSteps[visit];
+                    legs.add(toPath(agent, route, from, to, agent.robot.getToVisit().get(visit)));
+                }
+                paths.add(legs);
+            }
+            return paths;
+        }
+
+        /**
+         * Builds the path of the steps of a route between two steps, positioned at each tick.
+         */
+        private Path toPath(Agent agent, Route route, int from, int to, Visitable target) {
+            int[] schedule = new int[2 * ((to - from) * stepTicks + 1)];
+            int[] waypoints = new int[2 * (to - from + 1)];
+            int count = 0;
+            for (int step = from; step <= to; step++) {
+                int x = positionX(agent, route, step), y = positionY(agent, route, step);
+                if (count == 0 || waypoints[count - 2] != x || waypoints[count - 1] != y) {
+                    waypoints[count++] = x;
+                    waypoints[count++] = y;
+                }
+                if (step == to) {
+                    schedule[schedule.length - 2] = x;
+                    schedule[schedule.length - 1] = y;
+                    break;
+                }
+                int nextX = positionX(agent, route, step + 1), nextY = positionY(agent, route, step + 1);
+                for (int tick = 0; tick < stepTicks; tick++) {
+                    int index = 2 * ((step - from) * stepTicks + tick);
+                    schedule[index] = NavigationGrid.interpolate(x, nextX, tick, stepTicks);
+                    schedule[index + 1] = NavigationGrid.interpolate(y, nextY, tick, stepTicks);
+                }
+            }
+            return new ScheduledPath(Arrays.copyOf(waypoints, count), target, schedule, true);
+        }
+
+        /** X-coordinate of a robot at a step of its route: its start position, then the centers of the cells. */
+        private int positionX(Agent agent, Route route, int step) {
+            return step == 0 ? agent.robot.getxCenter() : agent.grid.getCenterX(route.cells[step]);
+        }
+
+        /** Y-coordinate of a robot at a step of its route: its start position, then the centers of the cells. */
+        private int positionY(Agent agent, Route route, int step) {
+            return step == 0 ? agent.robot.getyCenter() : agent.grid.getCenterY(route.cells[step]);
+        }
+    }
+}
@@ -93,23 +93,26 @@ public class Conveyor extends Component {
     }
 
     /**
-     * Defines the behavior of the conveyor: stops if a robot is at its visit position, otherwise alternates style to simulate movement.
+     * Defines the behavior of the conveyor: stops if a robot is at its visit position (robots visit
+     * with their center), otherwise alternates style to simulate movement.
      */
     @Override
     public void behave() {
-        boolean robotAtVisit = false;
-        for (Robot r : getFactory().getRobots()) {
-            Position visitPos = this.getVisit();
-            if (r.getxCoordinate() == visitPos.getxCoordinate() && r.getyCoordinate() == visitPos.getyCoordinate()) {
-                robotAtVisit = true;
-                break;
-            }
-        }
+        Position visitPos = this.getVisit();
+        boolean robotAtVisit = getFactory().getRobotOccupancy().getRobotCenteredAt(visitPos.getxCoordinate(), visitPos.getyCoordinate()) != null;
         if (robotAtVisit) {
             deactivate();
         } else {
             activate();
         }
     }
-    
+
+    /**
+     * {@inheritDoc}
+     * The conveyor is visited on every lap of the robots serving it.
+     */
+    @Override
+    public boolean isPointOfInterest() {
+        return true;
+    }
 }
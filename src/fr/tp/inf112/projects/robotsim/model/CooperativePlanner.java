@@ -0,0 +1,484 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.ReservationTable;
+import fr.tp.inf112.projects.robotsim.model.impl.ScheduledPath;
+import fr.tp.inf112.projects.robotsim.model.impl.SpaceTimeSearch;
+
+/**
+ * Cooperative planner giving the robots of a factory paths that do not collide with each other,
+ * by prioritized planning over a space-time {@link ReservationTable}.
+ *
+ * <p>
+ * The robots needing a path are planned together in a round at the start of a tick, in the order of
+ * the robots of the factory, starting from the next robot at each round so that no robot always
+ * comes last. Each one takes the route found by its own path finder, and its timing along that
+ * route is searched against the reservations of the robots planned before it: at each tick, it
+ * either moves by its speed along the route or waits, and the earliest arrival leaving its target
+ * free until the end of the horizon is kept, as a {@link ScheduledPath}. Only a robot whose route
+ * is blocked, e.g. by a robot coming the other way in a corridor, searches its moves further: a
+ * {@link SpaceTimeSearch windowed space-time search} lets it step aside or leave its route for a
+ * while, and if it still waits for long, it searches another route around the robots in the way.
+ * If nothing works, it waits in place and is planned again in the next round.
+ * </p>
+ *
+ * <p>
+ * The detour and space-time searches of a round expand at most {@link #ROUND_EXPANSIONS} nodes,
+ * which also count against the {@link Factory#getPathExpansionBudget() expansion budget} of the
+ * tick. Past the first, the robots left only follow their route, or wait in place if the budget
+ * of the tick ran out; the next round starts with them.
+ * </p>
+ *
+ * <p>
+ * A schedule stops at the horizon if the target is further (windowed planning): the robot is
+ * planned again from there.
+ * </p>
+ *
+ * @author team-24
+ */
+public class CooperativePlanner {
+    /** Default number of ticks planned ahead. */
+    public static final int DEFAULT_HORIZON = 128;
+    /** Maximum number of nodes expanded by the search of a detour. */
+    public static final int DETOUR_EXPANSIONS = 4000;
+    /** Maximum number of states expanded by a space-time search. */
+    public static final int SPACE_TIME_EXPANSIONS = 2000;
+    /** Maximum number of nodes expanded by the detour and space-time searches of a round. */
+    public static final int ROUND_EXPANSIONS = 20000;
+
+    private final int horizon;
+    private final SpaceTimeSearch spaceTimeSearch = new SpaceTimeSearch();
+    private ReservationTable table;
+    /** Index of the robot planned first in the next round. */
+    private int first;
+    /** Nodes expanded by the detour and space-time searches of the current round. */
+    private int roundExpansions;
+    /** Previous time step of each route step reached at each tick, for the timing search. */
+    private int[] parents = new int[0];
+    private boolean[] reached = new boolean[0];
+    private boolean[] next = new boolean[0];
+    private long rounds;
+    private long plannedPaths;
+    private long waitingRobots;
+    private long detours;
+    private long spaceTimePaths;
+    private long lastRoundNanos;
+    private long totalRoundNanos;
+
+    /**
+     * Constructs a cooperative planner with the default horizon.
+     */
+    public CooperativePlanner() {
+        this(DEFAULT_HORIZON);
+    }
+
+    /**
+     * Constructs a cooperative planner.
+     *
+     * @param horizon The number of ticks planned ahead.
+     */
+    public CooperativePlanner(int horizon) {
+        this.horizon = Math.max(1, horizon);
+    }
+
+    /** @return The number of ticks planned ahead. */
+    public int getHorizon() { return horizon; }
+
+    /** @return The number of planning rounds so far. */
+    public long getRoundCount() { return rounds; }
+
+    /** @return The number of paths given to the robots so far. */
+    public long getPlannedPathCount() { return plannedPaths; }
+
+    /** @return The number of times a robot could not be planned and was left waiting so far. */
+    public long getWaitingRobotCount() { return waitingRobots; }
+
+    /** @return The number of paths given along a detour around the other robots so far. */
+    public long getDetourCount() { return detours; }
+
+    /** @return The number of paths given by the space-time search so far. */
+    public long getSpaceTimePathCount() { return spaceTimePaths; }
+
+    /** @return The duration of the last planning round, in nanoseconds. */
+    public long getLastRoundNanos() { return lastRoundNanos; }
+
+    /** @return The total duration of the planning rounds so far, in nanoseconds. */
+    public long getTotalRoundNanos() { return totalRoundNanos; }
+
+    /**
+     * Plans the robots of a factory needing a path, if any. Paths computed without the planner are
+     * dropped first, so that every moving robot follows a schedule.
+     *
+     * <p>
+     * The table is filled again from scratch: first the robots that stand still, those waiting for
+     * a path included, for the whole horizon; then the robots following a schedule, for the rest
+     * of it, unless it now runs into a robot reserved before, in which case they are planned again
+     * too; last, the robots to plan, in order from the first one of the round, each one releasing
+     * its place for its own schedule. The duration of the round is recorded in the
+     * {@link TickMetrics} of the factory.
+     * </p>
+     *
+     * @param factory The factory.
+     * @return The number of robots that were given a path.
+     */
+    int planRound(Factory factory) {
+        List<Robot> robots = factory.getRobots();
+        boolean[] planning = new boolean[robots.size()];
+        boolean any = false;
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            Path path = robot.getCurrentPath();
+            if (path != null && !(path instanceof ScheduledPath)) path.invalidate();
+            // a robot held on its way, e.g. by a charging station, leaves its schedule: it stands
+            // still until released, then is planned again
+            if (path instanceof ScheduledPath && robot.isHeld() && path.isValid() && path.hasNext()) {
+                path.invalidate();
+                any = true;
+            }
+            planning[i] = robot.needsPath();
+            any |= planning[i];
+        }
+        if (!any) return 0;
+
+        long start = System.nanoTime();
+        ReservationTable reservations = getTable(factory);
+        reservations.clear();
+        for (int i = 0; i < robots.size(); i++) {
+            if (!isFollowingSchedule(robots.get(i), planning[i])) reserveStill(reservations, robots.get(i), i);
+        }
+        for (int i = 0; i < robots.size(); i++) {
+            Robot robot = robots.get(i);
+            if (!isFollowingSchedule(robot, planning[i])) continue;
+            ScheduledPath path = (ScheduledPath) robot.getCurrentPath();
+            if (isScheduleFree(reservations, robot, i, path)) {
+                reserveSchedule(reservations, robot, i, path, path.getCurrentTick());
+            } else {
+                path.invalidate();
+                planning[i] = true;
+                reserveStill(reservations, robot, i);
+            }
+        }
+
+        TickMetrics metrics = factory.getTickMetrics();
+        int planned = 0;
+        int left = -1;
+        roundExpansions = 0;
+        if (first >= robots.size()) first = 0;
+        for (int k = 0; k < robots.size(); k++) {
+            int i = (first + k) % robots.size();
+            if (!planning[i]) continue;
+            if (metrics.getRemainingExpansions() == 0) {
+                // out of budget: the robot keeps its place and opens the next round
+                if (left < 0) left = i;
+                waitingRobots++;
+                continue;
+            }
+            if (left < 0 && roundExpansions >= ROUND_EXPANSIONS) left = i;
+            Robot robot = robots.get(i);
+            releaseStill(reservations, robot, i);
+            ScheduledPath path = schedule(reservations, robot, i, metrics);
+            if (path == null) {
+                waitingRobots++;
+                reserveStill(reservations, robot, i);
+                continue;
+            }
+            reserveSchedule(reservations, robot, i, path, 0);
+            robot.setCurrentPath(path);
+            planned++;
+        }
+        first = left >= 0 ? left : first + 1;
+        rounds++;
+        plannedPaths += planned;
+        lastRoundNanos = System.nanoTime() - start;
+        totalRoundNanos += lastRoundNanos;
+        metrics.countPlanning(lastRoundNanos);
+        return planned;
+    }
+
+    /**
+     * Tells if a robot moves along a schedule computed in a previous round: it still goes to the
+     * target of the schedule, and stands where the schedule expects it.
+     */
+    private static boolean isFollowingSchedule(Robot robot, boolean planning) {
+        Path path = robot.getCurrentPath();
+        return !planning && !robot.isHeld() && robot.hasPathFinder() && path instanceof ScheduledPath && path.isValid()
+               && path.getTarget() == robot.getCurrentVisit()
+               && path.getCurrentX() == robot.getxCenter() && path.getCurrentY() == robot.getyCenter();
+    }
+
+    /**
+     * Gets the reservation table, created anew if the factory was resized or a larger robot came in.
+     */
+    private ReservationTable getTable(Factory factory) {
+        int cellSize = 1;
+        for (Robot robot : factory.getRobots()) {
+            cellSize = Math.max(cellSize, Math.max(robot.getWidth(), robot.getHeight()));
+        }
+        if (table == null || !table.covers(factory.getxCoordinate(), factory.getyCoordinate(),
+                                           factory.getWidth(), factory.getHeight(), cellSize)) {
+            table = new ReservationTable(factory.getxCoordinate(), factory.getyCoordinate(),
+                                         factory.getWidth(), factory.getHeight(), cellSize, horizon);
+        }
+        return table;
+    }
+
+    /**
+     * Reserves the footprint of a robot at its current position until the horizon.
+     */
+    private void reserveStill(ReservationTable reservations, Robot robot, int owner) {
+        int left = robot.getxCenter() - robot.getWidth() / 2;
+        int top = robot.getyCenter() - robot.getHeight() / 2;
+        for (int tick = 0; tick <= horizon; tick++) {
+            reservations.reserve(left, top, robot.getWidth(), robot.getHeight(), tick, owner);
+        }
+    }
+
+    /**
+     * Frees the footprint reserved by {@link #reserveStill}.
+     */
+    private void releaseStill(ReservationTable reservations, Robot robot, int owner) {
+        int left = robot.getxCenter() - robot.getWidth() / 2;
+        int top = robot.getyCenter() - robot.getHeight() / 2;
+        for (int tick = 0; tick <= horizon; tick++) {
+            reservations.release(left, top, robot.getWidth(), robot.getHeight(), tick, owner);
+        }
+    }
+
+    /**
+     * Reserves the footprint of a robot along the rest of its schedule, then at its last position
+     * until the horizon.
+     */
+    private void reserveSchedule(ReservationTable reservations, Robot robot, int owner, ScheduledPath path, int from) {
+        int last = path.getTickCount() - 1;
+        for (int tick = 0; tick <= horizon; tick++) {
+            int index = Math.min(last, from + tick);
+            reservations.reserve(path.getScheduledX(index) - robot.getWidth() / 2, path.getScheduledY(index) - robot.getHeight() / 2,
+                                 robot.getWidth(), robot.getHeight(), tick, owner);
+        }
+    }
+
+    /**
+     * Tells if the rest of the schedule of a robot, then its last position until the horizon, runs
+     * into no reservation.
+     */
+    private boolean isScheduleFree(ReservationTable reservations, Robot robot, int owner, ScheduledPath path) {
+        int last = path.getTickCount() - 1;
+        for (int tick = 0; tick <= horizon; tick++) {
+            int index = Math.min(last, path.getCurrentTick() + tick);
+            if (!reservations.isFree(path.getScheduledX(index) - robot.getWidth() / 2, path.getScheduledY(index) - robot.getHeight() / 2,
+                                     robot.getWidth(), robot.getHeight(), tick, owner)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Tells if a robot may be at a route position at a tick.
+     */
+    private static boolean isFree(ReservationTable reservations, Robot robot, int owner, int[] positions, int step, int tick) {
+        return reservations.isFree(positions[2 * step] - robot.getWidth() / 2, positions[2 * step + 1] - robot.getHeight() / 2,
+                                   robot.getWidth(), robot.getHeight(), tick, owner);
+    }
+
+    /**
+     * Computes the route of a robot to its current visit and its timing along it. If the robot
+     * waits for long without reaching its target within the horizon, or cannot even stay where it
+     * stands, its moves are searched in space and time around the route, and kept if they get it
+     * to the target earlier. If it still waits for long, e.g. because a robot stands on its route
+     * further than the search looks, a detour is searched around the positions the other robots
+     * are reserved at the horizon, and kept if it gets closer to the target.
+     *
+     * @return The scheduled path, or null if the robot finds no route or cannot move along it.
+     */
+    private ScheduledPath schedule(ReservationTable reservations, Robot robot, int owner, TickMetrics metrics) {
+        robot.initializePathFinder();
+        Visitable target = robot.getCurrentVisit();
+        Path route = robot.getPathFinder().findPath(target);
+        if (route == null || route.isNull()) return null;
+        int[] waypoints = waypoints(route);
+        int[] positions = positions(robot, route);
+        ScheduledPath path = time(reservations, robot, owner, positions, waypoints, target);
+        if ((path != null && (path.isComplete() || countWaits(path) <= horizon / 4))
+            || !(robot.getPathFinder() instanceof AbstractGridFactoryPathFinder)) return path;
+
+        AbstractGridFactoryPathFinder finder = (AbstractGridFactoryPathFinder) robot.getPathFinder();
+        NavigationGrid grid = finder.getGrid();
+        int expansions = getSearchExpansions(SPACE_TIME_EXPANSIONS, metrics);
+        if (expansions == 0) return path;
+        int[] schedule = spaceTimeSearch.search(grid, reservations, owner, robot.getWidth(), robot.getHeight(),
+                                                robot.getSpeed(), positions, horizon / 2, expansions);
+        countSearchExpansions(spaceTimeSearch.getExpandedNodes(), metrics);
+        if (schedule != null) {
+            ScheduledPath moves = new ScheduledPath(waypoints, target, schedule, spaceTimeSearch.isComplete());
+            if (path == null || moves.isComplete() || arrival(moves, target, robot) < arrival(path, target, robot)) {
+                spaceTimePaths++;
+                path = moves;
+            }
+        }
+        if (path != null && (path.isComplete() || countWaits(path) <= horizon / 4)) return path;
+
+        // the robot center must keep its footprint off the others at the horizon, where they end up
+        expansions = getSearchExpansions(DETOUR_EXPANSIONS, metrics);
+        if (expansions == 0) return path;
+        long expanded = finder.getExpandedNodes();
+        Path around = finder.findPathAround(
+            new Position(robot.getxCenter(), robot.getyCenter()), target,
+            cell -> !reservations.isFree(grid.getX(cell) - robot.getWidth() / 2, grid.getY(cell) - robot.getHeight() / 2,
+                                         robot.getWidth(), robot.getHeight(), horizon, owner),
+            expansions);
+        countSearchExpansions((int) (finder.getExpandedNodes() - expanded), metrics);
+        ScheduledPath detour = around == null || around.isNull() ? null
+                             : time(reservations, robot, owner, positions(robot, around), waypoints(around), target);
+        if (detour != null && (path == null || detour.isComplete() || distance(detour, target) < distance(path, target))) {
+            detours++;
+            path = detour;
+        }
+        return path;
+    }
+
+    /**
+     * Gets the number of nodes a detour or space-time search may expand, within what is left of
+     * the round and of the budget of the tick.
+     */
+    private int getSearchExpansions(int max, TickMetrics metrics) {
+        return Math.max(0, Math.min(Math.min(max, ROUND_EXPANSIONS - roundExpansions), metrics.getRemainingExpansions()));
+    }
+
+    /**
+     * Records the nodes expanded by a detour or space-time search.
+     */
+    private void countSearchExpansions(int count, TickMetrics metrics) {
+        roundExpansions += count;
+        metrics.countExpansions(count);
+    }
+
+    /**
+     * Gets the coordinates of the waypoints of a route, as {x0, y0, x1, y1, ...}.
+     */
+    private static int[] waypoints(Path route) {
+        int[] waypoints = new int[2 * route.getWaypointCount()];
+        for (int i = 0; i < route.getWaypointCount(); i++) {
+            waypoints[2 * i] = route.getX(i);
+            waypoints[2 * i + 1] = route.getY(i);
+        }
+        return waypoints;
+    }
+
+    /**
+     * Walks a route at the full speed of a robot from its current position.
+     *
+     * @return The positions of the robot center along the route, one tick apart, as {x0, y0, x1, y1, ...}.
+     */
+    private static int[] positions(Robot robot, Path route) {
+        int[] positions = new int[64];
+        positions[0] = robot.getxCenter();
+        positions[1] = robot.getyCenter();
+        int steps = 0;
+        while (route.hasNext()) {
+            if (route.walk(robot.getSpeed()) == 0) break;
+            if (2 * steps + 3 >= positions.length) positions = Arrays.copyOf(positions, 2 * positions.length);
+            steps++;
+            positions[2 * steps] = route.getCurrentX();
+            positions[2 * steps + 1] = route.getCurrentY();
+        }
+        return Arrays.copyOf(positions, 2 * steps + 2);
+    }
+
+    /**
+     * Counts the ticks a scheduled path waits in place.
+     */
+    private static int countWaits(ScheduledPath path) {
+        int waits = 0;
+        for (int tick = 1; tick < path.getTickCount(); tick++) {
+            if (path.getScheduledX(tick) == path.getScheduledX(tick - 1) && path.getScheduledY(tick) == path.getScheduledY(tick - 1)) waits++;
+        }
+        return waits;
+    }
+
+    /**
+     * Gets the distance left to a target from the end of a scheduled path.
+     */
+    private static double distance(ScheduledPath path, Visitable target) {
+        int last = path.getTickCount() - 1;
+        return Math.hypot(target.getxVisit() - path.getScheduledX(last), target.getyVisit() - path.getScheduledY(last));
+    }
+
+    /**
+     * Estimates the tick a scheduled path gets a robot to a target, going on in straight line
+     * from the end of the schedule.
+     */
+    private static double arrival(ScheduledPath path, Visitable target, Robot robot) {
+        return path.getTickCount() - 1 + distance(path, target) / Math.max(1, robot.getSpeed());
+    }
+
+    /**
+     * Searches the timing of a robot along a route against the reservations: a breadth-first
+     * search over (route step, tick) where the robot either waits or moves to the next step at each
+     * tick, the earliest arrival leaving the target free until the horizon being kept.
+     *
+     * @param positions The positions of the robot along the route, as given by {@link #positions(Robot, Path)}.
+     * @param waypoints The waypoints of the route.
+     * @return The scheduled path, or null if the robot cannot move along the route.
+     */
+    private ScheduledPath time(ReservationTable reservations, Robot robot, int owner, int[] positions, int[] waypoints,
+                               Visitable target) {
+        int steps = positions.length / 2 - 1;
+        int width = steps + 1;
+        if (parents.length < width * (horizon + 1)) parents = new int[width * (horizon + 1)];
+        if (reached.length < width) {
+            reached = new boolean[width];
+            next = new boolean[width];
+        }
+        Arrays.fill(reached, 0, width, false);
+        reached[0] = true;
+        int arrival = -1;
+        int tick = 0;
+        while (tick < horizon && arrival < 0) {
+            Arrays.fill(next, 0, width, false);
+            boolean any = false;
+            for (int step = steps; step >= 0; step--) {
+                if (!reached[step]) continue;
+                // waiting first, so that the parent of a step reached both ways is a wait: the
+                // robot moves on as early as it can
+                for (int to = step, last = Math.min(step + 1, steps); to <= last; to++) {
+                    if (next[to] || !isFree(reservations, robot, owner, positions, to, tick + 1)) continue;
+                    next[to] = true;
+                    parents[(tick + 1) * width + to] = step;
+                    any = true;
+                }
+            }
+            if (!any) return null;
+            boolean[] swap = reached;
+            reached = next;
+            next = swap;
+            tick++;
+            if (reached[steps] && isFreeUntilHorizon(reservations, robot, owner, positions, steps, tick)) arrival = tick;
+        }
+
+        // the earliest arrival, or the furthest step reached at the horizon
+        int end = steps;
+        if (arrival < 0) {
+            while (!reached[end]) end--;
+            if (end == 0) return null;
+        }
+        int[] schedule = new int[2 * (tick + 1)];
+        for (int t = tick, step = end; t >= 0; t--) {
+            schedule[2 * t] = positions[2 * step];
+            schedule[2 * t + 1] = positions[2 * step + 1];
+            if (t > 0) step = parents[t * width + step];
+        }
+        return new ScheduledPath(waypoints, target, schedule, arrival >= 0);
+    }
+
+    /**
+     * Tells if a robot may stay at a route position from a tick until the horizon.
+     */
+    private boolean isFreeUntilHorizon(ReservationTable reservations, Robot robot, int owner, int[] positions, int step, int from) {
+        for (int tick = from; tick <= horizon; tick++) {
+            if (!isFree(reservations, robot, owner, positions, step, tick)) return false;
+        }
+        return true;
+    }
+}
@@ -67,6 +67,13 @@ public class Door extends Component {
      */
     public final Room getParentRoom() { return this.parentRoom; }
 
+    /**
+     * Tells if the door is vertical (on the left or right border of its room).
+     *
+     * @return True if the door is vertical, false if it is horizontal.
+     */
+    public final boolean isVertical() { return this.isVertical; }
+
     /**
      * Checks if the door is open.
      * 
@@ -96,6 +103,15 @@ public class Door extends Component {
         }
     }
 
+    /**
+     * Invalidates the openings compiled by the room of the door, once the door moved or was
+     * resized: the navigation structures refreshed next see the new openings.
+     */
+    @Override
+    void boundsChanged() {
+        if (parentRoom != null) parentRoom.invalidateOpenings();
+    }
+
     /**
      * Checks if a point at (x, y) fits in the door (i.e., is within the door's open area).
      *
@@ -183,6 +199,44 @@ public class Door extends Component {
         return parentRoom.isObstacle(x, y, width, height);
     }
 
+    /**
+     * Doors always affect navigation, since they open the walls of their room.
+     *
+     * @return {@code true}.
+     */
+    @Override
+    boolean affectsNavigation() {
+        return true;
+    }
+
+    /**
+     * Gets the area whose walkability depends on the door: the door itself and its whole room,
+     * since a door opens rows or columns across every wall of the room.
+     *
+     * @return The bounds {left, top, right, bottom} of the area, all inclusive.
+     */
+    @Override
+    int[] getNavigationBounds() {
+        int[] bounds = super.getNavigationBounds();
+        if (parentRoom != null) {
+            int[] room = parentRoom.getNavigationBounds();
+            bounds[0] = Math.min(bounds[0], room[0]);
+            bounds[1] = Math.min(bounds[1], room[1]);
+            bounds[2] = Math.max(bounds[2], room[2]);
+            bounds[3] = Math.max(bounds[3], room[3]);
+        }
+        return bounds;
+    }
+
+    /**
+     * Does nothing: the cells blocked around the door are marked by its room.
+     *
+     * @param grid The navigation grid to update.
+     */
+    @Override
+    void markObstacleCells(NavigationGrid grid) {
+    }
+
     /**
      * Returns a string representation of the door.
      *
@@ -198,11 +252,10 @@ public class Door extends Component {
      */
     @Override
     public void behave() {
-        for (Robot r : getFactory().getRobots()) {
-            if (r.overlays(this)) {
-                open();
-                return;
-            }
+        int left = getxCoordinate(), top = getyCoordinate();
+        if (getFactory().getRobotOccupancy().getRobotOverlapping(left, top, left + getWidth(), top + getHeight(), null) != null) {
+            open();
+            return;
         }
         close();
         return;
@@ -12,6 +12,7 @@ import fr.tp.inf112.projects.canvas.model.impl.BasicRectangleShape;
 import fr.tp.inf112.projects.canvas.model.Figure;
 import fr.tp.inf112.projects.canvas.controller.Observable;
 import fr.tp.inf112.projects.canvas.controller.Observer;
+import fr.tp.inf112.projects.robotsim.model.impl.ChargingStationPartition;
 
 /**
  * Represents a factory in the robot simulation.
@@ -26,6 +27,17 @@ public class Factory extends Component implements Canvas, Observable {
     private List<Component> components;
     private List<Robot> robots;
     transient private Set<Observer> observers;
+    transient private SpatialIndex spatialIndex;
+    transient private RobotOccupancy robotOccupancy;
+    transient private volatile NavigationCache navigationCache;
+    transient private volatile long layoutVersion;
+    transient private volatile long pointsOfInterestVersion;
+    transient private volatile PathPlanner pathPlanner;
+    transient private CooperativePlanner cooperativePlanner;
+    transient private TickMetrics tickMetrics;
+    transient private volatile boolean notificationsSuspended;
+    private int pathExpansionBudget;
+    private boolean collisionAvoidance;
     private boolean simulationRunning;
 
     /**
@@ -99,9 +111,185 @@ public class Factory extends Component implements Canvas, Observable {
     public void addComponent(Component component) {
         if (component != null) {
             this.components.add(component);
+            if (spatialIndex != null) spatialIndex.add(component);
+            if (robotOccupancy != null && component instanceof Robot) robotOccupancy.add((Robot) component);
+            if (component.affectsNavigation()) {
+                int[] bounds = component.getNavigationBounds();
+                navigationChanged(bounds[0], bounds[1], bounds[2], bounds[3]);
+            }
+            if (component.isPointOfInterest()) pointsOfInterestChanged();
+        }
+    }
+
+    /**
+     * Removes a component from the factory.
+     *
+     * @param component The {@link Component} to remove.
+     * @return True if the component was part of the factory, false otherwise.
+     */
+    public boolean removeComponent(Component component) {
+        if (component == null || !this.components.remove(component)) return false;
+        if (component instanceof Robot) this.robots.remove(component);
+        if (spatialIndex != null) spatialIndex.remove(component);
+        if (robotOccupancy != null && component instanceof Robot) robotOccupancy.remove((Robot) component);
+        if (component instanceof Door) {
+            ((Door) component).getParentRoom().removeDoor((Door) component);
+        }
+        else if (component.affectsNavigation()) {
+            int[] bounds = component.getNavigationBounds();
+            navigationChanged(bounds[0], bounds[1], bounds[2], bounds[3]);
+        }
+        if (component.isPointOfInterest()) pointsOfInterestChanged();
+        notifyObservers();
+        return true;
+    }
+
+    /**
+     * Gets the spatial index of the components, building it if needed
+     * (e.g. after the factory was deserialized).
+     *
+     * @return The {@link SpatialIndex} of the factory components.
+     */
+    public SpatialIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            SpatialIndex index = new SpatialIndex(getxCoordinate(), getyCoordinate(), getWidth(), getHeight());
+            for (Component component : components) {
+                index.add(component);
+            }
+            spatialIndex = index;
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * Gets the occupancy grid of the robots, building it if needed
+     * (e.g. after the factory was deserialized).
+     *
+     * @return The {@link RobotOccupancy} of the factory robots.
+     */
+    public RobotOccupancy getRobotOccupancy() {
+        if (robotOccupancy == null) {
+            RobotOccupancy occupancy = new RobotOccupancy(getxCoordinate(), getyCoordinate(), getWidth(), getHeight());
+            for (Robot robot : robots) {
+                occupancy.add(robot);
+            }
+            robotOccupancy = occupancy;
+        }
+        return robotOccupancy;
+    }
+
+    /**
+     * Updates the spatial index, the robot occupancy and the navigation structures after a component moved or was resized.
+     *
+     * @param component The {@link Component} whose bounds changed.
+     * @param previous The navigation bounds of the component before the change, null if it
+     *                 does not affect navigation.
+     */
+    void componentBoundsChanged(Component component, int[] previous) {
+        component.boundsChanged();
+        if (spatialIndex != null) spatialIndex.update(component);
+        if (robotOccupancy != null && component instanceof Robot) robotOccupancy.update((Robot) component);
+        if (previous != null) {
+            int[] bounds = component.getNavigationBounds();
+            navigationChanged(Math.min(previous[0], bounds[0]), Math.min(previous[1], bounds[1]),
+                              Math.max(previous[2], bounds[2]), Math.max(previous[3], bounds[3]));
+        }
+    }
+
+    /**
+     * Records a layout change within the given area: bumps the layout version, refreshes the
+     * cached navigation structures around the area and flags for replanning the paths of the
+     * robots going through it.
+     *
+     * @param left Left bound of the changed area.
+     * @param top Top bound of the changed area.
+     * @param right Right bound of the changed area.
+     * @param bottom Bottom bound of the changed area.
+     */
+    synchronized void navigationChanged(int left, int top, int right, int bottom) {
+        layoutVersion++;
+        NavigationCache cache = navigationCache;
+        if (cache != null) cache.refresh(left, top, right, bottom);
+        for (Robot robot : robots) {
+            robot.navigationChanged(left, top, right, bottom);
         }
     }
 
+    /**
+     * Gets the version of the factory layout, incremented each time a component affecting
+     * navigation is added, moved or resized.
+     *
+     * @return The layout version.
+     */
+    public long getLayoutVersion() {
+        return layoutVersion;
+    }
+
+    /**
+     * Records that a point of interest was added or removed, or that its visit position changed.
+     */
+    synchronized void pointsOfInterestChanged() {
+        pointsOfInterestVersion++;
+    }
+
+    /**
+     * Gets the version of the points of interest of the factory, incremented each time one
+     * is added or removed, or its visit position changes.
+     *
+     * @return The points of interest version.
+     */
+    public long getPointsOfInterestVersion() {
+        return pointsOfInterestVersion;
+    }
+
+    /**
+     * Gets the navigation cache of the factory, creating it if needed
+     * (e.g. after the factory was deserialized).
+     *
+     * @return The {@link NavigationCache} shared by the robots of the factory.
+     */
+    public NavigationCache getNavigationCache() {
+        NavigationCache cache = navigationCache;
+        if (cache == null) {
+            synchronized (this) {
+                cache = navigationCache;
+                if (cache == null) {
+                    cache = new NavigationCache(this);
+                    navigationCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the components whose bounding box may intersect the given area.
+     * Only the components registered near the area are examined.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area.
+     * @param bottom Bottom bound of the area.
+     * @return The candidate components.
+     */
+    public List<Component> getComponentsNear(int left, int top, int right, int bottom) {
+        return getSpatialIndex().getComponentsNear(left, top, right, bottom);
+    }
+
+    /**
+     * Returns the robots whose bounding box may intersect the given area, borders included.
+     * Only the robots registered near the area in the {@link RobotOccupancy} are examined.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area.
+     * @param bottom Bottom bound of the area.
+     * @return The candidate {@link Robot}s.
+     */
+    public List<Robot> getRobotsNear(int left, int top, int right, int bottom) {
+        return getRobotOccupancy().getRobotsOverlapping(left - 1, top - 1, right + 1, bottom + 1);
+    }
+
     /**
      * Adds a robot to the factory.
      * 
@@ -146,10 +334,31 @@ public class Factory extends Component implements Canvas, Observable {
     }
 
     /**
-     * Notifies all registered observers of a change in the factory.
+     * Tells if the notifications of the observers are suspended.
+     *
+     * @return true if the changes of the factory are not notified.
+     */
+    public boolean isNotificationsSuspended() {
+        return notificationsSuspended;
+    }
+
+    /**
+     * Suspends or resumes the notifications of the observers, e.g. while running many ticks with
+     * nobody watching. On resuming, the observers are notified once of all the changes made meanwhile.
+     *
+     * @param notificationsSuspended true to stop notifying the observers, false to notify them again.
+     */
+    public void setNotificationsSuspended(boolean notificationsSuspended) {
+        boolean resumed = this.notificationsSuspended && !notificationsSuspended;
+        this.notificationsSuspended = notificationsSuspended;
+        if (resumed) notifyObservers();
+    }
+
+    /**
+     * Notifies all registered observers of a change in the factory, unless notifications are suspended.
      */
     protected void notifyObservers() {
-        if (observers == null) return;
+        if (observers == null || notificationsSuspended) return;
         for (final Observer observer : observers) {
             observer.modelChanged();
         }
@@ -168,9 +377,15 @@ public class Factory extends Component implements Canvas, Observable {
 
     /**
      * Starts the simulation for the factory.
+     * The navigation structures needed by the robots are built beforehand, and the paths of their
+     * visit cycles computed.
      */
     public void startSimulation() {
         if (!this.simulationRunning) {
+            getNavigationCache().prepare(robots);
+            for (Robot robot : robots) {
+                robot.planVisits();
+            }
             this.simulationRunning = true;
             this.notifyObservers();
         }
@@ -193,23 +408,140 @@ public class Factory extends Component implements Canvas, Observable {
      */
     public boolean isSimulationRunning() { return this.simulationRunning; }
 
+    /**
+     * Gets the service planning the paths of the robots off the simulation tick.
+     *
+     * @return The {@link PathPlanner}, or null if the robots compute their paths during the tick.
+     */
+    public PathPlanner getPathPlanner() {
+        return pathPlanner;
+    }
+
+    /**
+     * Sets the service planning the paths of the robots off the simulation tick. The paths being
+     * computed by the previous planner, if any, are requested again from the new one.
+     *
+     * @param pathPlanner The {@link PathPlanner}, or null for the robots to compute their paths during the tick.
+     */
+    public void setPathPlanner(PathPlanner pathPlanner) {
+        this.pathPlanner = pathPlanner;
+    }
+
+    /**
+     * Gets the planner giving the robots paths that do not collide with each other.
+     *
+     * @return The {@link CooperativePlanner}, or null if the robots plan independently.
+     */
+    public CooperativePlanner getCooperativePlanner() {
+        return cooperativePlanner;
+    }
+
+    /**
+     * Sets the planner giving the robots paths that do not collide with each other. While it is set,
+     * the robots no longer compute their paths themselves, nor ask the path planner for them.
+     *
+     * @param cooperativePlanner The {@link CooperativePlanner}, or null for the robots to plan independently.
+     */
+    public void setCooperativePlanner(CooperativePlanner cooperativePlanner) {
+        this.cooperativePlanner = cooperativePlanner;
+    }
+
+    /**
+     * Gets the number of node expansions the path searches run during a tick may share.
+     *
+     * @return The expansion budget per tick, 0 if unlimited.
+     */
+    public int getPathExpansionBudget() {
+        return pathExpansionBudget;
+    }
+
+    /**
+     * Sets the number of node expansions the path searches run during a tick may share. Only the
+     * path finders able to suspend a search honour it, such as {@link PathFinderKind#ANYTIME}, and
+     * the {@link CooperativePlanner}; the searches of a {@link PathPlanner} run off the tick and
+     * are not limited.
+     *
+     * @param pathExpansionBudget The expansion budget per tick, 0 for no limit.
+     */
+    public void setPathExpansionBudget(int pathExpansionBudget) {
+        this.pathExpansionBudget = Math.max(0, pathExpansionBudget);
+    }
+
+    /**
+     * Tells if the robots avoid running into each other while moving.
+     *
+     * @return true if the robots wait, then step aside, when another robot is in their way.
+     */
+    public boolean isCollisionAvoidance() {
+        return collisionAvoidance;
+    }
+
+    /**
+     * Sets whether the robots avoid running into each other while moving: a robot whose next move
+     * would overlap another robot waits, and steps aside if it stays blocked. The paths given by
+     * a cooperative planner are collision-free already, and followed as they are.
+     *
+     * @param collisionAvoidance true for the robots to avoid each other.
+     */
+    public void setCollisionAvoidance(boolean collisionAvoidance) {
+        this.collisionAvoidance = collisionAvoidance;
+    }
+
+    /**
+     * Gets the statistics of the simulation ticks, creating them if needed
+     * (e.g. after the factory was deserialized).
+     *
+     * @return The {@link TickMetrics} of the factory.
+     */
+    public TickMetrics getTickMetrics() {
+        if (tickMetrics == null) tickMetrics = new TickMetrics();
+        return tickMetrics;
+    }
+
     /**
      * Defines the behavior of all components in the factory.
+     * With a path planner, the paths completed since the previous tick are handed to their robots first;
+     * with a cooperative planner, the robots needing a path are planned together first.
+     * The duration of the tick and the node expansions of its searches are recorded in the tick metrics.
      */
     public void behave() {
+        TickMetrics metrics = getTickMetrics();
+        long start = System.nanoTime();
+        metrics.startTick(pathExpansionBudget);
+        if (pathPlanner != null) {
+            for (Robot robot : this.robots) {
+                robot.applyPlannedPath();
+            }
+        }
+        if (cooperativePlanner != null) cooperativePlanner.planRound(this);
         for (Component c : this.components) {
             c.behave();
             // System.out.println(this);
         }
+        metrics.endTick(System.nanoTime() - start);
     }
 
     /**
      * Finds the nearest charging station to a given component.
+     * For a robot navigating with a path finder, this is the nearest one by path, read from the
+     * {@link ChargingStationPartition} of its footprint; otherwise, or if no station can be
+     * reached, the nearest one in straight line. Under a path expansion budget, a partition
+     * discarded by a layout change, or out of date after stations were added or removed, is
+     * computed again in the background, not during the tick, and the nearest station in straight
+     * line is given meanwhile.
      * 
      * @param component The {@link Component} for which to find the nearest {@link ChargingStation}.
      * @return The nearest {@link ChargingStation}, or null if none exists.
      */
     public ChargingStation getChargingStation(Component component) {
+        if (component instanceof Robot && ((Robot) component).hasPathFinder()) {
+            NavigationCache cache = getNavigationCache();
+            ChargingStationPartition partition = pathExpansionBudget > 0
+                    ? ChargingStationPartition.getIfBuilt(cache, component.getWidth(), component.getHeight())
+                    : ChargingStationPartition.get(cache, component.getWidth(), component.getHeight());
+            ChargingStation station = partition != null ? partition.getStation(component.getxCenter(), component.getyCenter()) : null;
+            if (station != null) return station;
+        }
         Component nearestStation = null;
         double minDist = Double.POSITIVE_INFINITY;
         for (Component c : components) {
@@ -227,23 +559,13 @@ public class Factory extends Component implements Canvas, Observable {
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(Position position) {
-        for (Component component : components) {
-            if (component.isObstacle(position)) {
-                return true;
-            }
-        }
-        return false;
+        return getSpatialIndex().isObstacle(position.getxCoordinate(), position.getyCoordinate());
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(int x, int y) {
-        for (Component component : components) {
-            if (component.isObstacle(x, y)) {
-                return true;
-            }
-        }
-        return false;
+        return getSpatialIndex().isObstacle(x, y);
     }
 
     /** {@inheritDoc} */
@@ -255,12 +577,7 @@ public class Factory extends Component implements Canvas, Observable {
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(int x, int y, int width, int height) {
-        for (Component component : components) {
-            if (component.isObstacle(x, y, width, height)) {
-                return true;
-            }
-        }
-        return false;
+        return getSpatialIndex().isObstacle(x, y, width, height);
     }
 
 
@@ -18,4 +18,33 @@ public interface FactoryPathFinder {
      * @return A {@link Path} object representing the path to target.
      */
     Path findPath(Visitable target);
+
+    /**
+     * Computes the shortest path from a given position to a target visit.
+     *
+     * @param from The position to start from.
+     * @param target The target visit to reach.
+     * @return A {@link Path} object representing the path to target.
+     */
+    Path findPath(Position from, Visitable target);
+
+    /**
+     * Computes the shortest paths from a given position to several target visits at once.
+     *
+     * @param from The position to start from.
+     * @param targets The target visits to reach.
+     * @return The paths to the targets, in the same order, null for null targets.
+     */
+    List<Path> findPaths(Position from, List<? extends Visitable> targets);
+
+    /**
+     * Computes the paths of a visit cycle: from a given position to the first visit, from each
+     * visit to the next one, then from the last visit back to the first one.
+     *
+     * @param from The position to start from.
+     * @param visits The visits of the cycle, in order.
+     * @return The {@code visits.size() + 1} paths of the cycle, null for the ones from or to a null
+     *         visit, or an empty list if there is no visit.
+     */
+    List<Path> findCycle(Position from, List<? extends Visitable> visits);
 }
@@ -0,0 +1,106 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a {@link ConflictBasedSearchSolver}: the paths of each robot of a fleet along its
+ * visits, with the statistics of the search.
+ *
+ * <p>
+ * Costs are in simulation ticks, waits included: the cost of a robot is the tick it reaches its
+ * last visit, and the sum of costs adds them up over the fleet.
+ * </p>
+ *
+ * @author team-24
+ */
+public class FleetPlan {
+    private final List<Robot> robots;
+    private final List<List<Path>> paths;
+    private final boolean optimal;
+    private final long sumOfCosts;
+    private final long independentSumOfCosts;
+    private final long expandedNodes;
+    private final long generatedNodes;
+    private final long lowLevelExpansions;
+    private final int threads;
+    private final long solveNanos;
+
+    /**
+     * Constructs a fleet plan.
+     *
+     * @param robots The robots planned.
+     * @param paths The paths of each robot, one per visit, in the order of the robots; null if no solution was found.
+     * @param optimal Whether the solution is optimal.
+     * @param sumOfCosts The sum of the costs of the solution, in ticks.
+     * @param independentSumOfCosts The sum of the costs of the robots planned on their own, in ticks.
+     * @param expandedNodes The number of constraint tree nodes expanded.
+     * @param generatedNodes The number of constraint tree nodes generated.
+     * @param lowLevelExpansions The number of nodes expanded by the searches of the robot paths.
+     * @param threads The number of threads searching the constraint tree.
+     * @param solveNanos The duration of the search, in nanoseconds.
+     */
+    FleetPlan(List<Robot> robots, List<List<Path>> paths, boolean optimal, long sumOfCosts, long independentSumOfCosts,
+              long expandedNodes, long generatedNodes, long lowLevelExpansions, int threads, long solveNanos) {
+        this.robots = Collections.unmodifiableList(robots);
+        this.paths = paths == null ? null : Collections.unmodifiableList(paths);
+        this.optimal = optimal;
+        this.sumOfCosts = sumOfCosts;
+        this.independentSumOfCosts = independentSumOfCosts;
+        this.expandedNodes = expandedNodes;
+        this.generatedNodes = generatedNodes;
+        this.lowLevelExpansions = lowLevelExpansions;
+        this.threads = threads;
+        this.solveNanos = solveNanos;
+    }
+
+    /** @return The robots planned. */
+    public List<Robot> getRobots() { return robots; }
+
+    /** @return true if a collision-free solution was found. */
+    public boolean isSolved() { return paths != null; }
+
+    /** @return true if the solution is optimal, false if it is only within the suboptimality of the solver. */
+    public boolean isOptimal() { return optimal; }
+
+    /**
+     * Gets the paths of a robot, one per visit of its list, each one starting when the previous
+     * one ends. They are {@code ScheduledPath}s: their waits are part of the plan.
+     *
+     * @param robot A robot of the plan.
+     * @return The paths of the robot, or null if it is not part of the plan or no solution was found.
+     */
+    public List<Path> getPaths(Robot robot) {
+        int index = robots.indexOf(robot);
+        return paths == null || index < 0 ? null : paths.get(index);
+    }
+
+    /** @return The sum of the costs of the solution, in ticks, or -1 if none was found. */
+    public long getSumOfCosts() { return sumOfCosts; }
+
+    /** @return The sum of the costs of the robots planned on their own, ignoring each other, in ticks. */
+    public long getIndependentSumOfCosts() { return independentSumOfCosts; }
+
+    /** @return The number of constraint tree nodes expanded. */
+    public long getExpandedNodes() { return expandedNodes; }
+
+    /** @return The number of constraint tree nodes generated. */
+    public long getGeneratedNodes() { return generatedNodes; }
+
+    /** @return The number of nodes expanded by the searches of the robot paths. */
+    public long getLowLevelExpansions() { return lowLevelExpansions; }
+
+    /** @return The number of threads that searched the constraint tree. */
+    public int getThreads() { return threads; }
+
+    /** @return The duration of the search, in nanoseconds. */
+    public long getSolveNanos() { return solveNanos; }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "FleetPlan{robots=" + robots.size() + ", solved=" + isSolved() + ", optimal=" + optimal
+               + ", sumOfCosts=" + sumOfCosts + ", independentSumOfCosts=" + independentSumOfCosts
+               + ", expandedNodes=" + expandedNodes + ", threads=" + threads + ", solveMillis=" + solveNanos / 1000000 + "}";
+    }
+}
@@ -0,0 +1,287 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import fr.tp.inf112.projects.robotsim.model.impl.ChargingStationPartition;
+
+/**
+ * Thread-safe cache of the navigation structures of a {@link Factory}, keyed by robot footprint.
+ *
+ * <p>
+ * Each structure is identified by its type and the footprint (width, height) it is built for, and
+ * is built at most once: concurrent requests for the same key wait for the first build instead of
+ * starting their own. The {@link NavigationGrid} of a footprint is shared by every path finder kind
+ * working on the grid, while kind-specific structures (e.g. precomputed tables) are cached under
+ * their own type.
+ * </p>
+ *
+ * <p>
+ * The grids are refreshed in place when the layout changes. The searches running off the
+ * simulation thread hold the {@link #getSearchLock() search lock} meanwhile, so that a refresh
+ * waits for them to end and they never see a grid half refreshed.
+ * </p>
+ *
+ * @author team-24
+ */
+public class NavigationCache {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(NavigationCache.class.getName());
+
+    private final Factory factory;
+    private final Map<Key, Object> structures;
+    /** Builds in progress, run by the first thread requesting their structure and awaited by the others. */
+    private final Map<Key, FutureTask<Object>> pending;
+    /** Structures built or updated off the calling threads, see {@link #runInBackground(Class, int, int, Runnable)}. */
+    private final Set<Key> background;
+    private final AtomicInteger builds;
+    private final ReadWriteLock lock;
+
+    /**
+     * Key of a cached structure: its type and the robot footprint.
+     */
+    private static final class Key {
+        private final Class<?> type;
+        private final int robotWidth;
+        private final int robotHeight;
+
+        Key(Class<?> type, int robotWidth, int robotHeight) {
+            this.type = type;
+            this.robotWidth = robotWidth;
+            this.robotHeight = robotHeight;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return type == other.type && robotWidth == other.robotWidth && robotHeight == other.robotHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + robotWidth) * 31 + robotHeight;
+        }
+    }
+
+    /**
+     * Constructs an empty cache for a factory.
+     *
+     * @param factory The factory whose navigation structures are cached.
+     */
+    public NavigationCache(Factory factory) {
+        this.factory = factory;
+        this.structures = new ConcurrentHashMap<>();
+        this.pending = new ConcurrentHashMap<>();
+        this.background = ConcurrentHashMap.newKeySet();
+        this.builds = new AtomicInteger();
+        this.lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Gets the factory whose navigation structures are cached.
+     *
+     * @return The factory.
+     */
+    public Factory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Gets the lock a search running off the simulation thread holds while it reads the cached
+     * structures. It is shared between the searches, and excludes the refresh of the structures.
+     *
+     * @return The search lock.
+     */
+    public Lock getSearchLock() {
+        return lock.readLock();
+    }
+
+    /**
+     * Gets a cached structure, building it if needed.
+     *
+     * @param <T> The type of the structure.
+     * @param type The type of the structure, part of the cache key.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @param builder Builds the structure if it is not cached yet; called at most once per key at a time,
+     *                outside of any lock, so that it may get other structures of the cache.
+     * @return The cached structure.
+     */
+    public <T> T get(Class<T> type, int robotWidth, int robotHeight, Supplier<? extends T> builder) {
+        Key key = new Key(type, robotWidth, robotHeight);
+        Object structure = structures.get(key);
+        if (structure != null) return type.cast(structure);
+        // the build runs outside of the maps, so that a builder may get other structures of the cache
+        FutureTask<Object> build = pending.computeIfAbsent(key, k -> new FutureTask<>(() -> {
+            builds.incrementAndGet();
+            return builder.get();
+        }));
+        build.run();
+        try {
+            structure = structures.putIfAbsent(key, await(build));
+            return type.cast(structure != null ? structure : await(build));
+        } finally {
+            pending.remove(key, build);
+        }
+    }
+
+    /**
+     * Gets a cached structure if it is built. Otherwise starts building it in the background,
+     * holding the search lock, and returns null meanwhile: for a caller that would rather go on
+     * without the structure than wait for a heavy build, as a tick under an expansion budget.
+     *
+     * @param <T> The type of the structure.
+     * @param type The type of the structure, part of the cache key.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @param builder Builds the structure if it is not cached yet, as for {@link #get(Class, int, int, Supplier)}.
+     * @return The cached structure, or null if it is not built yet.
+     */
+    public <T> T getIfBuilt(Class<T> type, int robotWidth, int robotHeight, Supplier<? extends T> builder) {
+        Object structure = structures.get(new Key(type, robotWidth, robotHeight));
+        if (structure != null) return type.cast(structure);
+        runInBackground(type, robotWidth, robotHeight, () -> get(type, robotWidth, robotHeight, builder));
+        return null;
+    }
+
+    /**
+     * Runs the build or update of a cached structure in the background, holding the search lock,
+     * unless one is already running for the same structure: for a structure out of date that a
+     * tick under an expansion budget goes on without meanwhile.
+     *
+     * @param type The type of the structure, part of the cache key.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @param task The build or update of the structure.
+     */
+    public void runInBackground(Class<?> type, int robotWidth, int robotHeight, Runnable task) {
+        Key key = new Key(type, robotWidth, robotHeight);
+        if (!background.add(key)) return;
+        CompletableFuture.runAsync(() -> {
+            Lock searchLock = getSearchLock();
+            searchLock.lock();
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                LOGGER.warning("Background update of " + type.getSimpleName() + " failed: " + ex);
+            } finally {
+                searchLock.unlock();
+                background.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Waits for a build to complete, rethrowing its failure.
+     */
+    private static Object await(FutureTask<Object> build) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return build.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                } catch (ExecutionException ex) {
+                    if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+                    if (ex.getCause() instanceof Error) throw (Error) ex.getCause();
+                    throw new IllegalStateException(ex.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the navigation grid of the factory for a robot footprint, building it if needed.
+     *
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The shared navigation grid.
+     */
+    public NavigationGrid getGrid(int robotWidth, int robotHeight) {
+        return get(NavigationGrid.class, robotWidth, robotHeight,
+                   () -> NavigationGrid.build(factory, robotWidth, robotHeight));
+    }
+
+    /**
+     * Builds in advance the structures needed by the path finders of the given robots, and the
+     * partitions their nearest charging stations are looked up in.
+     *
+     * @param robots The robots about to navigate.
+     */
+    public void prepare(Collection<Robot> robots) {
+        int before = builds.get();
+        for (Robot robot : robots) {
+            if (robot.hasPathFinder()) {
+                robot.getPathFinderKind().prepare(this, robot.getWidth(), robot.getHeight());
+                ChargingStationPartition.get(this, robot.getWidth(), robot.getHeight());
+            }
+        }
+        LOGGER.info("Navigation cache prepared for " + robots.size() + " robots with " + (builds.get() - before) + " new builds.");
+    }
+
+    /**
+     * Updates the cached structures after the layout changed within the given area.
+     * Navigation grids are refreshed in place around the area and path caches are emptied;
+     * other structures are discarded and will be rebuilt on next use. Waits for the searches
+     * holding the search lock to end.
+     *
+     * @param left Left bound of the changed area.
+     * @param top Top bound of the changed area.
+     * @param right Right bound of the changed area.
+     * @param bottom Bottom bound of the changed area.
+     */
+    void refresh(int left, int top, int right, int bottom) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<Key, Object> entry : structures.entrySet()) {
+                if (entry.getValue() instanceof NavigationGrid) {
+                    ((NavigationGrid) entry.getValue()).refresh(factory, left, top, right, bottom);
+                } else if (entry.getValue() instanceof PathCache) {
+                    ((PathCache) entry.getValue()).invalidate();
+                } else {
+                    structures.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Discards every cached structure; they will be rebuilt on next use.
+     */
+    public void clear() {
+        structures.clear();
+    }
+
+    /**
+     * Returns the number of cached structures.
+     *
+     * @return The number of structures.
+     */
+    public int size() {
+        return structures.size();
+    }
+
+    /**
+     * Returns the number of structures built since the cache was created.
+     *
+     * @return The number of builds.
+     */
+    public int getBuildCount() {
+        return builds.get();
+    }
+}
@@ -0,0 +1,547 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Compact navigation grid of a {@link Factory} for a given robot footprint.
+ *
+ * <p>
+ * Every pixel of the factory is a cell identified by {@code y * width + x}, coordinates being
+ * relative to the factory anchor. A cell is walkable if a robot of the footprint centered on it
+ * does not hit any obstacle. Walkability is packed in a bitset (one bit per cell) and the
+ * 8-neighbour edges are implicit: their weights ({@value #STRAIGHT_WEIGHT} for straight moves,
+ * {@value #DIAGONAL_WEIGHT} for diagonal ones) are computed on the fly, so that no vertex or edge
+ * object is ever allocated.
+ * </p>
+ *
+ * <p>
+ * As in the former JGraphT graph, a move between two neighbour cells is allowed as soon as one of
+ * them is walkable, so that a robot standing on a blocked cell can still leave it.
+ * </p>
+ *
+ * <p>
+ * Each row of the bitset starts on a fresh {@code long} word, so that two rows never share a word
+ * and rows can be computed concurrently without any synchronization.
+ * </p>
+ *
+ * @author team-24
+ */
+public class NavigationGrid {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(NavigationGrid.class.getName());
+
+    /** Weight of a straight (up, down, left, right) move. */
+    public static final int STRAIGHT_WEIGHT = 100;
+    /** Weight of a diagonal move. */
+    public static final int DIAGONAL_WEIGHT = 141;
+    /** Number of neighbours of a cell. */
+    public static final int DIRECTIONS = 8;
+
+    // Directions: up, down, left, right, top-left, bottom-left, top-right, bottom-right
+    private static final int[] DX = {0, 0, -1, 1, -1, -1, 1, 1};
+    private static final int[] DY = {-1, 1, 0, 0, -1, 1, -1, 1};
+
+    private final int originX;
+    private final int originY;
+    private final int width;
+    private final int height;
+    private final int robotWidth;
+    private final int robotHeight;
+    private final int rowWords;
+    private final long[] walkable;
+
+    /**
+     * Constructs a grid in which no cell is walkable.
+     *
+     * @param originX X-coordinate of the top-left cell.
+     * @param originY Y-coordinate of the top-left cell.
+     * @param width Number of columns.
+     * @param height Number of rows.
+     * @param robotWidth Width of the robot footprint the grid is built for.
+     * @param robotHeight Height of the robot footprint the grid is built for.
+     */
+    public NavigationGrid(int originX, int originY, int width, int height, int robotWidth, int robotHeight) {
+        this.originX = originX;
+        this.originY = originY;
+        this.width = Math.max(0, width);
+        this.height = Math.max(0, height);
+        this.robotWidth = robotWidth;
+        this.robotHeight = robotHeight;
+        this.rowWords = (this.width + 63) >>> 6;
+        this.walkable = new long[rowWords * this.height];
+    }
+
+    /**
+     * Builds the navigation grid of a factory for a robot footprint from its configuration space.
+     *
+     * @param factory The factory to build the grid from.
+     * @param robotWidth The width of the robot.
+     * @param robotHeight The height of the robot.
+     * @return The constructed grid.
+     * @see #inflate(Factory, int, int)
+     */
+    public static NavigationGrid build(Factory factory, int robotWidth, int robotHeight) {
+        return inflate(factory, robotWidth, robotHeight);
+    }
+
+    /**
+     * Builds the navigation grid of a factory for a robot footprint by inflating its obstacles.
+     * <p>
+     * Every cell starts walkable, then each component blocks the cells where a robot of the
+     * footprint centered on them would hit it (its Minkowski sum with the footprint, see
+     * {@link Component#markObstacleCells(NavigationGrid)}). The cost depends on the area of the
+     * inflated obstacles instead of the number of cells times the number of components.
+     * </p>
+     *
+     * @param factory The factory to build the grid from.
+     * @param robotWidth The width of the robot.
+     * @param robotHeight The height of the robot.
+     * @return The constructed grid, identical to the one of {@link #sample(Factory, int, int, boolean)}.
+     */
+    public static NavigationGrid inflate(Factory factory, int robotWidth, int robotHeight) {
+        LOGGER.info("Inflating navigation grid for a " + robotWidth + "x" + robotHeight + " robot...");
+        NavigationGrid grid = new NavigationGrid(factory.getxCoordinate(), factory.getyCoordinate(),
+                                                 factory.getWidth(), factory.getHeight(),
+                                                 robotWidth, robotHeight);
+        grid.fill();
+        for (Component component : factory.getComponents()) {
+            component.markObstacleCells(grid);
+        }
+        LOGGER.info("Navigation grid built with " + grid.countWalkable() + " walkable cells out of " + grid.getCellCount() + ".");
+        return grid;
+    }
+
+    /**
+     * Builds the navigation grid of a factory for a robot footprint, testing each cell once
+     * against the factory obstacles.
+     * <p>
+     * In parallel mode, the rows are split into bands evaluated by the common fork-join pool
+     * (or by the pool of the calling task), each band writing its own words of the bitset.
+     * </p>
+     *
+     * @param factory The factory to build the grid from.
+     * @param robotWidth The width of the robot.
+     * @param robotHeight The height of the robot.
+     * @param parallel Whether to compute the rows in parallel.
+     * @return The constructed grid.
+     */
+    public static NavigationGrid sample(Factory factory, int robotWidth, int robotHeight, boolean parallel) {
+        LOGGER.info("Sampling navigation grid" + (parallel ? " in parallel..." : "..."));
+        NavigationGrid grid = new NavigationGrid(factory.getxCoordinate(), factory.getyCoordinate(),
+                                                 factory.getWidth(), factory.getHeight(),
+                                                 robotWidth, robotHeight);
+        IntStream rows = IntStream.range(0, grid.height);
+        if (parallel) rows = rows.parallel();
+        rows.forEach(row -> grid.sampleRow(factory, row));
+        LOGGER.info("Navigation grid built with " + grid.countWalkable() + " walkable cells out of " + grid.getCellCount() + ".");
+        return grid;
+    }
+
+    /**
+     * Computes the walkability of every cell of a row by querying the factory obstacles.
+     *
+     * @param factory The factory to query.
+     * @param row The row to compute, relative to the grid origin.
+     */
+    void sampleRow(Factory factory, int row) {
+        int y = originY + row;
+        int base = row * rowWords;
+        for (int word = 0; word < rowWords; word++) {
+            long bits = 0L;
+            int firstColumn = word << 6;
+            int lastColumn = Math.min(width, firstColumn + 64);
+            for (int column = firstColumn; column < lastColumn; column++) {
+                if (!factory.isObstacle(originX + column, y, robotWidth, robotHeight)) {
+                    bits |= 1L << (column - firstColumn);
+                }
+            }
+            walkable[base + word] = bits;
+        }
+    }
+
+    /** @return X-coordinate of the top-left cell. */
+    public int getOriginX() { return originX; }
+
+    /** @return Y-coordinate of the top-left cell. */
+    public int getOriginY() { return originY; }
+
+    /** @return Number of columns of the grid. */
+    public int getWidth() { return width; }
+
+    /** @return Number of rows of the grid. */
+    public int getHeight() { return height; }
+
+    /** @return Width of the robot footprint the grid is built for. */
+    public int getRobotWidth() { return robotWidth; }
+
+    /** @return Height of the robot footprint the grid is built for. */
+    public int getRobotHeight() { return robotHeight; }
+
+    /** @return Number of cells of the grid. */
+    public int getCellCount() { return width * height; }
+
+    /**
+     * Tells if the given coordinates lie inside the grid.
+     *
+     * @param x X-coordinate in the factory.
+     * @param y Y-coordinate in the factory.
+     * @return {@code true} if the coordinates belong to a cell of the grid.
+     */
+    public boolean contains(int x, int y) {
+        int column = x - originX;
+        int row = y - originY;
+        return column >= 0 && column < width && row >= 0 && row < height;
+    }
+
+    /**
+     * Gets the identifier of the cell at the given factory coordinates.
+     *
+     * @param x X-coordinate in the factory.
+     * @param y Y-coordinate in the factory.
+     * @return The cell identifier, or -1 if the coordinates are outside the grid.
+     */
+    public int cellId(int x, int y) {
+        if (!contains(x, y)) return -1;
+        return (y - originY) * width + (x - originX);
+    }
+
+    /**
+     * Gets the factory X-coordinate of a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The X-coordinate of the cell.
+     */
+    public int getX(int cell) { return originX + cell % width; }
+
+    /**
+     * Gets the factory Y-coordinate of a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The Y-coordinate of the cell.
+     */
+    public int getY(int cell) { return originY + cell / width; }
+
+    /**
+     * Tells if a cell is walkable for the robot footprint.
+     *
+     * @param cell The cell identifier.
+     * @return {@code true} if the cell is walkable.
+     */
+    public boolean isWalkable(int cell) {
+        int row = cell / width;
+        int column = cell - row * width;
+        return (walkable[row * rowWords + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Tells if the cell at the given factory coordinates is walkable for the robot footprint.
+     *
+     * @param x X-coordinate in the factory.
+     * @param y Y-coordinate in the factory.
+     * @return {@code true} if the coordinates are inside the grid and walkable.
+     */
+    public boolean isWalkable(int x, int y) {
+        if (!contains(x, y)) return false;
+        int column = x - originX;
+        return (walkable[(y - originY) * rowWords + (column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Sets the walkability of the cell at the given factory coordinates.
+     * Coordinates outside the grid are ignored.
+     *
+     * @param x X-coordinate in the factory.
+     * @param y Y-coordinate in the factory.
+     * @param value The new walkability of the cell.
+     */
+    void setWalkable(int x, int y, boolean value) {
+        if (!contains(x, y)) return;
+        int column = x - originX;
+        int index = (y - originY) * rowWords + (column >>> 6);
+        if (value) {
+            walkable[index] |= 1L << column;
+        } else {
+            walkable[index] &= ~(1L << column);
+        }
+    }
+
+    /**
+     * Makes every cell of the grid walkable.
+     */
+    void fill() {
+        long last = (width & 63) == 0 ? -1L : (1L << width) - 1;
+        for (int row = 0; row < height; row++) {
+            int base = row * rowWords;
+            for (int word = 0; word < rowWords; word++) {
+                walkable[base + word] = word == rowWords - 1 ? last : -1L;
+            }
+        }
+    }
+
+    /**
+     * Blocks every cell of a rectangle given by its factory bounds, all inclusive.
+     * The part of the rectangle outside the grid is ignored.
+     *
+     * @param left X-coordinate of the leftmost column.
+     * @param top Y-coordinate of the topmost row.
+     * @param right X-coordinate of the rightmost column.
+     * @param bottom Y-coordinate of the bottommost row.
+     */
+    void block(int left, int top, int right, int bottom) {
+        setWalkable(left, top, right, bottom, false);
+    }
+
+    /**
+     * Sets the walkability of every cell of a rectangle given by its factory bounds, all inclusive.
+     * The part of the rectangle outside the grid is ignored.
+     *
+     * @param left X-coordinate of the leftmost column.
+     * @param top Y-coordinate of the topmost row.
+     * @param right X-coordinate of the rightmost column.
+     * @param bottom Y-coordinate of the bottommost row.
+     * @param value The new walkability of the cells.
+     */
+    private void setWalkable(int left, int top, int right, int bottom, boolean value) {
+        int firstColumn = Math.max(0, left - originX);
+        int lastColumn = Math.min(width - 1, right - originX);
+        int firstRow = Math.max(0, top - originY);
+        int lastRow = Math.min(height - 1, bottom - originY);
+        if (firstColumn > lastColumn || firstRow > lastRow) return;
+
+        int firstWord = firstColumn >>> 6;
+        int lastWord = lastColumn >>> 6;
+        for (int row = firstRow; row <= lastRow; row++) {
+            int base = row * rowWords;
+            for (int word = firstWord; word <= lastWord; word++) {
+                long mask = -1L;
+                if (word == firstWord) mask &= -1L << firstColumn;
+                if (word == lastWord) mask &= -1L >>> (63 - (lastColumn & 63));
+                if (value) {
+                    walkable[base + word] |= mask;
+                } else {
+                    walkable[base + word] &= ~mask;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recomputes the cells whose walkability may depend on something within the given area,
+     * i.e. the area grown by half the robot footprint. The cells are made walkable again, then
+     * the components near them block their inflated obstacles once more; outside the area those
+     * cells were already blocked, so the rest of the grid is left unchanged.
+     * <p>
+     * The grid must not be searched while it is refreshed.
+     * </p>
+     *
+     * @param factory The factory the grid was built from, already updated.
+     * @param left Left bound of the changed area.
+     * @param top Top bound of the changed area.
+     * @param right Right bound of the changed area.
+     * @param bottom Bottom bound of the changed area.
+     */
+    void refresh(Factory factory, int left, int top, int right, int bottom) {
+        int halfWidth = robotWidth / 2;
+        int halfHeight = robotHeight / 2;
+        left -= halfWidth;
+        top -= halfHeight;
+        right += halfWidth;
+        bottom += halfHeight;
+        setWalkable(left, top, right, bottom, true);
+        for (Component component : factory.getComponentsNear(left - halfWidth, top - halfHeight,
+                                                              right + halfWidth, bottom + halfHeight)) {
+            component.markObstacleCells(this);
+        }
+    }
+
+    /**
+     * Counts the walkable cells of the grid.
+     *
+     * @return The number of walkable cells.
+     */
+    public int countWalkable() {
+        int count = 0;
+        for (long word : walkable) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the X offset of a direction.
+     *
+     * @param direction A direction in {@code [0, DIRECTIONS)}.
+     * @return The X offset of the direction.
+     */
+    public static int getDirectionX(int direction) { return DX[direction]; }
+
+    /**
+     * Gets the Y offset of a direction.
+     *
+     * @param direction A direction in {@code [0, DIRECTIONS)}.
+     * @return The Y offset of the direction.
+     */
+    public static int getDirectionY(int direction) { return DY[direction]; }
+
+    /**
+     * Gets the weight of a move in a direction.
+     *
+     * @param direction A direction in {@code [0, DIRECTIONS)}.
+     * @return {@value #STRAIGHT_WEIGHT} for straight moves, {@value #DIAGONAL_WEIGHT} for diagonal ones.
+     */
+    public static int getWeight(int direction) {
+        return direction < 4 ? STRAIGHT_WEIGHT : DIAGONAL_WEIGHT;
+    }
+
+    /**
+     * Gets the neighbour reached by moving from a cell in a direction, if the move is allowed.
+     *
+     * @param cell The cell identifier.
+     * @param direction A direction in {@code [0, DIRECTIONS)}.
+     * @return The identifier of the neighbour, or -1 if it is outside the grid or the move is not allowed.
+     */
+    public int move(int cell, int direction) {
+        int row = cell / width;
+        int column = cell - row * width + DX[direction];
+        row += DY[direction];
+        if (column < 0 || column >= width || row < 0 || row >= height) return -1;
+        int neighbour = row * width + column;
+        return isWalkable(neighbour) || isWalkable(cell) ? neighbour : -1;
+    }
+
+    /**
+     * Octile distance between two cells, an admissible and consistent estimate of the shortest
+     * path weight.
+     *
+     * @param from The first cell identifier.
+     * @param to The second cell identifier.
+     * @return The octile distance, in move weight units.
+     */
+    public int estimate(int from, int to) {
+        int dx = Math.abs(from % width - to % width);
+        int dy = Math.abs(from / width - to / width);
+        return STRAIGHT_WEIGHT * Math.max(dx, dy) + (DIAGONAL_WEIGHT - STRAIGHT_WEIGHT) * Math.min(dx, dy);
+    }
+
+    /**
+     * Converts a sequence of cells into the corresponding list of positions.
+     *
+     * @param cells The cell identifiers, in order.
+     * @return The list of {@link Position}s.
+     */
+    public List<Position> toPositions(int[] cells) {
+        List<Position> positions = new ArrayList<>(cells.length);
+        for (int cell : cells) {
+            positions.add(new Position(getX(cell), getY(cell)));
+        }
+        return positions;
+    }
+
+    /**
+     * Gets a coordinate of the points of a straight line, which are the cells crossed by a robot
+     * walking it: the line from {@code from} to {@code to} in {@code steps} steps, the longest of its
+     * axes advancing by one at each step and the other one rounded to the nearest integer.
+     *
+     * @param from The coordinate at the start of the line.
+     * @param to The coordinate at the end of the line.
+     * @param step The index of the point, in {@code [0, steps]}.
+     * @param steps The number of steps of the line, the largest of its extents along both axes.
+     * @return The coordinate of the point.
+     */
+    public static int interpolate(int from, int to, int step, int steps) {
+        if (steps == 0) return from;
+        return from + Math.floorDiv(2 * (to - from) * step + steps, 2 * steps);
+    }
+
+    /**
+     * Tells if the straight line between two cells can be walked, i.e. if the cells strictly
+     * between them on the line are all walkable. The line is then a sequence of allowed moves
+     * of the same cost as a shortest path between its ends.
+     *
+     * @param from The first cell identifier.
+     * @param to The second cell identifier.
+     * @return true if the line can be walked.
+     */
+    public boolean isVisible(int from, int to) {
+        int fromColumn = from % width, fromRow = from / width;
+        int toColumn = to % width, toRow = to / width;
+        int steps = Math.max(Math.abs(toColumn - fromColumn), Math.abs(toRow - fromRow));
+        for (int step = 1; step < steps; step++) {
+            int column = interpolate(fromColumn, toColumn, step, steps);
+            int row = interpolate(fromRow, toRow, step, steps);
+            if (!isWalkable(row * width + column)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compresses a sequence of neighbouring cells into the waypoints of an equivalent path made
+     * of straight lines (string pulling): from each waypoint, the next one is the farthest turn
+     * of the sequence still {@link #isVisible(int, int) visible} from it. The path keeps the cost
+     * of the sequence, in move weight units, and the robot walks the lines in place of the cells.
+     *
+     * @param cells The cell identifiers, in order.
+     * @return The coordinates of the waypoints, as {x0, y0, x1, y1, ...}, first and last cells included.
+     */
+    public int[] toWaypoints(int[] cells) {
+        int[] waypoints = new int[2 * Math.min(cells.length, 16)];
+        int count = 0;
+        int anchor = 0;
+        int last = 0;
+        waypoints[count++] = getX(cells[0]);
+        waypoints[count++] = getY(cells[0]);
+        for (int i = 1; i < cells.length; i++) {
+            // only the turns are candidates, the cells between two turns being on a straight line
+            if (i < cells.length - 1 && cells[i] - cells[i - 1] == cells[i + 1] - cells[i]) continue;
+            if (last != anchor && !isVisible(cells[anchor], cells[i])) {
+                if (count == waypoints.length) waypoints = Arrays.copyOf(waypoints, 2 * count);
+                waypoints[count++] = getX(cells[last]);
+                waypoints[count++] = getY(cells[last]);
+                anchor = last;
+            }
+            last = i;
+        }
+        if (last != 0) {
+            if (count == waypoints.length) waypoints = Arrays.copyOf(waypoints, count + 2);
+            waypoints[count++] = getX(cells[last]);
+            waypoints[count++] = getY(cells[last]);
+        }
+        return count == waypoints.length ? waypoints : Arrays.copyOf(waypoints, count);
+    }
+
+    /**
+     * Tells if another grid has the same bounds, footprint and walkable cells.
+     *
+     * @param obj The object to compare with.
+     * @return {@code true} if both grids are identical.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof NavigationGrid)) return false;
+        NavigationGrid other = (NavigationGrid) obj;
+        return originX == other.originX && originY == other.originY
+            && width == other.width && height == other.height
+            && robotWidth == other.robotWidth && robotHeight == other.robotHeight
+            && Arrays.equals(walkable, other.walkable);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Objects.hash(originX, originY, width, height, robotWidth, robotHeight) * 31 + Arrays.hashCode(walkable);
+    }
+
+    /**
+     * Returns a string representation of the grid.
+     *
+     * @return String representation of the grid.
+     */
+    @Override
+    public String toString() {
+        return "NavigationGrid{" + width + "x" + height + ", robot=" + robotWidth + "x" + robotHeight + "}";
+    }
+}
@@ -1,44 +1,113 @@
 package fr.tp.inf112.projects.robotsim.model;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Objects;
 
 /**
- * Represents a path consisting of a sequence of positions, with a target to reach.
- * The path allows navigation between positions with the ability to move forward and backward.
+ * Represents a path consisting of a sequence of waypoints joined by straight lines, with a target to reach.
+ * The path allows navigation between waypoints with the ability to move forward and backward, and
+ * walking along the lines between them.
+ *
+ * <p>
+ * Waypoints are stored as {x0, y0, x1, y1, ...} in a primitive array, which may be shared with the
+ * {@link PathCache} and is never modified. The line between two waypoints is walked through the
+ * points given by {@link NavigationGrid#interpolate(int, int, int, int)}, one step of the longest
+ * axis at a time; the progress along the current line is kept as a number of steps.
+ * </p>
  *
  * @author team-24
  */
 public class Path {
-    private final List<Position> path;
+    private int[] waypoints;
+    private int size;
     private final Visitable target;
     private int currentIndex;
+    /** Steps walked from the current waypoint towards the next one. */
+    private int currentStep;
+    private volatile boolean valid;
 
     /**
      * Constructs a new Path.
-     * 
-     * @param path A list of positions representing the path.
+     *
+     * @param waypoints The coordinates of the waypoints, as {x0, y0, x1, y1, ...}, or null if there
+     *                  is no path. The array is not copied and must not be modified afterwards.
      * @param target The visitable target the path is leading to.
      */
-    public Path(List<Position> path, Visitable target) {
-        this.path = path;
+    public Path(int[] waypoints, Visitable target) {
+        this.waypoints = waypoints;
+        this.size = waypoints == null ? 0 : waypoints.length / 2;
         this.target = target;
         this.currentIndex = 0;
+        this.valid = true;
     }
 
     /**
-     * Gets the list of positions in the path.
-     * 
-     * @return A list of positions representing the path.
+     * Constructs a new Path.
+     *
+     * @param path A list of positions representing the waypoints of the path, or null if there is no path.
+     * @param target The visitable target the path is leading to.
+     */
+    public Path(List<Position> path, Visitable target) {
+        this(toArray(path), target);
+    }
+
+    private static int[] toArray(List<Position> positions) {
+        if (positions == null) return null;
+        int[] waypoints = new int[2 * positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            waypoints[2 * i] = positions.get(i).getxCoordinate();
+            waypoints[2 * i + 1] = positions.get(i).getyCoordinate();
+        }
+        return waypoints;
+    }
+
+    /**
+     * Gets the list of waypoints of the path.
+     *
+     * @return A new unmodifiable list of positions representing the waypoints, or null if there is no path.
      */
     public List<Position> getPath() {
-        return path;
+        if (isNull()) return null;
+        List<Position> positions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            positions.add(new Position(getX(i), getY(i)));
+        }
+        return Collections.unmodifiableList(positions);
+    }
+
+    /**
+     * Gets the number of waypoints of the path.
+     *
+     * @return The number of waypoints, 0 if there is no path.
+     */
+    public int getWaypointCount() {
+        return size;
+    }
+
+    /**
+     * Gets the X-coordinate of a waypoint.
+     *
+     * @param index The index of the waypoint.
+     * @return The X-coordinate of the waypoint.
+     */
+    public int getX(int index) {
+        return waypoints[2 * index];
+    }
+
+    /**
+     * Gets the Y-coordinate of a waypoint.
+     *
+     * @param index The index of the waypoint.
+     * @return The Y-coordinate of the waypoint.
+     */
+    public int getY(int index) {
+        return waypoints[2 * index + 1];
     }
 
     /**
      * Gets the target that the path is leading to.
-     * 
+     *
      * @return The visitable target.
      */
     public Visitable getTarget() {
@@ -46,8 +115,8 @@ public class Path {
     }
 
     /**
-     * Gets the current index in the path.
-     * 
+     * Gets the index of the last waypoint reached.
+     *
      * @return The current index of the path.
      */
     public int getCurrentIndex() {
@@ -55,77 +124,230 @@ public class Path {
     }
 
     /**
-     * Sets the current index in the path.
-     * 
+     * Sets the current index in the path, at the waypoint itself.
+     *
      * @param currentIndex The new current index of the path.
      */
     public void setCurrentIndex(int currentIndex) {
         this.currentIndex = currentIndex;
+        this.currentStep = 0;
+    }
+
+    /**
+     * Gets the number of steps walked from the last waypoint reached towards the next one.
+     *
+     * @return The current step along the current line.
+     */
+    public int getCurrentStep() {
+        return currentStep;
+    }
+
+    /**
+     * Puts the current position back along the path, e.g. when the robot could not take the steps
+     * it just walked.
+     *
+     * @param index The index of the last waypoint reached.
+     * @param step The number of steps walked from it towards the next one.
+     */
+    public void rewind(int index, int step) {
+        this.currentIndex = index;
+        this.currentStep = step;
+    }
+
+    /**
+     * Gets the number of steps of the line from a waypoint to the next one.
+     */
+    private int steps(int index) {
+        return Math.max(Math.abs(getX(index + 1) - getX(index)), Math.abs(getY(index + 1) - getY(index)));
+    }
+
+    /**
+     * Gets the X-coordinate of the current position, along the line from the last waypoint reached.
+     *
+     * @return The current X-coordinate.
+     */
+    public int getCurrentX() {
+        if (currentStep == 0) return getX(currentIndex);
+        return NavigationGrid.interpolate(getX(currentIndex), getX(currentIndex + 1), currentStep, steps(currentIndex));
     }
 
     /**
-     * Gets the current position in the path based on the current index.
-     * 
+     * Gets the Y-coordinate of the current position, along the line from the last waypoint reached.
+     *
+     * @return The current Y-coordinate.
+     */
+    public int getCurrentY() {
+        if (currentStep == 0) return getY(currentIndex);
+        return NavigationGrid.interpolate(getY(currentIndex), getY(currentIndex + 1), currentStep, steps(currentIndex));
+    }
+
+    /**
+     * Gets the current position in the path.
+     *
      * @return The current position.
      */
     public Position getCurrentPosition() {
-        return path.get(currentIndex);
+        return new Position(getCurrentX(), getCurrentY());
     }
 
     /**
-     * Checks if there is a next position in the path.
-     * 
-     * @return true if there is a next position, false otherwise.
+     * Checks if there is a next waypoint in the path.
+     *
+     * @return true if there is a next waypoint, false otherwise.
      */
     public boolean hasNext() {
         if (isNull()) return false;
-        return currentIndex < path.size() - 1;
+        return currentIndex < size - 1 || (refine() && currentIndex < size - 1);
     }
 
     /**
-     * Checks if the Path is null (meaning attribute {@code path} is null)
-     * 
+     * Hook for lazily computed paths, called when the last known waypoint is reached.
+     * Implementations {@link #append(int, int) append} the next waypoints.
+     *
+     * @return true if waypoints were appended, false if the path is complete.
+     */
+    protected boolean refine() {
+        return false;
+    }
+
+    /**
+     * Appends a waypoint to the path, for lazily computed paths.
+     *
+     * @param x X-coordinate of the waypoint.
+     * @param y Y-coordinate of the waypoint.
+     */
+    protected void append(int x, int y) {
+        // the first append copies the array, which may be shared
+        if (2 * size == waypoints.length) {
+            int[] grown = new int[Math.max(4, 4 * size)];
+            System.arraycopy(waypoints, 0, grown, 0, 2 * size);
+            waypoints = grown;
+        }
+        waypoints[2 * size] = x;
+        waypoints[2 * size + 1] = y;
+        size++;
+    }
+
+    /**
+     * Checks if the Path is null (meaning it has no waypoints array)
+     *
      * @return true if path is null, false otherwise.
      */
     public boolean isNull() {
-        return path == null;
+        return waypoints == null;
     }
 
     /**
-     * Gets the next position in the path based on the current index.
-     * 
-     * @return The next position, or null if it does not exists.
+     * Gets the next waypoint in the path based on the current index.
+     *
+     * @return The next waypoint, or null if it does not exists.
      */
     public Position getNextPosition() {
         if (!hasNext()) return null;
-        return path.get(currentIndex + 1);
+        return new Position(getX(currentIndex + 1), getY(currentIndex + 1));
     }
 
     /**
-     * Checks if there is a previous position in the path.
-     * 
-     * @return true if there is a previous position, false otherwise.
+     * Checks if there is a previous waypoint in the path.
+     *
+     * @return true if there is a previous waypoint, false otherwise.
      */
     public boolean hasPrevious() {
         return currentIndex > 0;
     }
 
     /**
-     * Moves to the next position in the path, if there is one.
+     * Moves to the next waypoint in the path, if there is one.
      */
     public void advance() {
         if (hasNext()) {
             currentIndex++;
+            currentStep = 0;
         }
     }
 
     /**
-     * Moves to the previous position in the path, if there is one.
+     * Moves to the previous waypoint in the path, if there is one.
      */
     public void stepBack() {
         if (hasPrevious()) {
             currentIndex--;
+            currentStep = 0;
+        }
+    }
+
+    /**
+     * Walks along the path, from the current position towards the last waypoint, by whole steps
+     * of the lines between the waypoints. A step covers the length of its line divided by its
+     * number of steps, between 1 and the length of a diagonal.
+     *
+     * @param distance The distance available.
+     * @return The distance walked, at most {@code distance}.
+     */
+    public double walk(double distance) {
+        double walked = 0;
+        while (hasNext()) {
+            int steps = steps(currentIndex);
+            if (steps == 0) {
+                currentIndex++;
+                continue;
+            }
+            double stepLength = Math.hypot(getX(currentIndex + 1) - getX(currentIndex),
+                                           getY(currentIndex + 1) - getY(currentIndex)) / steps;
+            int taken = (int) Math.min(steps - currentStep, Math.floor((distance - walked) / stepLength));
+            walked += taken * stepLength;
+            currentStep += taken;
+            if (currentStep < steps) break;
+            currentIndex++;
+            currentStep = 0;
+        }
+        return walked;
+    }
+
+    /**
+     * Tells if the path is still valid, i.e. the layout did not change along it since it was computed.
+     *
+     * @return true if the path can be followed, false if it must be computed again.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Flags the path for replanning.
+     */
+    public void invalidate() {
+        this.valid = false;
+    }
+
+    /**
+     * Checks if the remaining part of the path, from the current position, goes through an area.
+     * The points of a line are only examined when its bounding box meets the area.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area.
+     * @param bottom Bottom bound of the area.
+     * @return true if a remaining point lies within the area (bounds included), false otherwise.
+     */
+    public boolean crosses(int left, int top, int right, int bottom) {
+        if (isNull()) return false;
+        if (currentIndex == size - 1) {
+            return getX(currentIndex) >= left && getX(currentIndex) <= right
+                && getY(currentIndex) >= top && getY(currentIndex) <= bottom;
+        }
+        for (int i = currentIndex; i < size - 1; i++) {
+            int x0 = getX(i), y0 = getY(i), x1 = getX(i + 1), y1 = getY(i + 1);
+            if (Math.max(x0, x1) < left || Math.min(x0, x1) > right
+                || Math.max(y0, y1) < top || Math.min(y0, y1) > bottom) continue;
+            int steps = steps(i);
+            for (int step = i == currentIndex ? currentStep : 0; step <= steps; step++) {
+                int x = NavigationGrid.interpolate(x0, x1, step, steps);
+                int y = NavigationGrid.interpolate(y0, y1, step, steps);
+                if (x >= left && x <= right && y >= top && y <= bottom) return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -136,9 +358,9 @@ public class Path {
     @Override
     public String toString() {
         return "Path{" +
-               "path=" + (isNull() ? "null" : path) +
+               "path=" + (isNull() ? "null" : getPath()) +
                ", currentIndex=" + currentIndex +
-               ", currentPosition=" + (isNull() || path.isEmpty() ? "N/A" : getCurrentPosition()) +
+               ", currentPosition=" + (isNull() || size == 0 ? "N/A" : getCurrentPosition()) +
                ", target=" + (target != null ? target.getName() : "null") +
                '}';
     }
@@ -0,0 +1,241 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.Arrays;
+
+/**
+ * Bounded cache of the routes computed for a robot footprint, keyed by start and target cells,
+ * with least-recently-used eviction.
+ *
+ * <p>
+ * Robots loop over the same visit list, so they ask for the same routes on every lap. The cache of a
+ * footprint is held by the {@link NavigationCache} of the factory, which invalidates it on any layout
+ * change: a cached route is therefore always one that was computed on the current layout. Routes
+ * are stored as the waypoint arrays shared by the {@link Path} objects built from them, which never
+ * modify them. Unreachable targets are cached too, as empty arrays, so that a blocked robot does not
+ * search again on every step.
+ * </p>
+ *
+ * <p>
+ * The routes are held in primitive arrays: an open-addressing table of the keys, and a list of the
+ * entries from the most to the least recently used, so that a lookup neither boxes its key nor
+ * allocates.
+ * </p>
+ *
+ * @author team-24
+ */
+public class PathCache {
+    /** Default maximum number of routes per footprint. */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final int[] NO_PATH = new int[0];
+
+    private final int capacity;
+    /** Entry of each slot of the table plus one, 0 for a free slot; linear probing. */
+    private final int[] slots;
+    /** Key, route and neighbours in the recency list of each entry. */
+    private final long[] keys;
+    private final int[][] routes;
+    private final int[] newer;
+    private final int[] older;
+    private int size;
+    private int newest = -1;
+    private int oldest = -1;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long generation;
+
+    /**
+     * Constructs an empty path cache.
+     *
+     * @param capacity The maximum number of routes kept.
+     */
+    public PathCache(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.slots = new int[Integer.highestOneBit(this.capacity) * 4];
+        this.keys = new long[this.capacity];
+        this.routes = new int[this.capacity][];
+        this.newer = new int[this.capacity];
+        this.older = new int[this.capacity];
+    }
+
+    /**
+     * Gets the path cache of a footprint from the navigation cache of a factory.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The path cache, created empty if needed.
+     */
+    public static PathCache get(NavigationCache cache, int robotWidth, int robotHeight) {
+        return cache.get(PathCache.class, robotWidth, robotHeight, () -> new PathCache(DEFAULT_CAPACITY));
+    }
+
+    private static long key(int start, int end) {
+        return ((long) start << 32) | (end & 0xffffffffL);
+    }
+
+    private static int hash(long key) {
+        long mixed = key * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @return The slot holding the key, or -1 - the free slot it would be stored in.
+     */
+    private int find(long key) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slots[slot] - 1] == key) return slot;
+        }
+        return -1 - slot;
+    }
+
+    /**
+     * Frees a slot, shifting back the following keys of its probe sequence.
+     */
+    private void free(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; slots[next] != 0; next = (next + 1) & mask) {
+            int home = hash(keys[slots[next] - 1]) & mask;
+            // the key moves to the hole unless its own slot lies between the hole and it
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void unlink(int entry) {
+        if (newer[entry] >= 0) older[newer[entry]] = older[entry];
+        else newest = older[entry];
+        if (older[entry] >= 0) newer[older[entry]] = newer[entry];
+        else oldest = newer[entry];
+    }
+
+    private void link(int entry) {
+        newer[entry] = -1;
+        older[entry] = newest;
+        if (newest >= 0) newer[newest] = entry;
+        else oldest = entry;
+        newest = entry;
+    }
+
+    /**
+     * Looks up a route, counting a hit or a miss.
+     *
+     * @param start The start cell.
+     * @param end The target cell.
+     * @return The waypoints of the route, an empty array if the target is known to be unreachable,
+     *         or null if the route is not cached.
+     */
+    public synchronized int[] get(int start, int end) {
+        int slot = find(key(start, end));
+        if (slot < 0) {
+            misses++;
+            return null;
+        }
+        int entry = slots[slot] - 1;
+        unlink(entry);
+        link(entry);
+        hits++;
+        return routes[entry];
+    }
+
+    /**
+     * Gets the generation of the cache, to be read before computing a route to store.
+     *
+     * @return The number of invalidations so far.
+     */
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Stores a route, unless the cache was invalidated since the given generation: the route
+     * may then have been computed on an outdated layout.
+     *
+     * @param start The start cell.
+     * @param end The target cell.
+     * @param waypoints The waypoints of the route, or null if the target is unreachable.
+     * @param generation The generation read before computing the route.
+     */
+    public synchronized void put(int start, int end, int[] waypoints, long generation) {
+        if (generation != this.generation) return;
+        long key = key(start, end);
+        int slot = find(key);
+        int entry;
+        if (slot >= 0) {
+            entry = slots[slot] - 1;
+            unlink(entry);
+        } else {
+            if (size == capacity) {
+                // the least recently used route makes room
+                entry = oldest;
+                unlink(entry);
+                free(find(keys[entry]));
+                evictions++;
+                slot = find(key);
+            } else {
+                entry = size++;
+            }
+            keys[entry] = key;
+            slots[-1 - slot] = entry + 1;
+        }
+        routes[entry] = waypoints == null ? NO_PATH : waypoints;
+        link(entry);
+    }
+
+    /**
+     * Discards every cached route after a layout change. The statistics are kept.
+     */
+    public synchronized void invalidate() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(routes, null);
+        size = 0;
+        newest = -1;
+        oldest = -1;
+        generation++;
+    }
+
+    /**
+     * Returns the number of cached routes.
+     *
+     * @return The number of routes.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached route.
+     *
+     * @return The number of hits.
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that found no cached route.
+     *
+     * @return The number of misses.
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of routes evicted to respect the capacity.
+     *
+     * @return The number of evictions.
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+}
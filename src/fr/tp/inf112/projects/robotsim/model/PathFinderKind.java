@@ -0,0 +1,94 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AnytimeFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.BidirectionalFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.DijkstraGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.FlowFieldFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.HierarchicalFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.JumpPointSearchFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.PointOfInterestTable;
+import fr.tp.inf112.projects.robotsim.model.impl.RoomDoorGraph;
+
+/**
+ * Kinds of {@link FactoryPathFinder} a {@link Robot} can navigate with.
+ * Every kind takes its navigation structures from the {@link NavigationCache} of the factory.
+ *
+ * @author team-24
+ */
+public enum PathFinderKind {
+    /** A* search over the navigation grid. */
+    ASTAR {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new AStarGraphFactoryPathFinder(robot);
+        }
+    },
+    /** A* search over the navigation grid, suspended when the expansion budget of the tick runs out. */
+    ANYTIME {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new AnytimeFactoryPathFinder(robot);
+        }
+    },
+    /** Dijkstra search over the navigation grid. */
+    DIJKSTRA {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new DijkstraGraphFactoryPathFinder(robot);
+        }
+    },
+    /** A* search over the navigation grid from both ends at once. */
+    BIDIRECTIONAL {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new BidirectionalFactoryPathFinder(robot);
+        }
+    },
+    /** Jump Point Search over the navigation grid. */
+    JPS {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new JumpPointSearchFactoryPathFinder(robot);
+        }
+    },
+    /** Flow fields of the destinations over the navigation grid, shared by the robots. */
+    FLOW_FIELD {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new FlowFieldFactoryPathFinder(robot);
+        }
+    },
+    /** Hierarchical search over the rooms and doors, then the navigation grid. */
+    HIERARCHICAL {
+        @Override
+        public FactoryPathFinder create(Robot robot) {
+            return new HierarchicalFactoryPathFinder(robot);
+        }
+
+        @Override
+        public void prepare(NavigationCache cache, int robotWidth, int robotHeight) {
+            RoomDoorGraph.get(cache, robotWidth, robotHeight);
+        }
+    };
+
+    /**
+     * Creates a path finder of this kind for a robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @return The new path finder.
+     */
+    public abstract FactoryPathFinder create(Robot robot);
+
+    /**
+     * Builds in advance the cached structures a path finder of this kind needs for a footprint.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     */
+    public void prepare(NavigationCache cache, int robotWidth, int robotHeight) {
+        cache.getGrid(robotWidth, robotHeight);
+        PointOfInterestTable.get(cache, robotWidth, robotHeight);
+    }
+}
@@ -0,0 +1,105 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Planning service computing the paths of the robots of a factory on a bounded pool of worker
+ * threads, off the simulation tick.
+ *
+ * <p>
+ * A robot needing a path submits a request and waits in place until it completes; the
+ * {@link Factory} hands the completed paths to their robots at the start of a tick, so that a
+ * robot never changes path in the middle of one. A path finished after a layout change is
+ * dropped and requested again. When the queue of pending requests is full, the request is
+ * refused and the robot submits it again on the next tick.
+ * </p>
+ *
+ * @author team-24
+ */
+public class PathPlanner {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(PathPlanner.class.getName());
+
+    /** Default maximum number of pending requests. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Constructs a planning service with one worker per available processor but one, at least one.
+     */
+    public PathPlanner() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a planning service.
+     *
+     * @param workers The number of worker threads.
+     * @param queueCapacity The maximum number of requests waiting for a worker.
+     */
+    public PathPlanner(int workers, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "path-planner-" + count.incrementAndGet());
+            // the workers never keep the application alive
+            thread.setDaemon(true);
+            return thread;
+        });
+        LOGGER.info("Path planner started with " + workers + " workers.");
+    }
+
+    /**
+     * Submits the computation of a path. The search holds the search lock of the navigation cache
+     * the path finder reads, so that the layout is not refreshed under it.
+     *
+     * @param cache The navigation cache of the factory of the robot.
+     * @param pathFinder The path finder of the robot.
+     * @param from The position to start from, read when submitting.
+     * @param target The target visitable to reach.
+     * @return The future path, or null if the request was refused because the queue is full.
+     */
+    public CompletableFuture<Path> submit(NavigationCache cache, FactoryPathFinder pathFinder, Position from, Visitable target) {
+        Lock lock = cache.getSearchLock();
+        try {
+            CompletableFuture<Path> path = CompletableFuture.supplyAsync(() -> {
+                lock.lock();
+                try {
+                    return pathFinder.findPath(from, target);
+                } finally {
+                    lock.unlock();
+                }
+            }, executor);
+            submitted.incrementAndGet();
+            return path;
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    /** @return The number of requests accepted so far. */
+    public long getSubmittedCount() { return submitted.get(); }
+
+    /** @return The number of requests refused so far because the queue was full. */
+    public long getRejectedCount() { return rejected.get(); }
+
+    /** @return The number of requests waiting for a worker or being computed. */
+    public int getPendingCount() { return executor.getQueue().size() + executor.getActiveCount(); }
+
+    /**
+     * Stops the workers. Pending requests are abandoned and never complete.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -14,6 +14,7 @@ import fr.tp.inf112.projects.canvas.model.Style;
  * 
  */
 public class ProductionMachine extends Component {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(ProductionMachine.class.getName());
 
     private static final Style ACTIVE_STYLE= BasicStyle.PRODUCTION_ACTIVE;
     private static final Style ACTIVE_STYLE_ALT = BasicStyle.PRODUCTION_ACTIVE_ALT;
@@ -24,6 +25,8 @@ public class ProductionMachine extends Component {
     private final Room parentRoom;
     private int productionRate;
     private boolean activeState;
+    private transient long ticks;
+    private transient long visitedTicks;
 
     /**
      * Constructs a ProductionMachine with the specified attributes.
@@ -114,25 +117,39 @@ public class ProductionMachine extends Component {
     }
 
     /**
-     * Defines the behavior of the production machine: deactivates if a robot is at its visit position, otherwise activates.
+     * Defines the behavior of the production machine: deactivates if a robot is at its visit position
+     * (robots visit with their center), otherwise activates.
      */
     @Override
     public void behave() {
-        boolean robotAtVisit = false;
-        for (Robot r : getFactory().getRobots()) {
-            Position visitPos = this.getVisit();
-            if (r.getxCoordinate() == getVisit().getxCoordinate() && r.getyCoordinate() == getVisit().getyCoordinate()) {
-                robotAtVisit = true;
-                break;
-            }
-        }
+        Position visitPos = this.getVisit();
+        boolean robotAtVisit = getFactory().getRobotOccupancy().getRobotCenteredAt(visitPos.getxCoordinate(), visitPos.getyCoordinate()) != null;
+        ticks++;
         if (robotAtVisit) {
-            System.out.println("A robot is visinting.");
+            visitedTicks++;
+            LOGGER.fine("A robot is visiting " + getName() + ".");
             deactivate();
         } else {
             activate();
         }
     }
-}
 
+    /**
+     * Gets the utilisation of the machine: the share of the ticks it behaved during, since it was
+     * created or loaded, with a robot at its visit position.
+     *
+     * @return The utilisation, between 0 and 1; 0 if the machine has not behaved yet.
+     */
+    public double getUtilisation() {
+        return ticks == 0 ? 0 : (double) visitedTicks / ticks;
+    }
 
+    /**
+     * {@inheritDoc}
+     * Robots come back to the machine for each production cycle.
+     */
+    @Override
+    public boolean isPointOfInterest() {
+        return true;
+    }
+}
@@ -3,19 +3,17 @@ package fr.tp.inf112.projects.robotsim.model;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.io.IOException;
 
-import org.jgrapht.Graph;
-import org.jgrapht.graph.DefaultWeightedEdge;
-
 import fr.tp.inf112.projects.canvas.model.Style;
 import fr.tp.inf112.projects.canvas.model.Stroke;
 import fr.tp.inf112.projects.canvas.model.impl.BasicStyle;
 import fr.tp.inf112.projects.canvas.model.impl.BasicStroke;
 import fr.tp.inf112.projects.canvas.model.impl.RGBColor;
 import fr.tp.inf112.projects.canvas.model.impl.BasicOvalShape;
+import fr.tp.inf112.projects.robotsim.model.impl.ScheduledPath;
 import fr.tp.inf112.projects.canvas.model.Style;
-import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
 
 
 /**
@@ -30,10 +28,13 @@ import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
 public class Robot extends Component {
 
     private final static long serialVersionUID = 1L;
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(Robot.class.getName());
 
     public static final int DEFAULT_SIZE = 40;
     private static final int DEFAULT_CAPACITY = 1000;
     private static final int DEFAULT_SPEED = 10;
+    /** Number of ticks a robot blocked by another one waits before stepping aside. */
+    private static final int YIELD_TICKS = 3;
     private static final Stroke DEFAULT_STROKE = new BasicStroke(RGBColor.PINK,
                                                                  2,
                                                                  new float[]{1}
@@ -64,8 +65,18 @@ public class Robot extends Component {
     private boolean held; // will specify if robot is held by a machine (for charging, producing, ...)
     private final int capacity;
     private final boolean hasPathFinder;
+    private PathFinderKind pathFinderKind = PathFinderKind.ASTAR;
     private transient FactoryPathFinder pathFinder = null;
     private transient Path currentPath;
+    /** Path being computed by the path planner of the factory, if any. */
+    private transient CompletableFuture<Path> plannedPath;
+    private transient PathPlanner plannedBy;
+    private transient long plannedLayoutVersion;
+    /** Number of ticks in a row the robot was blocked by another one. */
+    private transient int blockedTicks;
+    private transient double distanceTravelled;
+    private transient double batteryUsed;
+    private transient int pathSearches;
 
     /**
      * Constructs a Robot with specified attributes.
@@ -166,28 +177,58 @@ public class Robot extends Component {
 
     /**
      * Initializes the pathFinder based on the hasPathFinder flag.
+     * The navigation structures are shared through the navigation cache of the factory.
      */
-    private void initializePathFinder() {
+    void initializePathFinder() {
         if (hasPathFinder && pathFinder == null) {
-
-            // we search if there's already a corresponding graph
-            for (Robot other : getFactory().getRobots()) {
-                if (other != this && other.getWidth() == getWidth() && other.getHeight() == getHeight()) {
-                    FactoryPathFinder otherPathFinder = other.getPathFinder();
-                    if (otherPathFinder != null && otherPathFinder instanceof AStarGraphFactoryPathFinder) {
-                        Graph<Position, DefaultWeightedEdge> otherGraph = ((AStarGraphFactoryPathFinder) otherPathFinder).getGraph();
-                        if (otherGraph != null) {
-                            pathFinder = new AStarGraphFactoryPathFinder(this, otherGraph);
-                            break;
-                        }
-                    }
-                }
-            }
-            // if not we have to calculate the graph
-            if (pathFinder == null) pathFinder = new AStarGraphFactoryPathFinder(this);
+            pathFinder = getPathFinderKind().create(this);
         }
     }
 
+    /**
+     * Computes in advance the paths of the visit cycle of the robot, from its current position,
+     * so that the path finder finds them in its route cache when the robot needs them.
+     *
+     * @return The paths of the cycle, or an empty list if the robot has no path finder or no visit.
+     * @see FactoryPathFinder#findCycle(Position, List)
+     */
+    public List<Path> planVisits() {
+        if (!hasPathFinder || toVisit.isEmpty()) return new ArrayList<>();
+        initializePathFinder();
+        return pathFinder.findCycle(new Position(getxCenter(), getyCenter()), toVisit);
+    }
+
+    /**
+     * Tells if the robot navigates with a path finder.
+     *
+     * @return True if the robot uses a path finder, false otherwise.
+     */
+    public boolean hasPathFinder() {
+        return hasPathFinder;
+    }
+
+    /**
+     * Gets the kind of path finder the robot navigates with.
+     *
+     * @return The {@link PathFinderKind} of the robot.
+     */
+    public PathFinderKind getPathFinderKind() {
+        // robots saved before the kind existed have none
+        return pathFinderKind != null ? pathFinderKind : PathFinderKind.ASTAR;
+    }
+
+    /**
+     * Sets the kind of path finder the robot navigates with.
+     * The path finder is recreated on the next move.
+     *
+     * @param pathFinderKind The new {@link PathFinderKind}.
+     */
+    public void setPathFinderKind(PathFinderKind pathFinderKind) {
+        this.pathFinderKind = pathFinderKind;
+        this.pathFinder = null;
+        this.currentPath = null;
+    }
+
     /**
      * Gets the speed of the robot.
      * 
@@ -204,6 +245,36 @@ public class Robot extends Component {
         return this.battery;
     }
 
+    /**
+     * Gets the distance covered by the robot since it was created or loaded.
+     *
+     * @return The distance travelled, in pixels.
+     */
+    public double getDistanceTravelled() {
+        return distanceTravelled;
+    }
+
+    /**
+     * Gets the battery drained by the moves of the robot since it was created or loaded, charges
+     * not deducted.
+     *
+     * @return The battery used, in percentage points.
+     */
+    public double getBatteryUsed() {
+        return batteryUsed;
+    }
+
+    /**
+     * Gets the number of paths the robot asked its path finder or the path planner of the factory
+     * for, including those served from a path cache, since it was created or loaded. Requests
+     * refused by the path planner are not counted.
+     *
+     * @return The number of path searches.
+     */
+    public int getPathSearches() {
+        return pathSearches;
+    }
+
     /**
      * Gets the path finder of the robot.
      * 
@@ -223,6 +294,36 @@ public class Robot extends Component {
         return currentPath;
     }
 
+    /**
+     * Gets the index of the current visit of the robot, which is also the number of visits completed.
+     *
+     * @return The index in {@link #getToVisit()} of the {@code Visitable} the robot is heading to.
+     */
+    public int getCurrentVisitIndex() {
+        return currentVisit;
+    }
+
+    /**
+     * Sets the path the robot follows to its current visit.
+     *
+     * @param path The new current path.
+     */
+    void setCurrentPath(Path path) {
+        this.currentPath = path;
+    }
+
+    /**
+     * Tells if the robot needs a new path: it navigates with a path finder, is not held and has
+     * no valid path to its current visit.
+     *
+     * @return true if a path must be computed for the robot.
+     */
+    boolean needsPath() {
+        if (!hasPathFinder || held) return false;
+        Visitable current = getCurrentVisit();
+        return current != null && (currentPath == null || currentPath.getTarget() != current || !currentPath.isValid());
+    }
+
     /**
      * Gets the list of {@code Visitable} to visit by the robot.
      * 
@@ -365,7 +466,7 @@ public class Robot extends Component {
      *
      * @return The current {@link Visitable} component, or null if none.
      */
-    private Visitable getCurrentVisit() {
+    Visitable getCurrentVisit() {
         if (currentVisit < toVisit.size()) {
             return toVisit.get(currentVisit);
         } else if (currentVisit == toVisit.size() && !toVisit.isEmpty()) {
@@ -407,6 +508,7 @@ public class Robot extends Component {
 
     /**
      * Moves (without obstacle-awareness) the robot towards a specified {@link Visitable} component.
+     * When the factory has collision avoidance, the robot does not run into other robots.
      * 
      * @param visitable The {@link Visitable} component to move towards.
      * @return the distance covered.
@@ -424,12 +526,28 @@ public class Robot extends Component {
             x += (int)(speed * vecX / Math.sqrt(normSquared));
             y += (int)(speed * vecY / Math.sqrt(normSquared));
         }
+        if (getFactory().isCollisionAvoidance() && isBlocked(x, y)) {
+            return yieldWay(x - getxCenter(), y - getyCenter());
+        }
+        blockedTicks = 0;
         double distMoved = Math.sqrt(Math.pow(x - getxCenter(), 2) + Math.pow(y - getyCenter(), 2));
         setCoordinateCenter(x, y);
-        setBattery(this.battery - ((double)speed / 13) * (distMoved * 100 / (double)capacity)); // the 1/13 factor is arbitrary.
+        consumeBattery(distMoved);
         return distMoved;
     }
 
+    /**
+     * Drains the battery for a distance covered.
+     *
+     * @param distance The distance covered.
+     */
+    private void consumeBattery(double distance) {
+        double before = this.battery;
+        setBattery(this.battery - ((double)speed / 13) * (distance * 100 / (double)capacity)); // the 1/13 factor is arbitrary.
+        distanceTravelled += distance;
+        batteryUsed += before - this.battery;
+    }
+
     /**
      * Behaves according to the path finder logic, moving along the computed path.
      */
@@ -438,7 +556,7 @@ public class Robot extends Component {
 
         if (held) return;
 
-        if (currentPath == null || currentPath.getTarget() != getCurrentVisit()) {
+        if (currentPath == null || currentPath.getTarget() != getCurrentVisit() || !currentPath.isValid()) {
             Visitable current = getCurrentVisit();
             if (current == null) {
                 currentVisit += (currentVisit != toVisit.size()) ? 1 : 0;
@@ -447,22 +565,156 @@ public class Robot extends Component {
             if (current.isCharging() && !needCharging) {
                 setNeedCharging(true); // if user specifically ask a robot to go visit a charging station, it must charge there.
             }
+            // back at its first visit once its list is done, the robot rests there without searching again
+            if (currentVisit == toVisit.size() && getxCenter() == current.getxVisit() && getyCenter() == current.getyVisit()) return;
+            // the cooperative planner gives the robot its path at the start of a tick
+            if (getFactory().getCooperativePlanner() != null) return;
+            PathPlanner planner = getFactory().getPathPlanner();
+            if (planner != null) {
+                // the robot waits until the planned path is applied at the start of a tick
+                if (plannedPath == null || plannedBy != planner) {
+                    plannedLayoutVersion = getFactory().getLayoutVersion();
+                    plannedPath = planner.submit(getFactory().getNavigationCache(), pathFinder,
+                                                 new Position(getxCenter(), getyCenter()), current);
+                    plannedBy = planner;
+                    // a request refused by a full queue is submitted again on the next tick
+                    if (plannedPath != null) pathSearches++;
+                }
+                return;
+            }
+            plannedPath = null;
             Path path = pathFinder.findPath(getCurrentVisit());
+            pathSearches++;
             if (path.isNull()) return; // Robot is blocked, no path found.
             currentPath = path;
         }
 
-        double totalDistMoved = 0;
-        while (totalDistMoved + 1.41 < speed) {
-            if (!currentPath.hasNext()) {
-                currentVisit += (currentVisit != toVisit.size()) ? 1 : 0;
-                currentPath = null; // will calculate path in next update
-                break;
-            } else {
-                Position next = currentPath.getNextPosition();
-                totalDistMoved += move(next);
-                currentPath.advance();
-            }
+        // the path walks its lines by whole steps: the cost depends on the waypoints crossed
+        int index = currentPath.getCurrentIndex(), step = currentPath.getCurrentStep();
+        double distMoved = currentPath.walk(speed);
+        // a scheduled path keeps clear of the other robots by itself, unless one of them fell behind
+        // its own schedule, e.g. held by a charging station: the robot stops and is planned again
+        if (distMoved > 0 && currentPath instanceof ScheduledPath && isBlocked(currentPath.getCurrentX(), currentPath.getCurrentY())) {
+            currentPath.invalidate();
+            currentPath = null;
+            return;
+        }
+        if (distMoved > 0 && getFactory().isCollisionAvoidance() && !(currentPath instanceof ScheduledPath)
+            && isBlocked(currentPath.getCurrentX(), currentPath.getCurrentY())) {
+            int dx = currentPath.getCurrentX() - getxCenter(), dy = currentPath.getCurrentY() - getyCenter();
+            currentPath.rewind(index, step);
+            // off the path, the next one is computed from where the robot stepped
+            if (yieldWay(dx, dy) > 0) currentPath = null;
+            return;
+        }
+        blockedTicks = 0;
+        if (distMoved > 0) {
+            setCoordinateCenter(currentPath.getCurrentX(), currentPath.getCurrentY());
+            consumeBattery(distMoved);
+        }
+        if (!currentPath.hasNext()) {
+            // an invalidated path ends early, the visit is not reached
+            if (currentPath.isValid()) currentVisit += (currentVisit != toVisit.size()) ? 1 : 0;
+            currentPath = null; // will calculate path in next update
+        }
+    }
+
+    /**
+     * Tells if another robot is in the way of the robot moving its center to the given position.
+     *
+     * @param x X-coordinate of the center after the move.
+     * @param y Y-coordinate of the center after the move.
+     * @return true if the move would run into another robot.
+     */
+    private boolean isBlocked(int x, int y) {
+        // where setCoordinateCenter puts the robot
+        return getFactory().getRobotOccupancy().getBlockingRobot(this, x - getWidth() / 2, y - getWidth() / 2) != null;
+    }
+
+    /**
+     * Tells if the robot can stand with its center at the given position: on the navigation grid
+     * of its footprint if it navigates with a path finder, so that it can find a path from there,
+     * otherwise clear of the obstacles.
+     */
+    private boolean canStand(int x, int y) {
+        if (hasPathFinder) return getFactory().getNavigationCache().getGrid(getWidth(), getHeight()).isWalkable(x, y);
+        return !getFactory().isObstacle(x, y, getWidth(), getHeight());
+    }
+
+    /**
+     * Waits for the robot in the way, then steps aside after {@value #YIELD_TICKS} ticks: to the
+     * right of the move if there is room, otherwise to the left. Two robots meeting head-on both
+     * step to their right, and pass each other.
+     *
+     * @param dx X-component of the move blocked.
+     * @param dy Y-component of the move blocked.
+     * @return The distance covered stepping aside, 0 if the robot waits.
+     */
+    private double yieldWay(int dx, int dy) {
+        double norm = Math.hypot(dx, dy);
+        if (++blockedTicks < YIELD_TICKS || norm == 0) return 0;
+        for (int side = 1; side >= -1; side -= 2) {
+            // the y-axis points down: the right of (dx, dy) is (-dy, dx)
+            int x = getxCenter() - (int) Math.round(side * speed * dy / norm);
+            int y = getyCenter() + (int) Math.round(side * speed * dx / norm);
+            if (isBlocked(x, y) || !canStand(x, y)) continue;
+            double distance = Math.hypot(x - getxCenter(), y - getyCenter());
+            blockedTicks = 0;
+            setCoordinateCenter(x, y);
+            consumeBattery(distance);
+            return distance;
+        }
+        return 0;
+    }
+
+    /**
+     * Takes the path computed by the path planner of the factory, if it is complete, as the current
+     * path. A path computed on an outdated layout, towards a visit that is no longer the current one,
+     * or by another planner is dropped, and requested again on the next move.
+     */
+    void applyPlannedPath() {
+        CompletableFuture<Path> planned = plannedPath;
+        if (planned == null) return;
+        boolean samePlanner = plannedBy == getFactory().getPathPlanner();
+        if (samePlanner && !planned.isDone()) return;
+        plannedPath = null;
+        if (!samePlanner || plannedLayoutVersion != getFactory().getLayoutVersion()) return;
+        if (planned.isCompletedExceptionally()) {
+            planned.exceptionally(ex -> {
+                LOGGER.warning("Path planning failed for " + getName() + ": " + ex);
+                return null;
+            });
+            return;
+        }
+        Path path = planned.join();
+        if (path != null && !path.isNull() && path.getTarget() == getCurrentVisit()) {
+            currentPath = path;
+        }
+    }
+
+    /**
+     * Tells if the robot waits for a path from the path planner of the factory.
+     *
+     * @return true if a path is being computed.
+     */
+    public boolean isPlanning() {
+        return plannedPath != null;
+    }
+
+    /**
+     * Flags the current path for replanning if it goes through an area where the layout changed,
+     * grown by half the robot footprint.
+     *
+     * @param left Left bound of the changed area.
+     * @param top Top bound of the changed area.
+     * @param right Right bound of the changed area.
+     * @param bottom Bottom bound of the changed area.
+     */
+    void navigationChanged(int left, int top, int right, int bottom) {
+        Path path = currentPath;
+        if (path != null && path.crosses(left - getWidth() / 2, top - getHeight() / 2,
+                                         right + getWidth() / 2, bottom + getHeight() / 2)) {
+            path.invalidate();
         }
     }
 
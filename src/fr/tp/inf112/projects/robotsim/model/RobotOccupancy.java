@@ -0,0 +1,219 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupancy grid of the {@link Robot}s of a {@link Factory}, answering the questions the components
+ * ask about robots at each tick (is a robot on the door, at the visit position of the machine, in
+ * the way of this move) by looking at a few cells instead of every robot.
+ *
+ * <p>
+ * The factory area is split into square cells of {@value #CELL_SIZE} pixels, and each robot is
+ * registered in the cell holding its center only: a robot moving within its cell costs nothing,
+ * and a robot crossing into another cell one removal and one insertion. Queries widen the area
+ * they look at by half the largest robot registered, so that they never miss a robot whose
+ * footprint reaches into the area from a neighbouring cell. Footprints are compared as
+ * {@link Component#overlays(Component)} does, right and bottom bounds excluded.
+ * </p>
+ *
+ * <p>
+ * Like the {@link SpatialIndex}, queries do not modify the grid and can run concurrently, as long
+ * as no robot is added, removed or moved meanwhile.
+ * </p>
+ *
+ * @author team-24
+ */
+public class RobotOccupancy {
+    /** Side of a cell, in pixels. */
+    public static final int CELL_SIZE = 32;
+
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final List<Robot>[] cells;
+    /** Cell of each registered robot. */
+    private final Map<Robot, Integer> cellOf;
+    /** Half the width and height of the largest robots registered, rounded up. */
+    private int reachX;
+    private int reachY;
+
+    /**
+     * Constructs an empty occupancy grid covering the given area.
+     *
+     * @param originX X-coordinate of the top-left corner of the area.
+     * @param originY Y-coordinate of the top-left corner of the area.
+     * @param width Width of the area.
+     * @param height Height of the area.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RobotOccupancy(int originX, int originY, int width, int height) {
+        this.originX = originX;
+        this.originY = originY;
+        this.columns = Math.max(1, (width + CELL_SIZE) / CELL_SIZE);
+        this.rows = Math.max(1, (height + CELL_SIZE) / CELL_SIZE);
+        this.cells = new List[columns * rows];
+        this.cellOf = new HashMap<>();
+    }
+
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - originX, CELL_SIZE)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - originY, CELL_SIZE)));
+    }
+
+    private int cellOf(Robot robot) {
+        return row(robot.getyCenter()) * columns + column(robot.getxCenter());
+    }
+
+    /**
+     * Registers a robot in the grid.
+     *
+     * @param robot The robot to register.
+     */
+    void add(Robot robot) {
+        int cell = cellOf(robot);
+        cellOf.put(robot, cell);
+        if (cells[cell] == null) cells[cell] = new ArrayList<>(4);
+        cells[cell].add(robot);
+        reachX = Math.max(reachX, (robot.getWidth() + 1) / 2);
+        reachY = Math.max(reachY, (robot.getHeight() + 1) / 2);
+    }
+
+    /**
+     * Unregisters a robot from the grid.
+     *
+     * @param robot The robot to unregister.
+     * @return {@code true} if the robot was registered.
+     */
+    boolean remove(Robot robot) {
+        Integer cell = cellOf.remove(robot);
+        if (cell == null) return false;
+        cells[cell].remove(robot);
+        return true;
+    }
+
+    /**
+     * Updates the cell of a robot after it moved or was resized.
+     *
+     * @param robot The robot to update.
+     */
+    void update(Robot robot) {
+        Integer cell = cellOf.get(robot);
+        if (cell != null && cell == cellOf(robot) && 2 * reachX >= robot.getWidth() && 2 * reachY >= robot.getHeight()) return;
+        remove(robot);
+        add(robot);
+    }
+
+    private static boolean overlaps(Robot robot, int left, int top, int right, int bottom) {
+        int robotLeft = robot.getxCoordinate(), robotTop = robot.getyCoordinate();
+        return robotLeft < right && robotLeft + robot.getWidth() > left
+               && robotTop < bottom && robotTop + robot.getHeight() > top;
+    }
+
+    /**
+     * Gets a robot whose center is at the given point, e.g. a robot visiting a component.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return A robot centered at the point, or null if there is none.
+     */
+    public Robot getRobotCenteredAt(int x, int y) {
+        List<Robot> cell = cells[row(y) * columns + column(x)];
+        if (cell == null) return null;
+        for (int i = 0, size = cell.size(); i < size; i++) {
+            Robot robot = cell.get(i);
+            if (robot.getxCenter() == x && robot.getyCenter() == y) return robot;
+        }
+        return null;
+    }
+
+    /**
+     * Gets a robot whose footprint overlaps an area.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area, excluded.
+     * @param bottom Bottom bound of the area, excluded.
+     * @param ignored A robot to leave out, or null.
+     * @return A robot overlapping the area, or null if there is none.
+     */
+    public Robot getRobotOverlapping(int left, int top, int right, int bottom, Robot ignored) {
+        for (int row = row(top - reachY), lastRow = row(bottom + reachY); row <= lastRow; row++) {
+            for (int column = column(left - reachX), lastColumn = column(right + reachX); column <= lastColumn; column++) {
+                List<Robot> cell = cells[row * columns + column];
+                if (cell == null) continue;
+                for (int i = 0, size = cell.size(); i < size; i++) {
+                    Robot robot = cell.get(i);
+                    if (robot != ignored && overlaps(robot, left, top, right, bottom)) return robot;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the robots whose footprint overlaps an area.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area, excluded.
+     * @param bottom Bottom bound of the area, excluded.
+     * @return The robots overlapping the area.
+     */
+    public List<Robot> getRobotsOverlapping(int left, int top, int right, int bottom) {
+        List<Robot> found = new ArrayList<>();
+        for (int row = row(top - reachY), lastRow = row(bottom + reachY); row <= lastRow; row++) {
+            for (int column = column(left - reachX), lastColumn = column(right + reachX); column <= lastColumn; column++) {
+                List<Robot> cell = cells[row * columns + column];
+                if (cell == null) continue;
+                for (int i = 0, size = cell.size(); i < size; i++) {
+                    if (overlaps(cell.get(i), left, top, right, bottom)) found.add(cell.get(i));
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Gets the robot a robot would run into by moving its top-left corner to the given position:
+     * another robot overlapping the footprint moved, but not the current one. Robots already
+     * overlapping each other do not block each other, so that they can move apart.
+     *
+     * @param robot The robot moving.
+     * @param left X-coordinate of the top-left corner after the move.
+     * @param top Y-coordinate of the top-left corner after the move.
+     * @return The robot in the way, or null if the move is free.
+     */
+    public Robot getBlockingRobot(Robot robot, int left, int top) {
+        int right = left + robot.getWidth(), bottom = top + robot.getHeight();
+        int currentLeft = robot.getxCoordinate(), currentTop = robot.getyCoordinate();
+        int currentRight = currentLeft + robot.getWidth(), currentBottom = currentTop + robot.getHeight();
+        for (int row = row(top - reachY), lastRow = row(bottom + reachY); row <= lastRow; row++) {
+            for (int column = column(left - reachX), lastColumn = column(right + reachX); column <= lastColumn; column++) {
+                List<Robot> cell = cells[row * columns + column];
+                if (cell == null) continue;
+                for (int i = 0, size = cell.size(); i < size; i++) {
+                    Robot other = cell.get(i);
+                    if (other != robot && overlaps(other, left, top, right, bottom)
+                        && !overlaps(other, currentLeft, currentTop, currentRight, currentBottom)) return other;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of registered robots.
+     *
+     * @return The number of robots.
+     */
+    public int size() {
+        return cellOf.size();
+    }
+}
@@ -2,7 +2,6 @@ package fr.tp.inf112.projects.robotsim.model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
 import fr.tp.inf112.projects.canvas.model.impl.BasicStyle;
 import fr.tp.inf112.projects.canvas.model.impl.BasicRectangleShape;
 
@@ -13,13 +12,22 @@ import fr.tp.inf112.projects.canvas.model.impl.BasicRectangleShape;
  * <p>
  * The room's behavior includes checking if a position is on its border
  * and managing its associated {@link Door}s. Borders of a room are considered
- * obstacles.
+ * obstacles, except where a robot fits in one of the room's doors.
+ * </p>
+ *
+ * <p>
+ * The door openings are compiled into flat arrays the first time they are needed, and
+ * recompiled after a door is added or changed, so that obstacle tests do not allocate.
  * </p>
  * 
  * @author team-24
  */
 public class Room extends Component {
     private List<Door> doors = new ArrayList<>();
+    // compiled door openings: {left, top, right, bottom, vertical ? 1 : 0} of each door
+    private transient volatile int[] openings;
+    // incremented by each invalidation, so that openings compiled before one are not kept
+    private transient int openingsVersion;
 
     /**
      * Constructs a Room with specified attributes.
@@ -104,30 +112,193 @@ public class Room extends Component {
         return isOnBorder(x, y, size, size);
     }
 
+    /**
+     * Compiles the openings of the doors into flat arrays, if not already done.
+     *
+     * @return The compiled openings, 5 values per door.
+     */
+    private int[] getOpenings() {
+        int[] compiled = openings;
+        if (doors == null) {
+            // the room is being constructed and registered in its factory: no door yet
+            return new int[0];
+        }
+        if (compiled == null) {
+            int version;
+            synchronized (this) {
+                version = openingsVersion;
+            }
+            compiled = new int[5 * doors.size()];
+            int i = 0;
+            for (Door door : doors) {
+                compiled[i++] = door.getxCoordinate();
+                compiled[i++] = door.getyCoordinate();
+                compiled[i++] = door.getxCoordinate() + door.getWidth();
+                compiled[i++] = door.getyCoordinate() + door.getHeight();
+                compiled[i++] = door.isVertical() ? 1 : 0;
+            }
+            // a door changed meanwhile, e.g. under a build running in the background: not kept
+            synchronized (this) {
+                if (version == openingsVersion) openings = compiled;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Invalidates the compiled door openings, which will be recompiled on next use.
+     */
+    synchronized void invalidateOpenings() {
+        openings = null;
+        openingsVersion++;
+    }
+
+    /**
+     * Checks if a point fits in one of the doors of the room.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return True if the point is within a door, false otherwise.
+     * @see Door#fitsInDoor(int, int)
+     */
+    private boolean fitsInDoors(int x, int y) {
+        int[] bounds = getOpenings();
+        for (int i = 0; i < bounds.length; i += 5) {
+            if (x >= bounds[i] && x < bounds[i + 2] && y >= bounds[i + 1] && y < bounds[i + 3]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a rectangle centered at (x, y) fits in one of the doors of the room.
+     *
+     * @param x X-coordinate of the CENTER of the rectangle.
+     * @param y Y-coordinate of the CENTER of the rectangle.
+     * @param width Width of the rectangle.
+     * @param height Height of the rectangle.
+     * @return True if the rectangle fits in a door, false otherwise.
+     * @see Door#fitsInDoor(int, int, int, int)
+     */
+    private boolean fitsInDoors(int x, int y, int width, int height) {
+        int[] bounds = getOpenings();
+        int rectLeft = x - width / 2;
+        int rectRight = x + (width + 1) / 2; // +1 for odd sizes
+        int rectTop = y - height / 2;
+        int rectBottom = y + (height + 1) / 2;
+        for (int i = 0; i < bounds.length; i += 5) {
+            if (bounds[i + 4] == 1) {
+                if (rectTop >= bounds[i + 1] && rectBottom <= bounds[i + 3]) return true;
+            } else {
+                if (rectLeft >= bounds[i] && rectRight <= bounds[i + 2]) return true;
+            }
+        }
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(Position position) {
-        int x = position.getxCoordinate();
-        int y = position.getyCoordinate();
-        return isOnBorder(x, y) && doors.stream().noneMatch(door -> door.fitsInDoor(x, y));
+        return isObstacle(position.getxCoordinate(), position.getyCoordinate());
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(int x, int y) {
-        return isOnBorder(x, y) && doors.stream().noneMatch(door -> door.fitsInDoor(x, y));
+        return isOnBorder(x, y) && !fitsInDoors(x, y);
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(int x, int y, int size) {
-        return isOnBorder(x, y, size) && doors.stream().noneMatch(door -> door.fitsInDoor(x, y, size));
+        return isObstacle(x, y, size, size);
     }
 
     /** {@inheritDoc} */
     @Override
     public boolean isObstacle(int x, int y, int width, int height) {
-        return isOnBorder(x, y, width, height) && doors.stream().noneMatch(door -> door.fitsInDoor(x, y, width, height));
+        return isOnBorder(x, y, width, height) && !fitsInDoors(x, y, width, height);
+    }
+
+    /**
+     * Rooms always affect navigation, through their walls.
+     *
+     * @return {@code true}.
+     */
+    @Override
+    boolean affectsNavigation() {
+        return true;
+    }
+
+    /**
+     * Blocks the cells of the navigation grid where a robot of the grid footprint would hit the
+     * walls of the room, leaving the doorways open.
+     * <p>
+     * The walls inflated by half the footprint form four bands around the room border. Within
+     * them, a row stays open if the footprint fits vertically in a vertical door, and a column
+     * if it fits horizontally in a horizontal one.
+     * </p>
+     *
+     * @param grid The navigation grid to update.
+     */
+    @Override
+    void markObstacleCells(NavigationGrid grid) {
+        int robotWidth = grid.getRobotWidth();
+        int robotHeight = grid.getRobotHeight();
+        int halfWidth = robotWidth / 2;
+        int halfHeight = robotHeight / 2;
+
+        int roomLeft = getxCoordinate();
+        int roomRight = getxCoordinate() + getWidth();
+        int roomTop = getyCoordinate();
+        int roomBottom = getyCoordinate() + getHeight();
+
+        // inflated bounds of the room
+        int left = roomLeft - halfWidth;
+        int right = roomRight + halfWidth;
+        int top = roomTop - halfHeight;
+        int bottom = roomBottom + halfHeight;
+
+        boolean[] openRows = new boolean[bottom - top + 1];
+        boolean[] openColumns = new boolean[right - left + 1];
+        int[] bounds = getOpenings();
+        for (int i = 0; i < bounds.length; i += 5) {
+            if (bounds[i + 4] == 1) {
+                int from = Math.max(top, bounds[i + 1] + halfHeight);
+                int to = Math.min(bottom, bounds[i + 3] - (robotHeight + 1) / 2);
+                for (int y = from; y <= to; y++) openRows[y - top] = true;
+            } else {
+                int from = Math.max(left, bounds[i] + halfWidth);
+                int to = Math.min(right, bounds[i + 2] - (robotWidth + 1) / 2);
+                for (int x = from; x <= to; x++) openColumns[x - left] = true;
+            }
+        }
+
+        blockBand(grid, left, top, roomLeft + halfWidth, bottom, openRows, openColumns);
+        blockBand(grid, roomRight - halfWidth, top, right, bottom, openRows, openColumns);
+        blockBand(grid, left, top, right, roomTop + halfHeight, openRows, openColumns);
+        blockBand(grid, left, roomBottom - halfHeight, right, bottom, openRows, openColumns);
+    }
+
+    /**
+     * Blocks the cells of a wall band, except those in an open row or column.
+     * Bounds are inclusive and lie within the inflated bounds of the room.
+     */
+    private void blockBand(NavigationGrid grid, int bandLeft, int bandTop, int bandRight, int bandBottom,
+                           boolean[] openRows, boolean[] openColumns) {
+        int top = getyCoordinate() - grid.getRobotHeight() / 2;
+        int left = getxCoordinate() - grid.getRobotWidth() / 2;
+        for (int y = bandTop; y <= bandBottom; y++) {
+            if (openRows[y - top]) continue;
+            int runStart = bandLeft;
+            for (int x = bandLeft; x <= bandRight + 1; x++) {
+                if (x > bandRight || openColumns[x - left]) {
+                    if (runStart < x) grid.block(runStart, y, x - 1, y);
+                    runStart = x + 1;
+                }
+            }
+        }
     }
 
     /**
@@ -139,6 +310,25 @@ public class Room extends Component {
     public boolean addDoor(Door door) {
         if (door.getParentRoom() != this) return false;
         doors.add(door);
+        invalidateOpenings();
+        // a door opens rows or columns across every wall of the room
+        int[] bounds = door.getNavigationBounds();
+        getFactory().navigationChanged(bounds[0], bounds[1], bounds[2], bounds[3]);
+        return true;
+    }
+
+    /**
+     * Removes a {@link Door} from the room.
+     *
+     * @param door The {@link Door} to remove.
+     * @return True if the door was in the room, false otherwise.
+     */
+    public boolean removeDoor(Door door) {
+        if (!doors.remove(door)) return false;
+        invalidateOpenings();
+        // the walls close again where the door was
+        int[] bounds = door.getNavigationBounds();
+        getFactory().navigationChanged(bounds[0], bounds[1], bounds[2], bounds[3]);
         return true;
     }
 
@@ -0,0 +1,202 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform bucket grid indexing the {@link Component}s of a {@link Factory} by their bounding box.
+ *
+ * <p>
+ * The factory area is split into square buckets of {@value #BUCKET_SIZE} pixels; each component is
+ * registered in every bucket its bounding box (widened by one pixel, since borders are inclusive)
+ * overlaps. A query only visits the buckets overlapping the queried area, so its cost depends on
+ * the number of nearby components instead of the total number of components. Components lying
+ * outside the factory are kept in the border buckets.
+ * </p>
+ *
+ * <p>
+ * Queries do not modify the index and can run concurrently, as long as no component is added,
+ * removed or updated meanwhile.
+ * </p>
+ *
+ * @author team-24
+ */
+public class SpatialIndex {
+    /** Side of a bucket, in pixels. */
+    public static final int BUCKET_SIZE = 32;
+
+    private final int originX;
+    private final int originY;
+    private final int columns;
+    private final int rows;
+    private final List<Component>[] buckets;
+    /** Bucket range {firstColumn, firstRow, lastColumn, lastRow} of each registered component. */
+    private final Map<Component, int[]> ranges;
+
+    /**
+     * Constructs an empty index covering the given area.
+     *
+     * @param originX X-coordinate of the top-left corner of the area.
+     * @param originY Y-coordinate of the top-left corner of the area.
+     * @param width Width of the area.
+     * @param height Height of the area.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SpatialIndex(int originX, int originY, int width, int height) {
+        this.originX = originX;
+        this.originY = originY;
+        this.columns = Math.max(1, (width + BUCKET_SIZE) / BUCKET_SIZE);
+        this.rows = Math.max(1, (height + BUCKET_SIZE) / BUCKET_SIZE);
+        this.buckets = new List[columns * rows];
+        this.ranges = new HashMap<>();
+    }
+
+    private int column(int x) {
+        return Math.max(0, Math.min(columns - 1, Math.floorDiv(x - originX, BUCKET_SIZE)));
+    }
+
+    private int row(int y) {
+        return Math.max(0, Math.min(rows - 1, Math.floorDiv(y - originY, BUCKET_SIZE)));
+    }
+
+    /**
+     * Computes the bucket range covered by a component.
+     */
+    private int[] rangeOf(Component component) {
+        int left = component.getxCoordinate() - 1;
+        int top = component.getyCoordinate() - 1;
+        return new int[] {column(left), row(top),
+                          column(left + component.getWidth() + 2), row(top + component.getHeight() + 2)};
+    }
+
+    /**
+     * Registers a component in the index.
+     *
+     * @param component The component to register.
+     */
+    void add(Component component) {
+        int[] range = rangeOf(component);
+        ranges.put(component, range);
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                int index = row * columns + column;
+                if (buckets[index] == null) buckets[index] = new ArrayList<>(4);
+                buckets[index].add(component);
+            }
+        }
+    }
+
+    /**
+     * Unregisters a component from the index.
+     *
+     * @param component The component to unregister.
+     * @return {@code true} if the component was registered.
+     */
+    boolean remove(Component component) {
+        int[] range = ranges.remove(component);
+        if (range == null) return false;
+        for (int row = range[1]; row <= range[3]; row++) {
+            for (int column = range[0]; column <= range[2]; column++) {
+                buckets[row * columns + column].remove(component);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Updates the buckets of a component after it moved or was resized.
+     *
+     * @param component The component to update.
+     */
+    void update(Component component) {
+        int[] range = ranges.get(component);
+        if (range != null && java.util.Arrays.equals(range, rangeOf(component))) return;
+        remove(component);
+        add(component);
+    }
+
+    /**
+     * Tells if one of the indexed components is an obstacle for a rectangle centered at (x, y).
+     *
+     * @param x X-coordinate of the center of the rectangle.
+     * @param y Y-coordinate of the center of the rectangle.
+     * @param width Width of the rectangle.
+     * @param height Height of the rectangle.
+     * @return {@code true} if a component is an obstacle for the rectangle.
+     */
+    public boolean isObstacle(int x, int y, int width, int height) {
+        int firstColumn = column(x - width / 2 - 1);
+        int lastColumn = column(x + (width + 1) / 2 + 1);
+        int firstRow = row(y - height / 2 - 1);
+        int lastRow = row(y + (height + 1) / 2 + 1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                List<Component> bucket = buckets[row * columns + column];
+                if (bucket == null) continue;
+                for (int i = 0, size = bucket.size(); i < size; i++) {
+                    if (bucket.get(i).isObstacle(x, y, width, height)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tells if one of the indexed components is an obstacle for the point (x, y).
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @return {@code true} if a component is an obstacle for the point.
+     */
+    public boolean isObstacle(int x, int y) {
+        List<Component> bucket = buckets[row(y) * columns + column(x)];
+        if (bucket == null) return false;
+        for (int i = 0, size = bucket.size(); i < size; i++) {
+            if (bucket.get(i).isObstacle(x, y)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Collects the components whose bounding box may intersect the given area.
+     * The result may contain components slightly outside the area, but never misses one inside it.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param right Right bound of the area.
+     * @param bottom Bottom bound of the area.
+     * @return The candidate components, without duplicates.
+     */
+    public List<Component> getComponentsNear(int left, int top, int right, int bottom) {
+        List<Component> found = new ArrayList<>();
+        int firstColumn = column(left - 1), lastColumn = column(right + 1);
+        int firstRow = row(top - 1), lastRow = row(bottom + 1);
+        boolean single = firstColumn == lastColumn && firstRow == lastRow;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                List<Component> bucket = buckets[row * columns + column];
+                if (bucket == null) continue;
+                for (int i = 0, size = bucket.size(); i < size; i++) {
+                    Component component = bucket.get(i);
+                    // a component registered in several of the buckets visited is taken from the first one only
+                    int[] range = single ? null : ranges.get(component);
+                    if (single || (column == Math.max(range[0], firstColumn) && row == Math.max(range[1], firstRow))) {
+                        found.add(component);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the number of indexed components.
+     *
+     * @return The number of components.
+     */
+    public int size() {
+        return ranges.size();
+    }
+}
@@ -0,0 +1,136 @@
+package fr.tp.inf112.projects.robotsim.model;
+
+/**
+ * Statistics of the simulation ticks of a factory: the duration of the ticks and of the rounds of
+ * the cooperative planner run in them, and the node expansions of the path searches run during
+ * them against the expansion budget of the factory.
+ *
+ * <p>
+ * The counters of the current tick are reset by {@link Factory#behave()} when the tick starts,
+ * and keep their values until the next one. They are only updated from the simulation thread.
+ * </p>
+ *
+ * @author team-24
+ * @see Factory#setPathExpansionBudget(int)
+ */
+public class TickMetrics {
+    private long ticks;
+    private long lastTickNanos;
+    private long maxTickNanos;
+    private long totalTickNanos;
+    private int budget;
+    private int expandedNodes;
+    private int suspendedSearches;
+    private long totalExpandedNodes;
+    private long totalSuspendedSearches;
+    private long planningNanos;
+    private long totalPlanningNanos;
+
+    /**
+     * Starts a tick.
+     *
+     * @param budget The number of node expansions the searches of the tick may share, 0 for no limit.
+     */
+    void startTick(int budget) {
+        this.budget = budget;
+        this.expandedNodes = 0;
+        this.suspendedSearches = 0;
+        this.planningNanos = 0;
+    }
+
+    /**
+     * Ends the current tick.
+     *
+     * @param nanos The duration of the tick, in nanoseconds.
+     */
+    void endTick(long nanos) {
+        ticks++;
+        lastTickNanos = nanos;
+        maxTickNanos = Math.max(maxTickNanos, nanos);
+        totalTickNanos += nanos;
+    }
+
+    /**
+     * Gets the number of node expansions still available to the searches of the current tick.
+     *
+     * @return The remaining expansions, {@link Integer#MAX_VALUE} if the budget is unlimited.
+     */
+    public int getRemainingExpansions() {
+        return budget <= 0 ? Integer.MAX_VALUE : Math.max(0, budget - expandedNodes);
+    }
+
+    /**
+     * Records node expansions made by a search during the current tick.
+     *
+     * @param count The number of expanded nodes.
+     */
+    public void countExpansions(int count) {
+        expandedNodes += count;
+        totalExpandedNodes += count;
+    }
+
+    /**
+     * Records a search suspended during the current tick because the budget was exhausted.
+     */
+    public void countSuspendedSearch() {
+        suspendedSearches++;
+        totalSuspendedSearches++;
+    }
+
+    /**
+     * Records the duration of a round of the {@link CooperativePlanner} run during the current tick.
+     *
+     * @param nanos The duration of the round, in nanoseconds.
+     */
+    void countPlanning(long nanos) {
+        planningNanos += nanos;
+        totalPlanningNanos += nanos;
+    }
+
+    /** @return The number of ticks ended so far. */
+    public long getTickCount() { return ticks; }
+
+    /** @return The duration of the last tick, in nanoseconds. */
+    public long getLastTickNanos() { return lastTickNanos; }
+
+    /** @return The duration of the longest tick so far, in nanoseconds. */
+    public long getMaxTickNanos() { return maxTickNanos; }
+
+    /** @return The mean duration of the ticks so far, in nanoseconds. */
+    public double getMeanTickNanos() { return ticks == 0 ? 0 : (double) totalTickNanos / ticks; }
+
+    /** @return The number of nodes expanded during the last tick. */
+    public int getExpandedNodes() { return expandedNodes; }
+
+    /** @return The number of searches suspended during the last tick. */
+    public int getSuspendedSearches() { return suspendedSearches; }
+
+    /** @return The number of nodes expanded during all the ticks so far. */
+    public long getTotalExpandedNodes() { return totalExpandedNodes; }
+
+    /** @return The number of searches suspended during all the ticks so far. */
+    public long getTotalSuspendedSearches() { return totalSuspendedSearches; }
+
+    /** @return The time spent by the cooperative planner during the last tick, in nanoseconds. */
+    public long getPlanningNanos() { return planningNanos; }
+
+    /** @return The time spent by the cooperative planner during all the ticks so far, in nanoseconds. */
+    public long getTotalPlanningNanos() { return totalPlanningNanos; }
+
+    /**
+     * Returns a string representation of the metrics.
+     *
+     * @return String representation of the metrics.
+     */
+    @Override
+    public String toString() {
+        return "TickMetrics{" +
+               "ticks=" + ticks +
+               ", lastTickMillis=" + lastTickNanos / 1e6 +
+               ", maxTickMillis=" + maxTickNanos / 1e6 +
+               ", expandedNodes=" + expandedNodes + (budget > 0 ? "/" + budget : "") +
+               ", suspendedSearches=" + suspendedSearches +
+               ", planningMillis=" + planningNanos / 1e6 +
+               '}';
+    }
+}
@@ -0,0 +1,559 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntPredicate;
+
+import org.jgrapht.Graph;
+import org.jgrapht.graph.DefaultUndirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.FactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.PathCache;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+
+/**
+ * Base class of the path finders searching a {@link NavigationGrid} directly.
+ * Handles the conversion between factory coordinates and cells, subclasses only
+ * provide the search itself.
+ *
+ * @author team-24
+ */
+public abstract class AbstractGridFactoryPathFinder implements FactoryPathFinder {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(AbstractGridFactoryPathFinder.class.getName());
+
+    /**
+     * Result of {@link #search(int, int)} for a search suspended before reaching its end cell,
+     * to be resumed by the next call with the same cells. It is neither cached nor turned into a path.
+     */
+    protected static final int[] SUSPENDED = new int[0];
+
+    /**
+     * Number of targets from which a single Dijkstra search to all of them is faster than
+     * searching each of them: below, the focus of each search is worth more than their sharing.
+     */
+    public static final int BATCH_SEARCH_THRESHOLD = 8;
+
+    private final Robot robot;
+    private final NavigationGrid grid;
+    /** Shared by the searches of the robot, which may run on path planner workers. */
+    private final LongAdder expandedNodes = new LongAdder();
+    private boolean pathCaching;
+    private boolean pointOfInterestRouting;
+    /** Path cache of the footprint, looked up in the navigation cache once. */
+    private volatile PathCache pathCache;
+
+    /**
+     * Constructs a path finder for a given robot on a given grid.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to the robot.
+     */
+    protected AbstractGridFactoryPathFinder(Robot robot, NavigationGrid grid) {
+        this.robot = robot;
+        this.grid = grid;
+        this.pathCaching = true;
+        this.pointOfInterestRouting = true;
+    }
+
+    /**
+     * Builds a JGraphT graph representation of the factory, equivalent to its {@link NavigationGrid}.
+     * <p>
+     * The walkability of each cell is first computed in a single sweep, then the edges are emitted
+     * from that mask, so that obstacles are tested once per cell instead of once per neighbour.
+     * </p>
+     *
+     * @param factory The factory to build the graph from.
+     * @param robotWidth The width of the robot.
+     * @param robotHeight The height of the robot.
+     * @return The constructed graph.
+     */
+    public static Graph<Position, DefaultWeightedEdge> buildFactoryGraph(Factory factory, int robotWidth, int robotHeight) {
+        return toGraph(NavigationGrid.build(factory, robotWidth, robotHeight));
+    }
+
+    /**
+     * Emits the JGraphT graph of a navigation grid.
+     * <p>
+     * As in the original graph, there is one vertex per pixel of the factory, borders included,
+     * and an edge between two neighbours as soon as the one inside the factory bounds is walkable.
+     * </p>
+     *
+     * @param grid The navigation grid.
+     * @return The constructed graph.
+     */
+    public static Graph<Position, DefaultWeightedEdge> toGraph(NavigationGrid grid) {
+        LOGGER.info("Building factory graph...");
+        Graph<Position, DefaultWeightedEdge> graph = new DefaultUndirectedWeightedGraph<>(DefaultWeightedEdge.class);
+
+        int startX = grid.getOriginX();
+        int startY = grid.getOriginY();
+        int columns = grid.getWidth() + 1;
+        int rows = grid.getHeight() + 1;
+
+        Position[] vertices = new Position[columns * rows];
+        for (int x = 0; x < columns; x++) {
+            for (int y = 0; y < rows; y++) {
+                vertices[y * columns + x] = new Position(startX + x, startY + y);
+                graph.addVertex(vertices[y * columns + x]);
+            }
+        }
+
+        for (int x = 0; x < columns; x++) {
+            for (int y = 0; y < rows; y++) {
+                boolean walkable = grid.isWalkable(startX + x, startY + y);
+
+                for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                    int nx = x + NavigationGrid.getDirectionX(direction);
+                    int ny = y + NavigationGrid.getDirectionY(direction);
+
+                    // an edge between two walkable cells is emitted from one of its ends only (odd directions)
+                    if (grid.isWalkable(startX + nx, startY + ny) && (!walkable || direction % 2 == 1)) {
+                        DefaultWeightedEdge edge = graph.addEdge(vertices[y * columns + x], vertices[ny * columns + nx]);
+                        graph.setEdgeWeight(edge, NavigationGrid.getWeight(direction));
+                    }
+                }
+            }
+        }
+        LOGGER.info("Factory graph built with " + graph.vertexSet().size() + " vertices and " + graph.edgeSet().size() + " edges.");
+        return graph;
+    }
+
+    /**
+     * Returns the grid used for pathfinding.
+     *
+     * @return The navigation grid.
+     */
+    public NavigationGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Returns the robot associated for the pathfinding.
+     *
+     * @return The robot associated to this path finder.
+     */
+    public Robot getRobot() {
+        return robot;
+    }
+
+    /**
+     * Returns the route cache shared by the path finders of the robot footprint.
+     *
+     * @return The path cache of the footprint in the navigation cache of the factory.
+     */
+    public PathCache getPathCache() {
+        PathCache cache = pathCache;
+        if (cache == null) {
+            cache = PathCache.get(robot.getFactory().getNavigationCache(), grid.getRobotWidth(), grid.getRobotHeight());
+            pathCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the table of routes to the points of interest of the robot footprint.
+     *
+     * @return The point of interest table of the footprint in the navigation cache of the factory.
+     */
+    public PointOfInterestTable getPointOfInterestTable() {
+        return PointOfInterestTable.get(robot.getFactory().getNavigationCache(), grid.getRobotWidth(), grid.getRobotHeight());
+    }
+
+    /**
+     * Tells if the routes to points of interest are taken from the {@link PointOfInterestTable}
+     * of the footprint instead of being searched.
+     *
+     * @return true if point of interest routing is enabled (the default).
+     */
+    public boolean isPointOfInterestRouting() {
+        return pointOfInterestRouting;
+    }
+
+    /**
+     * Enables or disables point of interest routing. As route caching, it assumes the grid of
+     * this path finder is the one of the navigation cache of the factory.
+     *
+     * @param pointOfInterestRouting Whether to use the {@link PointOfInterestTable} of the footprint.
+     */
+    public void setPointOfInterestRouting(boolean pointOfInterestRouting) {
+        this.pointOfInterestRouting = pointOfInterestRouting;
+    }
+
+    /**
+     * Tells if the routes found are looked up in and stored into the {@link PathCache} of the footprint.
+     *
+     * @return true if route caching is enabled (the default).
+     */
+    public boolean isPathCaching() {
+        return pathCaching;
+    }
+
+    /**
+     * Enables or disables route caching. Caching assumes the grid of this path finder is the one
+     * of the navigation cache of the factory, and should be disabled otherwise.
+     *
+     * @param pathCaching Whether to use the {@link PathCache} of the footprint.
+     */
+    public void setPathCaching(boolean pathCaching) {
+        this.pathCaching = pathCaching;
+    }
+
+    /**
+     * Returns the number of nodes expanded by the searches of this path finder so far.
+     *
+     * @return The number of expanded nodes.
+     */
+    public long getExpandedNodes() {
+        return expandedNodes.sum();
+    }
+
+    /**
+     * Counts an expanded node in the search statistics.
+     */
+    protected void countExpandedNode() {
+        expandedNodes.increment();
+    }
+
+    /**
+     * Finds the shortest path from the robot's current position to the target visitable.
+     *
+     * @param target The target visitable to reach.
+     * @return A {@link Path} object representing the shortest path, or null if target is null.
+     */
+    @Override
+    public Path findPath(Visitable target) {
+        return findPath(new Position(robot.getxCenter(), robot.getyCenter()), target);
+    }
+
+    /**
+     * Finds the shortest path from a given position to the target visitable.
+     * Unless caching is disabled, the route is taken from the {@link PathCache} of the footprint
+     * when it was already computed on the current layout.
+     * Routes to points of interest are walked down the {@link PointOfInterestTable} of the footprint.
+     * The cells of the route are compressed into {@link NavigationGrid#toWaypoints(int[]) waypoints}.
+     * A {@link #SUSPENDED suspended} search gives a path without waypoints, as an unreachable target.
+     *
+     * @param from The position to start from.
+     * @param target The target visitable to reach.
+     * @return A {@link Path} object representing the shortest path, or null if target is null.
+     */
+    @Override
+    public Path findPath(Position from, Visitable target) {
+        if (target == null) return null;
+
+        int start = grid.cellId(from.getxCoordinate(), from.getyCoordinate());
+        int end = grid.cellId(target.getxVisit(), target.getyVisit());
+        if (start < 0 || end < 0) return new Path((int[]) null, target);
+
+        PathCache cache = pathCaching ? getPathCache() : null;
+        int[] waypoints = cache != null ? cache.get(start, end) : null;
+        if (waypoints == null) {
+            long generation = cache != null ? cache.getGeneration() : 0;
+            int[] cells = route(start, end, target);
+            if (cells == SUSPENDED) return new Path((int[]) null, target);
+            return store(start, end, cells, target, cache, generation);
+        }
+        return new Path(waypoints.length == 0 ? null : waypoints, target);
+    }
+
+    /**
+     * Finds the shortest paths from a given position to several target visitables.
+     * As with {@link #findPath(Position, Visitable)}, the routes already in the {@link PathCache}
+     * and the ones to points of interest are not searched. From {@link #BATCH_SEARCH_THRESHOLD}
+     * targets on, the others are all found by a single Dijkstra search from the start cell, run
+     * until their cells are reached; fewer of them are searched one at a time, as by
+     * {@link #findPath(Position, Visitable)}.
+     *
+     * @param from The position to start from.
+     * @param targets The target visitables to reach.
+     * @return The paths to the targets, in the same order, null for null targets.
+     */
+    @Override
+    public List<Path> findPaths(Position from, List<? extends Visitable> targets) {
+        Path[] paths = new Path[targets.size()];
+        int start = grid.cellId(from.getxCoordinate(), from.getyCoordinate());
+        PathCache cache = pathCaching ? getPathCache() : null;
+        long generation = cache != null ? cache.getGeneration() : 0;
+
+        // cells of the targets left to search, -1 for the others
+        int[] ends = new int[targets.size()];
+        int pending = 0;
+        for (int i = 0; i < paths.length; i++) {
+            Visitable target = targets.get(i);
+            ends[i] = -1;
+            if (target == null) continue;
+            int end = grid.cellId(target.getxVisit(), target.getyVisit());
+            int[] waypoints = start >= 0 && end >= 0 && cache != null ? cache.get(start, end) : null;
+            PointOfInterestTable table = start >= 0 && end >= 0 && waypoints == null ? getRoutingTable(end, target) : null;
+            if (start < 0 || end < 0) {
+                paths[i] = new Path((int[]) null, target);
+            } else if (waypoints != null) {
+                paths[i] = new Path(waypoints.length == 0 ? null : waypoints, target);
+            } else if (table != null) {
+                paths[i] = store(start, end, table.route(start, table.indexOf(end)), target, cache, generation);
+            } else {
+                ends[i] = end;
+                pending++;
+            }
+        }
+
+        if (pending < BATCH_SEARCH_THRESHOLD) {
+            for (int i = 0; i < paths.length; i++) {
+                if (ends[i] < 0) continue;
+                int[] cells = search(start, ends[i]);
+                paths[i] = cells == SUSPENDED ? new Path((int[]) null, targets.get(i))
+                                              : store(start, ends[i], cells, targets.get(i), cache, generation);
+            }
+        } else {
+            // Dijkstra expands cells in the same order whatever the end cell: the search for a
+            // target goes on from where the search for the previous one stopped
+            SearchSpace space = SearchSpace.acquire(grid.getCellCount());
+            startBestFirstSearch(space, start, start, false);
+            for (int i = 0; i < paths.length; i++) {
+                if (ends[i] < 0) continue;
+                int[] cells = continueBestFirstSearch(space, ends[i], false, Integer.MAX_VALUE);
+                paths[i] = store(start, ends[i], cells, targets.get(i), cache, generation);
+            }
+        }
+        return Arrays.asList(paths);
+    }
+
+    /**
+     * Finds the paths of a visit cycle. The legs starting from the same cell, such as the ones
+     * leaving a visit appearing several times in the cycle, are found by a single call to
+     * {@link #findPaths(Position, List)}. With route caching, the paths found are then in the
+     * {@link PathCache} of the footprint for the robots walking the cycle.
+     *
+     * @param from The position to start from.
+     * @param visits The visits of the cycle, in order.
+     * @return The {@code visits.size() + 1} paths of the cycle, null for the ones from or to a null
+     *         visit, or an empty list if there is no visit.
+     */
+    @Override
+    public List<Path> findCycle(Position from, List<? extends Visitable> visits) {
+        if (visits.isEmpty()) return new ArrayList<>();
+        int legs = visits.size() + 1;
+        Path[] paths = new Path[legs];
+
+        // leg indexes by start cell, with the start position of the first one
+        Map<Integer, List<Integer>> legsByStart = new LinkedHashMap<>();
+        Map<Integer, Position> starts = new LinkedHashMap<>();
+        for (int leg = 0; leg < legs; leg++) {
+            Visitable previous = leg == 0 ? null : visits.get(leg - 1);
+            if (leg > 0 && previous == null) continue;
+            Position start = leg == 0 ? from : new Position(previous.getxVisit(), previous.getyVisit());
+            int cell = grid.cellId(start.getxCoordinate(), start.getyCoordinate());
+            legsByStart.computeIfAbsent(cell, key -> new ArrayList<>()).add(leg);
+            starts.putIfAbsent(cell, start);
+        }
+
+        for (Map.Entry<Integer, List<Integer>> entry : legsByStart.entrySet()) {
+            List<Visitable> targets = new ArrayList<>(entry.getValue().size());
+            for (int leg : entry.getValue()) {
+                targets.add(visits.get(leg % visits.size()));
+            }
+            List<Path> found = findPaths(starts.get(entry.getKey()), targets);
+            for (int i = 0; i < found.size(); i++) {
+                paths[entry.getValue().get(i)] = found.get(i);
+            }
+        }
+        return Arrays.asList(paths);
+    }
+
+    /**
+     * Finds the shortest path from a given position to a target visitable around some cells the
+     * robot center must keep out of, e.g. next to other robots standing in the way. The cells are
+     * tested as they are reached by an A* search, and the route is neither taken from nor stored
+     * in the caches. The search gives up after a number of node expansions, as the cells avoided
+     * may well leave no way around and a search proving it would cover the whole grid.
+     *
+     * @param from The position to start from.
+     * @param target The target visitable to reach.
+     * @param avoided Tells if a cell is to be avoided; the start and end cells never are.
+     * @param limit The maximum number of nodes to expand.
+     * @return The path, without waypoints if none was found around the cells avoided, or null if
+     *         target is null.
+     */
+    public Path findPathAround(Position from, Visitable target, IntPredicate avoided, int limit) {
+        if (target == null) return null;
+
+        int start = grid.cellId(from.getxCoordinate(), from.getyCoordinate());
+        int end = grid.cellId(target.getxVisit(), target.getyVisit());
+        if (start < 0 || end < 0) return new Path((int[]) null, target);
+
+        SearchSpace space = SearchSpace.acquire(grid.getCellCount());
+        startBestFirstSearch(space, start, end, true);
+        CellHeap open = space.getOpen();
+        int expanded = 0;
+        while (!open.isEmpty() && expanded < limit) {
+            int cell = open.pop();
+            if (!space.close(cell)) continue;
+            countExpandedNode();
+            expanded++;
+            if (cell == end) return new Path(grid.toWaypoints(space.buildPath(end)), target);
+
+            int distance = space.getDistance(cell);
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0 || space.isClosed(neighbour)) continue;
+
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < space.getDistance(neighbour)) {
+                    if (neighbour != end && avoided.test(neighbour)) {
+                        // closed rather than tested again from its other neighbours
+                        space.close(neighbour);
+                        continue;
+                    }
+                    space.setDistance(neighbour, candidate, cell);
+                    open.push(candidate + grid.estimate(neighbour, end), neighbour);
+                }
+            }
+        }
+        return new Path((int[]) null, target);
+    }
+
+    /**
+     * Compresses the cells of a route into a path, and stores its waypoints in the route cache.
+     *
+     * @param start The start cell.
+     * @param end The end cell.
+     * @param cells The cells of the route, or null if {@code end} is unreachable.
+     * @param target The target visitable, lying on {@code end}.
+     * @param cache The path cache of the footprint, null if route caching is disabled.
+     * @param generation The generation of the cache when the route was computed.
+     * @return The path.
+     */
+    private Path store(int start, int end, int[] cells, Visitable target, PathCache cache, long generation) {
+        int[] waypoints = cells != null ? grid.toWaypoints(cells) : null;
+        if (cache != null) cache.put(start, end, waypoints, generation);
+        return new Path(waypoints, target);
+    }
+
+    /**
+     * Gets the table the routes to points of interest are walked down, if point of interest
+     * routing is enabled.
+     *
+     * @return The {@link PointOfInterestTable} of the footprint, or null if the routes are searched.
+     */
+    protected PointOfInterestTable getRoutingTable() {
+        return pointOfInterestRouting ? getPointOfInterestTable() : null;
+    }
+
+    /**
+     * Gets the table the route to a target is walked down, if it is not searched.
+     */
+    private PointOfInterestTable getRoutingTable(int end, Visitable target) {
+        if (!(target instanceof Component) || !((Component) target).isPointOfInterest()) return null;
+        PointOfInterestTable table = getRoutingTable();
+        return table != null && table.indexOf(end) >= 0 ? table : null;
+    }
+
+    /**
+     * Computes the shortest sequence of cells between two cells of the grid: walked down the
+     * {@link PointOfInterestTable} when the target is a point of interest, searched otherwise.
+     *
+     * @param start The start cell.
+     * @param end The end cell.
+     * @param target The target visitable, lying on {@code end}.
+     * @return The cells of the path, start and end included, null if {@code end} is unreachable,
+     *         or {@link #SUSPENDED} if the search was suspended.
+     */
+    private int[] route(int start, int end, Visitable target) {
+        PointOfInterestTable table = getRoutingTable(end, target);
+        return table != null ? table.route(start, table.indexOf(end)) : search(start, end);
+    }
+
+    /**
+     * Searches the shortest sequence of cells between two cells of the grid.
+     *
+     * @param start The start cell.
+     * @param end The end cell.
+     * @return The cells of the path, start and end included, null if {@code end} is unreachable,
+     *         or {@link #SUSPENDED} if the search was suspended.
+     */
+    protected abstract int[] search(int start, int end);
+
+    /**
+     * Best-first search over the grid, A* when {@code heuristic} is set, Dijkstra otherwise.
+     * <p>
+     * The search runs on the {@link SearchSpace} of the calling thread: distances, parent links
+     * and closed flags are primitive arrays indexed by cell and reused from one search to the next,
+     * and the open list is a binary heap of cells, so that only the resulting cells are allocated.
+     * </p>
+     *
+     * @param start The start cell.
+     * @param end The end cell.
+     * @param heuristic Whether to guide the search with the octile distance to {@code end}.
+     * @return The cells of the path, start and end included, or null if {@code end} is unreachable.
+     */
+    protected int[] bestFirstSearch(int start, int end, boolean heuristic) {
+        SearchSpace space = SearchSpace.acquire(grid.getCellCount());
+        startBestFirstSearch(space, start, end, heuristic);
+        return continueBestFirstSearch(space, end, heuristic, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Starts a best-first search from a cell: records the start cell and puts it in the open list.
+     *
+     * @param space The search space, ready for a new search.
+     * @param start The start cell.
+     * @param end The end cell.
+     * @param heuristic Whether to guide the search with the octile distance to {@code end}.
+     */
+    void startBestFirstSearch(SearchSpace space, int start, int end, boolean heuristic) {
+        space.setDistance(start, 0, -1);
+        space.getOpen().push(heuristic ? grid.estimate(start, end) : 0, start);
+    }
+
+    /**
+     * Continues a best-first search started by {@link #startBestFirstSearch}, for at most a number
+     * of node expansions. The search space keeps the state of the search in between, so a search
+     * continued in several slices expands the same nodes as in one go. A Dijkstra search may also
+     * be continued towards another end cell.
+     *
+     * @param space The search space of the search.
+     * @param end The end cell.
+     * @param heuristic Whether to guide the search with the octile distance to {@code end}.
+     * @param limit The maximum number of nodes to expand.
+     * @return The cells of the path, start and end included, null if {@code end} is unreachable,
+     *         or {@link #SUSPENDED} if the limit was reached first.
+     */
+    int[] continueBestFirstSearch(SearchSpace space, int end, boolean heuristic, int limit) {
+        // an end cell closed earlier, by a search continued for another one, is already settled
+        if (space.isClosed(end)) return space.buildPath(end);
+        CellHeap open = space.getOpen();
+        int expanded = 0;
+        while (!open.isEmpty()) {
+            if (expanded == limit) return SUSPENDED;
+            int cell = open.pop();
+            if (!space.close(cell)) continue;
+            countExpandedNode();
+            expanded++;
+            if (cell == end) return space.buildPath(end);
+
+            int distance = space.getDistance(cell);
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0 || space.isClosed(neighbour)) continue;
+
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < space.getDistance(neighbour)) {
+                    space.setDistance(neighbour, candidate, cell);
+                    open.push(candidate + (heuristic ? grid.estimate(neighbour, end) : 0), neighbour);
+                }
+            }
+        }
+        return null;
+    }
+}
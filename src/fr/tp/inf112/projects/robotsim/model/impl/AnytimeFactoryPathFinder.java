@@ -0,0 +1,172 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.TickMetrics;
+
+/**
+ * Implements a path finder for the factory using A* algorithm over the {@link NavigationGrid}
+ * of the factory, within the node expansion budget of the simulation tick.
+ *
+ * <p>
+ * The searches run during a tick share the {@link Factory#getPathExpansionBudget() expansion budget}
+ * of the factory. When it runs out, the search is suspended and the robot finds no path yet, so it
+ * stays in place and asks again on the next tick, where the search resumes from where it stopped.
+ * A suspended search keeps its own {@link SearchSpace}, taken from a pool of spare ones kept in the
+ * navigation cache of the factory, and is started over if the robot asks for other cells or the
+ * layout of the factory changed meanwhile. Searches run by a
+ * {@link fr.tp.inf112.projects.robotsim.model.PathPlanner PathPlanner}, off the tick, and searches
+ * of a factory without budget, run to completion at once.
+ * </p>
+ *
+ * <p>
+ * Under a budget, the routes to points of interest are only walked down the
+ * {@link PointOfInterestTable} when it is up to date, and searched otherwise: the table is
+ * rebuilt in the background after a layout change, instead of during the tick.
+ * </p>
+ *
+ * @author team-24
+ */
+public class AnytimeFactoryPathFinder extends AbstractGridFactoryPathFinder {
+    /** Maximum number of spare search spaces kept per footprint. */
+    private static final int MAX_SPARE_SPACES = 8;
+
+    /**
+     * Search spaces released by completed searches, for the next suspended ones, cached per
+     * footprint in the navigation cache of the factory.
+     */
+    private static final class SpareSpaces {
+        private final Deque<SearchSpace> spaces = new ArrayDeque<>();
+    }
+
+    private SearchSpace space;
+    private int searchStart;
+    private int searchEnd;
+    private long searchLayoutVersion;
+
+    /**
+     * Constructs an AnytimeFactoryPathFinder for a given robot.
+     * The navigation grid adapted to the robot's dimensions is taken from the navigation cache
+     * of the factory, and built only if no robot of the same size needed it before.
+     *
+     * @param robot The robot for which to compute paths.
+     */
+    public AnytimeFactoryPathFinder(Robot robot) {
+        super(robot, robot.getFactory().getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()));
+    }
+
+    /**
+     * Constructs an AnytimeFactoryPathFinder for a given robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to robot.
+     */
+    public AnytimeFactoryPathFinder(Robot robot, NavigationGrid grid) {
+        super(robot, grid);
+    }
+
+    /**
+     * Tells if a search is suspended, waiting for the budget of a next tick.
+     *
+     * @return true if a search is suspended.
+     */
+    public boolean isSearchSuspended() {
+        return space != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] search(int start, int end) {
+        Factory factory = getRobot().getFactory();
+        if (factory.getPathPlanner() != null) {
+            release();
+            return bestFirstSearch(start, end, true);
+        }
+
+        TickMetrics metrics = factory.getTickMetrics();
+        int budget = metrics.getRemainingExpansions();
+        long expanded = getExpandedNodes();
+        if (space != null && (start != searchStart || end != searchEnd || searchLayoutVersion != factory.getLayoutVersion())) {
+            release();
+        }
+        int[] cells;
+        if (space == null && budget == Integer.MAX_VALUE) {
+            cells = bestFirstSearch(start, end, true);
+        } else {
+            if (space == null) {
+                if (budget == 0) {
+                    metrics.countSuspendedSearch();
+                    return SUSPENDED;
+                }
+                space = take(getGrid().getCellCount());
+                searchStart = start;
+                searchEnd = end;
+                searchLayoutVersion = factory.getLayoutVersion();
+                startBestFirstSearch(space, start, end, true);
+            }
+            cells = continueBestFirstSearch(space, end, true, budget);
+            if (cells == SUSPENDED) {
+                metrics.countSuspendedSearch();
+            } else {
+                release();
+            }
+        }
+        metrics.countExpansions((int) (getExpandedNodes() - expanded));
+        return cells;
+    }
+
+    /**
+     * {@inheritDoc} Under a budget, the table is only used if it is up to date; otherwise it is
+     * brought up to date in the background, not during the tick.
+     */
+    @Override
+    protected PointOfInterestTable getRoutingTable() {
+        Factory factory = getRobot().getFactory();
+        if (!isPointOfInterestRouting() || factory.getPathPlanner() != null || factory.getPathExpansionBudget() <= 0) {
+            return super.getRoutingTable();
+        }
+        return PointOfInterestTable.getIfCurrent(factory.getNavigationCache(), getGrid().getRobotWidth(), getGrid().getRobotHeight());
+    }
+
+    /**
+     * Gets the spare search spaces of the footprint.
+     */
+    private SpareSpaces getSpareSpaces() {
+        NavigationCache cache = getRobot().getFactory().getNavigationCache();
+        return cache.get(SpareSpaces.class, getGrid().getRobotWidth(), getGrid().getRobotHeight(), SpareSpaces::new);
+    }
+
+    /**
+     * Takes a spare search space, or a new one if there is none.
+     */
+    private SearchSpace take(int cellCount) {
+        SpareSpaces spares = getSpareSpaces();
+        SearchSpace spare;
+        synchronized (spares) {
+            spare = spares.spaces.poll();
+        }
+        if (spare == null) spare = new SearchSpace();
+        spare.reset(cellCount);
+        return spare;
+    }
+
+    /**
+     * Abandons the suspended search, if any, and gives its search space back to the spare ones,
+     * unless there are enough of them already.
+     */
+    private void release() {
+        if (space == null) return;
+        SpareSpaces spares = getSpareSpaces();
+        synchronized (spares) {
+            if (spares.spaces.size() < MAX_SPARE_SPACES) spares.spaces.push(space);
+        }
+        space = null;
+    }
+}
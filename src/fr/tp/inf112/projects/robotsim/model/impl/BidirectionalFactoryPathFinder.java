@@ -0,0 +1,137 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+
+/**
+ * Implements a path finder for the factory searching the {@link NavigationGrid} from both ends at
+ * once, until the two searches meet in the middle, adapted to the robot's dimensions.
+ *
+ * <p>
+ * Each half is a Dijkstra search, or an A* search guided by the octile distance to the opposite
+ * end, and the half with the smaller open list is expanded first. Every time a cell reached by
+ * one half gets a better distance, its distance from the other half, if any, gives a route through
+ * it; the search stops when no unexpanded cell can give a better one: when the sum of the smallest
+ * keys of both halves reaches the best route for Dijkstra, when either smallest key does for A*.
+ * A cell already expanded by the other half is not expanded again.
+ * </p>
+ *
+ * <p>
+ * On the built-in scenarios, the bidirectional Dijkstra search expands about 1.4 times fewer cells
+ * than the single one; the A* search is already focused enough that searching from both ends does
+ * not pay off on average, and helps only on some of the shorter routes.
+ * </p>
+ *
+ * @author team-24
+ */
+public class BidirectionalFactoryPathFinder extends AbstractGridFactoryPathFinder {
+    private final boolean heuristic;
+
+    /**
+     * Constructs a bidirectional A* path finder for a given robot.
+     * The navigation grid adapted to the robot's dimensions is taken from the navigation cache
+     * of the factory, and built only if no robot of the same size needed it before.
+     *
+     * @param robot The robot for which to compute paths.
+     */
+    public BidirectionalFactoryPathFinder(Robot robot) {
+        this(robot, robot.getFactory().getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()), true);
+    }
+
+    /**
+     * Constructs a BidirectionalFactoryPathFinder for a given robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to robot.
+     * @param heuristic Whether both halves are A* searches rather than Dijkstra searches.
+     */
+    public BidirectionalFactoryPathFinder(Robot robot, NavigationGrid grid, boolean heuristic) {
+        super(robot, grid);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Tells if both halves of the search are A* searches.
+     *
+     * @return true for A*, false for Dijkstra.
+     */
+    public boolean isHeuristic() {
+        return heuristic;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected int[] search(int start, int end) {
+        NavigationGrid grid = getGrid();
+        SearchSpace forward = SearchSpace.acquire(grid.getCellCount());
+        SearchSpace backward = SearchSpace.acquireBackward(grid.getCellCount());
+        forward.setDistance(start, 0, -1);
+        forward.getOpen().push(heuristic ? grid.estimate(start, end) : 0, start);
+        backward.setDistance(end, 0, -1);
+        backward.getOpen().push(heuristic ? grid.estimate(end, start) : 0, end);
+
+        int best = Integer.MAX_VALUE;
+        int meeting = start == end ? start : -1;
+        if (meeting >= 0) best = 0;
+
+        while (!forward.getOpen().isEmpty() && !backward.getOpen().isEmpty()) {
+            if (best != Integer.MAX_VALUE) {
+                int forwardKey = forward.getOpen().peekKey();
+                int backwardKey = backward.getOpen().peekKey();
+                // no route through an unexpanded cell can beat the best one found
+                if (heuristic ? Math.max(forwardKey, backwardKey) >= best : forwardKey + backwardKey >= best) break;
+            }
+
+            boolean fromStart = forward.getOpen().size() <= backward.getOpen().size();
+            SearchSpace space = fromStart ? forward : backward;
+            SearchSpace other = fromStart ? backward : forward;
+            int goal = fromStart ? end : start;
+
+            int cell = space.getOpen().pop();
+            // a cell expanded from the other end has its routes through it known already
+            if (!space.close(cell) || other.isClosed(cell)) continue;
+            countExpandedNode();
+
+            int distance = space.getDistance(cell);
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0 || space.isClosed(neighbour)) continue;
+
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < space.getDistance(neighbour)) {
+                    space.setDistance(neighbour, candidate, cell);
+                    space.getOpen().push(candidate + (heuristic ? grid.estimate(neighbour, goal) : 0), neighbour);
+
+                    int rest = other.getDistance(neighbour);
+                    if (rest != Integer.MAX_VALUE && candidate + rest < best) {
+                        best = candidate + rest;
+                        meeting = neighbour;
+                    }
+                }
+            }
+        }
+        return meeting < 0 ? null : buildPath(forward, backward, meeting);
+    }
+
+    /**
+     * Joins the route from the start cell to the meeting cell, found by the forward search, and the
+     * route from the meeting cell to the end cell, found by the backward one.
+     */
+    private static int[] buildPath(SearchSpace forward, SearchSpace backward, int meeting) {
+        int[] head = forward.buildPath(meeting);
+        int length = head.length;
+        for (int cell = meeting; backward.getParent(cell) >= 0; cell = backward.getParent(cell)) {
+            length++;
+        }
+        int[] cells = Arrays.copyOf(head, length);
+        for (int cell = meeting, i = head.length; i < length; i++) {
+            cell = backward.getParent(cell);
+            cells[i] = cell;
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,91 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cells ordered by an integer key, stored in two parallel {@code int} arrays.
+ * A cell may be pushed several times with decreasing keys; the outdated entries are skipped by the
+ * caller when they are popped (lazy deletion). The arrays only grow, so a heap reused across
+ * searches stops allocating once it reached its working size.
+ *
+ * @author team-24
+ */
+final class CellHeap {
+    private int[] keys;
+    private int[] cells;
+    private int size;
+    private int topKey;
+
+    /**
+     * Constructs an empty heap.
+     *
+     * @param capacity The initial capacity.
+     */
+    CellHeap(int capacity) {
+        keys = new int[Math.max(16, capacity)];
+        cells = new int[keys.length];
+    }
+
+    /** @return true if the heap has no entry. */
+    boolean isEmpty() { return size == 0; }
+
+    /** @return The number of entries, outdated ones included. */
+    int size() { return size; }
+
+    /** @return The smallest key of the heap, which must not be empty. */
+    int peekKey() { return keys[0]; }
+
+    /** Removes every entry. */
+    void clear() { size = 0; }
+
+    /**
+     * Adds an entry.
+     *
+     * @param key The key of the entry.
+     * @param cell The cell of the entry.
+     */
+    void push(int key, int cell) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            cells = Arrays.copyOf(cells, size * 2);
+        }
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            keys[index] = keys[parent];
+            cells[index] = cells[parent];
+            index = parent;
+        }
+        keys[index] = key;
+        cells[index] = cell;
+    }
+
+    /**
+     * Removes the entry of smallest key; its key is then given by {@link #lastKey()}.
+     *
+     * @return The cell of the removed entry.
+     */
+    int pop() {
+        int cell = cells[0];
+        topKey = keys[0];
+        int key = keys[--size];
+        int moved = cells[size];
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && keys[child + 1] < keys[child]) child++;
+            if (key <= keys[child]) break;
+            keys[index] = keys[child];
+            cells[index] = cells[child];
+            index = child;
+        }
+        keys[index] = key;
+        cells[index] = moved;
+        return cell;
+    }
+
+    /** @return The key of the entry removed by the last {@link #pop()}. */
+    int lastKey() { return topKey; }
+}
@@ -0,0 +1,297 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.ChargingStation;
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+
+/**
+ * Partition of a {@link NavigationGrid} into the catchment regions of the charging stations of a
+ * factory (a Voronoi diagram under path distance): each cell belongs to the station whose visit
+ * position is the closest by path, and knows its distance to it.
+ *
+ * <p>
+ * The partition is computed by a multi-source Dijkstra search from all the stations at once, so the
+ * nearest reachable station and its distance are then read in constant time from any cell. When
+ * stations are added, a search from their visit positions only takes over the cells they are closer
+ * to; when a station is removed, its region is searched again from the surrounding regions. An
+ * update works on a copy of the regions, which the partition switches to at once, so that it can
+ * still be read meanwhile. Layout changes discard the partition, as for the other cached structures.
+ * </p>
+ *
+ * @author team-24
+ */
+public class ChargingStationPartition {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(ChargingStationPartition.class.getName());
+
+    /** Distance of the cells from which no station can be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Factory factory;
+    private final NavigationGrid grid;
+    /** Serializes the updates, which work on the fields below. */
+    private final Object updating = new Object();
+    /** Charging stations version of the regions read. */
+    private volatile long version;
+    /** Stations of the partition, null for the slots of removed stations. */
+    private ChargingStation[] stations;
+    /** Visit cell of each station. */
+    private int[] stationCells;
+    /** Index of the station owning each cell, -1 for the cells from which none can be reached. */
+    private short[] owners;
+    /** Distance of each cell to its station. */
+    private int[] distances;
+    /** Regions read, as of the last update. */
+    private volatile Regions regions;
+
+    /**
+     * Regions of the stations as of an update, never changed afterwards.
+     */
+    private static final class Regions {
+        private final ChargingStation[] stations;
+        private final short[] owners;
+        private final int[] distances;
+
+        Regions(ChargingStation[] stations, short[] owners, int[] distances) {
+            this.stations = stations;
+            this.owners = owners;
+            this.distances = distances;
+        }
+    }
+
+    /**
+     * Computes the partition of a navigation grid between the charging stations of a factory.
+     *
+     * @param factory The factory, whose charging stations are the sites of the partition.
+     * @param grid The navigation grid of the factory for the robot footprint.
+     */
+    public ChargingStationPartition(Factory factory, NavigationGrid grid) {
+        this.factory = factory;
+        this.grid = grid;
+        this.version = -1;
+        this.stations = new ChargingStation[0];
+        this.stationCells = new int[0];
+        this.owners = new short[grid.getCellCount()];
+        this.distances = new int[grid.getCellCount()];
+        Arrays.fill(owners, (short) -1);
+        Arrays.fill(distances, UNREACHABLE);
+        update();
+    }
+
+    /**
+     * Gets the partition of a footprint from the navigation cache, computing it if needed and
+     * bringing it up to date with the charging stations of the factory.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The cached partition.
+     */
+    public static ChargingStationPartition get(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        ChargingStationPartition partition = cache.get(ChargingStationPartition.class, robotWidth, robotHeight,
+                                                       () -> new ChargingStationPartition(cache.getFactory(), grid));
+        partition.update();
+        return partition;
+    }
+
+    /**
+     * Gets the partition of a footprint from the navigation cache if it is computed and up to date
+     * with the charging stations of the factory, without searching any cell. A partition missing
+     * from the cache is computed in the background, and a partition out of date is brought up to
+     * date in the background.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The cached partition, or null if it is not computed yet or out of date.
+     * @see NavigationCache#getIfBuilt(Class, int, int, java.util.function.Supplier)
+     */
+    public static ChargingStationPartition getIfBuilt(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        ChargingStationPartition partition = cache.getIfBuilt(ChargingStationPartition.class, robotWidth, robotHeight,
+                                                              () -> new ChargingStationPartition(cache.getFactory(), grid));
+        if (partition == null) return null;
+        if (partition.isCurrent()) return partition;
+        cache.runInBackground(ChargingStationPartition.class, robotWidth, robotHeight, partition::update);
+        return null;
+    }
+
+    /**
+     * Tells if the partition is up to date with the charging stations of the factory.
+     *
+     * @return true if no point of interest changed since the last update.
+     */
+    public boolean isCurrent() {
+        return version == factory.getPointsOfInterestVersion();
+    }
+
+    /**
+     * Brings the partition up to date with the charging stations of the factory: the regions of
+     * the stations removed or whose visit position changed are given to their neighbours, then
+     * the new stations take over the cells they are closer to.
+     */
+    public void update() {
+        synchronized (updating) {
+            long current = factory.getPointsOfInterestVersion();
+            if (current != version) update(current);
+        }
+    }
+
+    /**
+     * Updates a copy of the regions to the stations of a version, then switches the partition to it.
+     */
+    private void update(long current) {
+        stations = stations.clone();
+        owners = owners.clone();
+        distances = distances.clone();
+        ChargingStation[] present = new ChargingStation[0];
+        for (Component component : factory.getComponents()) {
+            if (component instanceof ChargingStation && component.getVisit() != null
+                && grid.cellId(component.getxVisit(), component.getyVisit()) >= 0) {
+                present = Arrays.copyOf(present, present.length + 1);
+                present[present.length - 1] = (ChargingStation) component;
+            }
+        }
+
+        int removed = 0;
+        for (int i = 0; i < stations.length; i++) {
+            if (stations[i] != null && (indexOf(present, stations[i]) < 0 || cellOf(stations[i]) != stationCells[i])) {
+                remove(i);
+                removed++;
+            }
+        }
+        // the new stations are searched from all at once
+        CellHeap open = new CellHeap(1024);
+        int added = 0;
+        for (ChargingStation station : present) {
+            if (indexOf(stations, station) < 0) {
+                add(station, open);
+                added++;
+            }
+        }
+        propagate(open);
+        regions = new Regions(stations, owners, distances);
+        version = current;
+        LOGGER.info("Charging station partition of " + grid + " updated: " + added + " stations added, " + removed + " removed.");
+    }
+
+    private static int indexOf(ChargingStation[] stations, ChargingStation station) {
+        for (int i = 0; i < stations.length; i++) {
+            if (stations[i] == station) return i;
+        }
+        return -1;
+    }
+
+    private int cellOf(ChargingStation station) {
+        return grid.cellId(station.getxVisit(), station.getyVisit());
+    }
+
+    /**
+     * Adds a station in a free slot, and its visit cell to the open list of the search that will
+     * let it take over the cells it is closer to.
+     */
+    private void add(ChargingStation station, CellHeap open) {
+        int index = indexOf(stations, null);
+        if (index < 0) {
+            index = stations.length;
+            stations = Arrays.copyOf(stations, index + 1);
+            stationCells = Arrays.copyOf(stationCells, index + 1);
+        }
+        stations[index] = station;
+        stationCells[index] = cellOf(station);
+        if (distances[stationCells[index]] > 0) {
+            distances[stationCells[index]] = 0;
+            owners[stationCells[index]] = (short) index;
+            open.push(0, stationCells[index]);
+        }
+    }
+
+    /**
+     * Removes a station and gives its region to the surrounding regions.
+     */
+    private void remove(int index) {
+        stations[index] = null;
+        CellHeap open = new CellHeap(1024);
+        for (int cell = 0; cell < owners.length; cell++) {
+            if (owners[cell] != index) continue;
+            owners[cell] = -1;
+            distances[cell] = UNREACHABLE;
+        }
+        // the cells of other regions bordering the freed cells start the search again
+        for (int cell = 0; cell < owners.length; cell++) {
+            if (owners[cell] < 0) continue;
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour >= 0 && owners[neighbour] < 0 && distances[neighbour] == UNREACHABLE) {
+                    open.push(distances[cell], cell);
+                    break;
+                }
+            }
+        }
+        propagate(open);
+    }
+
+    /**
+     * Runs the Dijkstra search from the cells in the open list, each cell keeping the region of
+     * the cell it is reached from when it gets closer.
+     */
+    private void propagate(CellHeap open) {
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            int distance = open.lastKey();
+            if (distance > distances[cell]) continue;
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0) continue;
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < distances[neighbour]) {
+                    distances[neighbour] = candidate;
+                    owners[neighbour] = owners[cell];
+                    open.push(candidate, neighbour);
+                }
+            }
+        }
+    }
+
+    /** @return The navigation grid the partition is computed on. */
+    public NavigationGrid getGrid() { return grid; }
+
+    /**
+     * Gets the nearest charging station by path from a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The nearest reachable station, or null if none can be reached.
+     */
+    public ChargingStation getStation(int cell) {
+        Regions regions = this.regions;
+        int owner = regions.owners[cell];
+        return owner < 0 ? null : regions.stations[owner];
+    }
+
+    /**
+     * Gets the nearest charging station by path from a position.
+     *
+     * @param x X-coordinate of the position.
+     * @param y Y-coordinate of the position.
+     * @return The nearest reachable station, or null if none can be reached or the position lies
+     *         outside the factory.
+     */
+    public ChargingStation getStation(int x, int y) {
+        int cell = grid.cellId(x, y);
+        return cell < 0 ? null : getStation(cell);
+    }
+
+    /**
+     * Gets the path distance from a cell to its nearest charging station.
+     *
+     * @param cell The cell identifier.
+     * @return The distance in move weight units, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(int cell) {
+        return regions.distances[cell];
+    }
+}
@@ -0,0 +1,166 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+
+/**
+ * Coarse grid laid over the {@link NavigationGrid} of a footprint, for planning several robots
+ * together: square cells at least as large as the robots, so that robots in different cells
+ * never overlap, each one linked to its four neighbours when a robot can drive straight from its
+ * center to theirs.
+ *
+ * <p>
+ * The cells are numbered row by row from the origin, whatever the footprint, so that the coarse
+ * grids of several footprints over the same area share their cell identifiers.
+ * </p>
+ *
+ * @author team-24
+ */
+public class CoarseGrid {
+    /** Number of neighbours of a cell. */
+    public static final int DIRECTIONS = 4;
+
+    private static final int[] DX = {1, 0, -1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    private final int originX;
+    private final int originY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    /** Neighbour of each cell in each direction, -1 if there is no link. */
+    private final int[] links;
+    private final boolean[] walkable;
+
+    /**
+     * Builds the coarse grid of a footprint over an area: the full cells of the area whose center
+     * is walkable on the navigation grid of the footprint.
+     *
+     * @param grid The navigation grid of the footprint.
+     * @param originX X-coordinate of the top left corner of the area.
+     * @param originY Y-coordinate of the top left corner of the area.
+     * @param width Width of the area.
+     * @param height Height of the area.
+     * @param cellSize Side of the cells, in pixels.
+     */
+    public CoarseGrid(NavigationGrid grid, int originX, int originY, int width, int height, int cellSize) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = cellSize;
+        this.columns = Math.max(0, width / cellSize);
+        this.rows = Math.max(0, height / cellSize);
+        this.walkable = new boolean[columns * rows];
+        this.links = new int[DIRECTIONS * columns * rows];
+
+        for (int cell = 0; cell < walkable.length; cell++) {
+            walkable[cell] = grid.isWalkable(getCenterX(cell), getCenterY(cell));
+        }
+        Arrays.fill(links, -1);
+        for (int cell = 0; cell < walkable.length; cell++) {
+            if (!walkable[cell]) continue;
+            int from = grid.cellId(getCenterX(cell), getCenterY(cell));
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int column = cell % columns + DX[direction], row = cell / columns + DY[direction];
+                if (column < 0 || column >= columns || row < 0 || row >= rows) continue;
+                int neighbour = row * columns + column;
+                if (walkable[neighbour] && grid.isVisible(from, grid.cellId(getCenterX(neighbour), getCenterY(neighbour)))) {
+                    links[DIRECTIONS * cell + direction] = neighbour;
+                }
+            }
+        }
+    }
+
+    /** @return The side of the cells, in pixels. */
+    public int getCellSize() { return cellSize; }
+
+    /** @return The number of columns of cells. */
+    public int getColumns() { return columns; }
+
+    /** @return The number of rows of cells. */
+    public int getRows() { return rows; }
+
+    /** @return The number of cells. */
+    public int getCellCount() { return columns * rows; }
+
+    /**
+     * Tells if the center of a cell is walkable for the footprint.
+     *
+     * @param cell The cell identifier.
+     * @return {@code true} if the cell is walkable.
+     */
+    public boolean isWalkable(int cell) {
+        return walkable[cell];
+    }
+
+    /**
+     * Gets the factory X-coordinate of the center of a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The X-coordinate of the center.
+     */
+    public int getCenterX(int cell) {
+        return originX + (cell % columns) * cellSize + cellSize / 2;
+    }
+
+    /**
+     * Gets the factory Y-coordinate of the center of a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The Y-coordinate of the center.
+     */
+    public int getCenterY(int cell) {
+        return originY + (cell / columns) * cellSize + cellSize / 2;
+    }
+
+    /**
+     * Gets the cell containing the given factory coordinates.
+     *
+     * @param x X-coordinate in the factory.
+     * @param y Y-coordinate in the factory.
+     * @return The cell identifier, or -1 if the coordinates are outside the grid.
+     */
+    public int cellAt(int x, int y) {
+        int column = Math.floorDiv(x - originX, cellSize), row = Math.floorDiv(y - originY, cellSize);
+        if (column < 0 || column >= columns || row < 0 || row >= rows) return -1;
+        return row * columns + column;
+    }
+
+    /**
+     * Gets the neighbour of a cell in a direction.
+     *
+     * @param cell The cell identifier.
+     * @param direction The direction, from 0 to {@link #DIRECTIONS} - 1.
+     * @return The neighbour, or -1 if the robot cannot drive there.
+     */
+    public int move(int cell, int direction) {
+        return links[DIRECTIONS * cell + direction];
+    }
+
+    /**
+     * Computes the number of moves from every cell to a cell, by a breadth-first search from it
+     * (the links go both ways).
+     *
+     * @param cell The cell identifier.
+     * @return The distances, {@link Integer#MAX_VALUE} for the cells that cannot reach it.
+     */
+    public int[] distancesTo(int cell) {
+        int[] distances = new int[getCellCount()];
+        Arrays.fill(distances, Integer.MAX_VALUE);
+        int[] queue = new int[distances.length];
+        int head = 0, tail = 0;
+        distances[cell] = 0;
+        queue[tail++] = cell;
+        while (head < tail) {
+            int current = queue[head++];
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                int neighbour = move(current, direction);
+                if (neighbour >= 0 && distances[neighbour] == Integer.MAX_VALUE) {
+                    distances[neighbour] = distances[current] + 1;
+                    queue[tail++] = neighbour;
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,140 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+
+/**
+ * Flow field of a destination cell over a {@link NavigationGrid}: for every cell, the direction of
+ * the next step of a shortest route to the destination.
+ *
+ * <p>
+ * The field is computed once by a Dijkstra search from the destination over the whole grid; moves
+ * being symmetric on the grid, the parent of each cell in that search is its next step towards the
+ * destination. Any robot of the footprint then follows the field from wherever it stands, without
+ * a search of its own. Directions take one byte per cell. A field is immutable once built and can
+ * be shared between threads.
+ * </p>
+ *
+ * @author team-24
+ */
+public class FlowField {
+    /** Distance of the cells from which the destination cannot be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** Direction of the cells from which the destination cannot be reached. */
+    private static final byte NONE = -1;
+    /** Opposite of each {@link NavigationGrid} direction. */
+    private static final byte[] OPPOSITE = new byte[NavigationGrid.DIRECTIONS];
+
+    static {
+        for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+            for (int other = 0; other < NavigationGrid.DIRECTIONS; other++) {
+                if (NavigationGrid.getDirectionX(other) == -NavigationGrid.getDirectionX(direction)
+                    && NavigationGrid.getDirectionY(other) == -NavigationGrid.getDirectionY(direction)) {
+                    OPPOSITE[direction] = (byte) other;
+                }
+            }
+        }
+    }
+
+    private final NavigationGrid grid;
+    private final int target;
+    private final byte[] directions;
+
+    /**
+     * Computes the flow field of a destination.
+     *
+     * @param grid The navigation grid.
+     * @param target The destination cell.
+     */
+    public FlowField(NavigationGrid grid, int target) {
+        this.grid = grid;
+        this.target = target;
+        this.directions = new byte[grid.getCellCount()];
+        Arrays.fill(directions, NONE);
+
+        SearchSpace space = SearchSpace.acquire(grid.getCellCount());
+        CellHeap open = space.getOpen();
+        space.setDistance(target, 0, -1);
+        open.push(0, target);
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (!space.close(cell)) continue;
+            int distance = space.getDistance(cell);
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0 || space.isClosed(neighbour)) continue;
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < space.getDistance(neighbour)) {
+                    space.setDistance(neighbour, candidate, cell);
+                    directions[neighbour] = OPPOSITE[direction];
+                    open.push(candidate, neighbour);
+                }
+            }
+        }
+    }
+
+    /** @return The navigation grid the field is computed on. */
+    public NavigationGrid getGrid() { return grid; }
+
+    /** @return The destination cell. */
+    public int getTarget() { return target; }
+
+    /**
+     * Tells if the destination can be reached from a cell.
+     *
+     * @param cell The cell identifier.
+     * @return true if a route exists.
+     */
+    public boolean reaches(int cell) {
+        return cell == target || directions[cell] != NONE;
+    }
+
+    /**
+     * Gets the next step from a cell towards the destination.
+     *
+     * @param cell The cell identifier.
+     * @return The next cell, or -1 if {@code cell} is the destination or cannot reach it.
+     */
+    public int next(int cell) {
+        int direction = directions[cell];
+        if (direction == NONE) return -1;
+        return cell + NavigationGrid.getDirectionY(direction) * grid.getWidth() + NavigationGrid.getDirectionX(direction);
+    }
+
+    /**
+     * Computes the length of the route from a cell to the destination, by following the field.
+     *
+     * @param cell The cell to start from.
+     * @return The distance in move weight units, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(int cell) {
+        if (!reaches(cell)) return UNREACHABLE;
+        int distance = 0;
+        while (cell != target) {
+            distance += NavigationGrid.getWeight(directions[cell]);
+            cell = next(cell);
+        }
+        return distance;
+    }
+
+    /**
+     * Computes the route from a cell to the destination, by following the field.
+     *
+     * @param from The cell to start from.
+     * @return The cells of the route, start and end included, or null if the destination is unreachable.
+     */
+    public int[] route(int from) {
+        if (!reaches(from)) return null;
+        int length = 1;
+        for (int cell = from; cell != target; cell = next(cell)) {
+            length++;
+        }
+        int[] route = new int[length];
+        for (int cell = from, i = 0; i < length; cell = next(cell), i++) {
+            route[i] = cell;
+        }
+        return route;
+    }
+}
@@ -0,0 +1,88 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+
+/**
+ * Bounded cache of the {@link FlowField}s of a robot footprint, keyed by destination cell, with
+ * least-recently-used eviction. A field takes one byte per cell of the grid, so only the fields of
+ * the most popular destinations are kept.
+ *
+ * <p>
+ * The cache of a footprint is held by the {@link NavigationCache} of the factory and discarded on
+ * layout changes, as the other structures derived from the grid.
+ * </p>
+ *
+ * @author team-24
+ */
+public class FlowFieldCache {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(FlowFieldCache.class.getName());
+
+    /** Default maximum number of fields per footprint. */
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final NavigationGrid grid;
+    private final Map<Integer, FlowField> fields;
+    private int builds;
+
+    /**
+     * Constructs an empty flow field cache.
+     *
+     * @param grid The navigation grid of the footprint.
+     * @param capacity The maximum number of fields kept.
+     */
+    public FlowFieldCache(NavigationGrid grid, int capacity) {
+        this.grid = grid;
+        this.fields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Gets the flow field cache of a footprint from the navigation cache of a factory.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The flow field cache, created empty if needed.
+     */
+    public static FlowFieldCache get(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        return cache.get(FlowFieldCache.class, robotWidth, robotHeight, () -> new FlowFieldCache(grid, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Gets the flow field of a destination, computing it if needed. Concurrent requests for a
+     * field being computed wait for it.
+     *
+     * @param target The destination cell.
+     * @return The flow field towards {@code target}.
+     */
+    public synchronized FlowField getField(int target) {
+        FlowField field = fields.get(target);
+        if (field == null) {
+            LOGGER.fine("Computing flow field of cell " + target + " on " + grid + ".");
+            field = new FlowField(grid, target);
+            fields.put(target, field);
+            builds++;
+        }
+        return field;
+    }
+
+    /** @return The navigation grid of the footprint. */
+    public NavigationGrid getGrid() { return grid; }
+
+    /** @return The number of cached fields. */
+    public synchronized int size() { return fields.size(); }
+
+    /** @return The number of fields computed so far. */
+    public synchronized int getBuildCount() { return builds; }
+}
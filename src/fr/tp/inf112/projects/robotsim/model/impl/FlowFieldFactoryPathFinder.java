@@ -0,0 +1,59 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+
+/**
+ * Implements a path finder for the factory following the {@link FlowField} of the destination,
+ * adapted to the robot's dimensions.
+ *
+ * <p>
+ * The field of a destination is computed once, by a single Dijkstra search over the whole grid,
+ * and shared through the {@link FlowFieldCache} of the footprint with every robot heading there:
+ * each of them then follows it from wherever it stands without any search. This pays off when
+ * many robots go to the same few destinations; a field costs more than one A* search.
+ * </p>
+ *
+ * @author team-24
+ */
+public class FlowFieldFactoryPathFinder extends AbstractGridFactoryPathFinder {
+    /**
+     * Constructs a FlowFieldFactoryPathFinder for a given robot.
+     * The navigation grid adapted to the robot's dimensions is taken from the navigation cache
+     * of the factory, and built only if no robot of the same size needed it before.
+     *
+     * @param robot The robot for which to compute paths.
+     */
+    public FlowFieldFactoryPathFinder(Robot robot) {
+        super(robot, robot.getFactory().getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()));
+    }
+
+    /**
+     * Constructs a FlowFieldFactoryPathFinder for a given robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to robot.
+     */
+    public FlowFieldFactoryPathFinder(Robot robot, NavigationGrid grid) {
+        super(robot, grid);
+    }
+
+    /**
+     * Gets the flow field cache of the robot footprint from the navigation cache of the factory.
+     *
+     * @return The flow field cache.
+     */
+    public FlowFieldCache getFlowFields() {
+        return FlowFieldCache.get(getRobot().getFactory().getNavigationCache(),
+                                  getGrid().getRobotWidth(), getGrid().getRobotHeight());
+    }
+
+    /**
+     * {@inheritDoc}
+     * The route is read from the flow field of {@code end}, computed if no robot needed it before.
+     */
+    @Override
+    protected int[] search(int start, int end) {
+        return getFlowFields().getField(end).route(start);
+    }
+}
@@ -0,0 +1,193 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+
+/**
+ * Implements a hierarchical path finder (HPA*) for the factory, planning over the rooms and doors
+ * of the factory before the cells of its {@link NavigationGrid}.
+ *
+ * <p>
+ * When the start and the target lie in different regions (rooms, or the outside of the rooms), the
+ * path is first planned on the {@link RoomDoorGraph}: a search over the doors only, whose distances
+ * come from the precomputed distance fields. The resulting {@link HierarchicalPath} only holds the
+ * cells up to the first door; the next segments are refined when the robot gets there. When both
+ * lie in the same region, or no route through the doors exists, a plain A* search is run.
+ * </p>
+ *
+ * <p>
+ * Paths go through the center of the doorways, and each segment stays inside its region, so they
+ * may be slightly longer than the ones of {@link AStarGraphFactoryPathFinder}.
+ * </p>
+ *
+ * @author team-24
+ */
+public class HierarchicalFactoryPathFinder extends AbstractGridFactoryPathFinder {
+    /**
+     * Constructs a HierarchicalFactoryPathFinder for a given robot.
+     * The navigation grid adapted to the robot's dimensions is taken from the navigation cache
+     * of the factory, and built only if no robot of the same size needed it before.
+     *
+     * @param robot The robot for which to compute paths.
+     */
+    public HierarchicalFactoryPathFinder(Robot robot) {
+        super(robot, robot.getFactory().getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()));
+    }
+
+    /**
+     * Constructs a HierarchicalFactoryPathFinder for a given robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to robot.
+     */
+    public HierarchicalFactoryPathFinder(Robot robot, NavigationGrid grid) {
+        super(robot, grid);
+    }
+
+    /**
+     * Gets the room and door graph of the robot footprint from the navigation cache of the factory.
+     * The graph is rebuilt after each layout change.
+     *
+     * @return The room and door graph.
+     */
+    public RoomDoorGraph getDoorGraph() {
+        return RoomDoorGraph.get(getRobot().getFactory().getNavigationCache(),
+                                 getGrid().getRobotWidth(), getGrid().getRobotHeight());
+    }
+
+    /**
+     * Plans the sequence of doors between two cells of different regions, with Dijkstra's
+     * algorithm over the doors.
+     *
+     * @param graph The room and door graph.
+     * @param start The start cell.
+     * @param end The end cell.
+     * @return The segments of the path, as {from cell, door, side, reversed}, or null if both
+     *         cells lie in the same region or no route through the doors exists.
+     */
+    private int[][] plan(RoomDoorGraph graph, int start, int end) {
+        int startRegion = graph.getRegion(start);
+        int endRegion = graph.getRegion(end);
+        if (startRegion == endRegion) return null;
+
+        int doorCount = graph.getDoorCount();
+        int source = doorCount;
+        int goal = doorCount + 1;
+        int[] distances = new int[doorCount + 2];
+        int[] parents = new int[doorCount + 2];
+        boolean[] closed = new boolean[doorCount + 2];
+        Arrays.fill(distances, RoomDoorGraph.UNREACHABLE);
+        Arrays.fill(parents, -1);
+        distances[source] = 0;
+
+        // the abstract graph has a handful of nodes: a linear scan replaces the priority queue
+        while (true) {
+            int node = -1;
+            for (int i = 0; i < distances.length; i++) {
+                if (!closed[i] && distances[i] != RoomDoorGraph.UNREACHABLE && (node < 0 || distances[i] < distances[node])) {
+                    node = i;
+                }
+            }
+            if (node < 0) return null;
+            closed[node] = true;
+            countExpandedNode();
+            if (node == goal) break;
+
+            if (node == source) {
+                for (int door = 0; door < doorCount; door++) {
+                    int side = graph.getSide(door, startRegion);
+                    if (side >= 0) relax(distances, parents, source, door, graph.getDistance(door, side, start));
+                }
+            } else {
+                for (int door = 0; door < doorCount; door++) {
+                    if (door != node) relax(distances, parents, node, door, graph.getDoorDistance(node, door));
+                }
+                int side = graph.getSide(node, endRegion);
+                if (side >= 0) relax(distances, parents, node, goal, graph.getDistance(node, side, end));
+            }
+        }
+
+        int doors = 0;
+        for (int node = parents[goal]; node != source; node = parents[node]) {
+            doors++;
+        }
+        int[] sequence = new int[doors];
+        for (int node = parents[goal], i = doors - 1; node != source; node = parents[node], i--) {
+            sequence[i] = node;
+        }
+
+        int[][] segments = new int[doors + 1][];
+        segments[0] = new int[] {start, sequence[0], graph.getSide(sequence[0], startRegion), 0};
+        for (int i = 1; i < doors; i++) {
+            segments[i] = new int[] {graph.getDoorCell(sequence[i - 1]), sequence[i],
+                                     graph.getDoorSide(sequence[i - 1], sequence[i]), 0};
+        }
+        segments[doors] = new int[] {end, sequence[doors - 1], graph.getSide(sequence[doors - 1], endRegion), 1};
+        return segments;
+    }
+
+    /**
+     * Relaxes an edge of the abstract graph.
+     */
+    private static void relax(int[] distances, int[] parents, int from, int to, int weight) {
+        if (weight == RoomDoorGraph.UNREACHABLE) return;
+        int candidate = distances[from] + weight;
+        if (candidate < distances[to]) {
+            distances[to] = candidate;
+            parents[to] = from;
+        }
+    }
+
+    /**
+     * Finds a path from a given position to the target visitable. Across regions, only the first
+     * segment of the returned {@link HierarchicalPath} is refined.
+     *
+     * @param from The position to start from.
+     * @param target The target visitable to reach.
+     * @return A {@link Path} object representing the path, or null if target is null.
+     */
+    @Override
+    public Path findPath(Position from, Visitable target) {
+        if (target == null) return null;
+        NavigationGrid grid = getGrid();
+        int start = grid.cellId(from.getxCoordinate(), from.getyCoordinate());
+        int end = grid.cellId(target.getxVisit(), target.getyVisit());
+        if (start < 0 || end < 0) return new Path((int[]) null, target);
+
+        RoomDoorGraph graph = getDoorGraph();
+        int[][] segments = plan(graph, start, end);
+        if (segments != null) {
+            int[] first = HierarchicalPath.refine(graph, segments[0]);
+            if (first != null) return new HierarchicalPath(graph, first, segments, target);
+        }
+        int[] cells = bestFirstSearch(start, end, true);
+        return new Path(cells != null ? grid.toWaypoints(cells) : null, target);
+    }
+
+    /**
+     * {@inheritDoc}
+     * All the segments are refined at once.
+     */
+    @Override
+    protected int[] search(int start, int end) {
+        RoomDoorGraph graph = getDoorGraph();
+        int[][] segments = plan(graph, start, end);
+        if (segments != null) {
+            int[] cells = new int[] {start};
+            for (int[] segment : segments) {
+                int[] part = HierarchicalPath.refine(graph, segment);
+                if (part == null) return bestFirstSearch(start, end, true);
+                int length = cells.length;
+                cells = Arrays.copyOf(cells, length + part.length - 1);
+                System.arraycopy(part, 1, cells, length, part.length - 1);
+            }
+            return cells;
+        }
+        return bestFirstSearch(start, end, true);
+    }
+}
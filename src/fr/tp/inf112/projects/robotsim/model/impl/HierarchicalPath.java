@@ -0,0 +1,90 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+
+/**
+ * Path planned through a sequence of doors by the {@link HierarchicalFactoryPathFinder}, whose
+ * segments between two doors are refined lazily, when the robot reaches the end of the
+ * previous one, and compressed into waypoints separately.
+ *
+ * @author team-24
+ */
+public class HierarchicalPath extends Path {
+    private final RoomDoorGraph graph;
+    /** Segments {from cell, door, side, reversed}, reversed ones being walked from the door. */
+    private final int[][] segments;
+    private int nextSegment;
+
+    /**
+     * Constructs a hierarchical path whose first segment is already refined.
+     *
+     * @param graph The room and door graph the path was planned on.
+     * @param firstCells The cells of the first segment.
+     * @param segments The segments of the path, as {from cell, door, side, reversed}.
+     * @param target The visitable target the path is leading to.
+     */
+    public HierarchicalPath(RoomDoorGraph graph, int[] firstCells, int[][] segments, Visitable target) {
+        super(graph.getGrid().toWaypoints(firstCells), target);
+        this.graph = graph;
+        this.segments = segments;
+        this.nextSegment = 1;
+    }
+
+    /**
+     * Computes the cells of a segment.
+     *
+     * @param graph The room and door graph the path was planned on.
+     * @param segment The segment, as {from cell, door, side, reversed}.
+     * @return The cells, from the start to the end of the segment, or null if it cannot be refined.
+     */
+    static int[] refine(RoomDoorGraph graph, int[] segment) {
+        int[] cells = graph.descend(segment[1], segment[2], segment[0]);
+        if (cells != null && segment[3] == 1) {
+            for (int i = 0, j = cells.length - 1; i < j; i++, j--) {
+                int cell = cells[i];
+                cells[i] = cells[j];
+                cells[j] = cell;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Tells if segments remain to be refined.
+     *
+     * @return true if the path is not fully refined yet.
+     */
+    public boolean isRefining() {
+        return nextSegment < segments.length;
+    }
+
+    /**
+     * Appends the waypoints of the next segment to the path.
+     * If the grid changed meanwhile and the segment cannot be refined, the path is invalidated.
+     */
+    @Override
+    protected boolean refine() {
+        if (!isRefining() || !isValid()) return false;
+        int[] cells = refine(graph, segments[nextSegment++]);
+        if (cells == null) {
+            invalidate();
+            return false;
+        }
+        int[] waypoints = graph.getGrid().toWaypoints(cells);
+        // the first waypoint of a segment is the last one of the previous segment
+        for (int i = 2; i < waypoints.length; i += 2) {
+            append(waypoints[i], waypoints[i + 1]);
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the path goes through an area. While segments remain to be refined, the path
+     * is considered to cross any area, since the distance fields they rely on may be outdated.
+     */
+    @Override
+    public boolean crosses(int left, int top, int right, int bottom) {
+        return isRefining() || super.crosses(left, top, right, bottom);
+    }
+}
@@ -0,0 +1,218 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+
+/**
+ * Implements a path finder for the factory using Jump Point Search over the {@link NavigationGrid}
+ * of the factory, adapted to the robot's dimensions.
+ *
+ * <p>
+ * On a uniform-cost 8-connected grid, many shortest paths are symmetric and A* expands all of them.
+ * Jump Point Search only expands the cells where a path may have to turn (jump points): from each
+ * expanded cell, it scans straight and diagonal lines until it meets an obstacle, the target or a
+ * cell with a forced neighbour. The cells skipped between two jump points are filled in when the
+ * path is rebuilt, so the resulting path has one position per cell as with the other finders.
+ * </p>
+ *
+ * <p>
+ * Only walkable cells are crossed, apart from the start and target cells. Unlike
+ * {@link AStarGraphFactoryPathFinder}, this finder never slips through a single blocked cell
+ * between two walkable ones, so its paths may be slightly longer where A* would do so.
+ * </p>
+ *
+ * @author team-24
+ */
+public class JumpPointSearchFactoryPathFinder extends AbstractGridFactoryPathFinder {
+    /** Index of each direction in the {@link NavigationGrid} directions, by (dy + 1) * 3 + dx + 1. */
+    private static final int[] DIRECTION_INDEXES = new int[9];
+
+    static {
+        for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+            DIRECTION_INDEXES[(NavigationGrid.getDirectionY(direction) + 1) * 3 + NavigationGrid.getDirectionX(direction) + 1] = direction;
+        }
+    }
+
+    /**
+     * Constructs a JumpPointSearchFactoryPathFinder for a given robot.
+     * The navigation grid adapted to the robot's dimensions is taken from the navigation cache
+     * of the factory, and built only if no robot of the same size needed it before.
+     *
+     * @param robot The robot for which to compute paths.
+     */
+    public JumpPointSearchFactoryPathFinder(Robot robot) {
+        super(robot, robot.getFactory().getNavigationCache().getGrid(robot.getWidth(), robot.getHeight()));
+    }
+
+    /**
+     * Constructs a JumpPointSearchFactoryPathFinder for a given robot.
+     *
+     * @param robot The robot for which to compute paths.
+     * @param grid The navigation grid of the factory adapted to robot.
+     */
+    public JumpPointSearchFactoryPathFinder(Robot robot, NavigationGrid grid) {
+        super(robot, grid);
+    }
+
+    /**
+     * Tells if a cell, given by its column and row, can be crossed: it must be walkable,
+     * unless it is the target.
+     */
+    private boolean isOpen(int column, int row, int end) {
+        NavigationGrid grid = getGrid();
+        if (column < 0 || column >= grid.getWidth() || row < 0 || row >= grid.getHeight()) return false;
+        int cell = row * grid.getWidth() + column;
+        return cell == end || grid.isWalkable(cell);
+    }
+
+    /**
+     * Scans from a cell in a direction until a jump point is found.
+     *
+     * @param cell The cell to scan from (excluded).
+     * @param dx The X step of the direction.
+     * @param dy The Y step of the direction.
+     * @param end The target cell.
+     * @return The jump point, or -1 if the scan hits an obstacle or the grid border first.
+     */
+    private int jump(int cell, int dx, int dy, int end) {
+        int width = getGrid().getWidth();
+        int column = cell % width;
+        int row = cell / width;
+        while (true) {
+            column += dx;
+            row += dy;
+            if (!isOpen(column, row, end)) return -1;
+            int current = row * width + column;
+            if (current == end) return current;
+
+            if (dx != 0 && dy != 0) {
+                if ((!isOpen(column - dx, row, end) && isOpen(column - dx, row + dy, end))
+                    || (!isOpen(column, row - dy, end) && isOpen(column + dx, row - dy, end))) {
+                    return current;
+                }
+                // a diagonal scan stops where one of its straight scans finds a jump point
+                if (jump(current, dx, 0, end) >= 0 || jump(current, 0, dy, end) >= 0) return current;
+            } else if (dx != 0) {
+                if ((!isOpen(column, row + 1, end) && isOpen(column + dx, row + 1, end))
+                    || (!isOpen(column, row - 1, end) && isOpen(column + dx, row - 1, end))) {
+                    return current;
+                }
+            } else {
+                if ((!isOpen(column + 1, row, end) && isOpen(column + 1, row + dy, end))
+                    || (!isOpen(column - 1, row, end) && isOpen(column - 1, row + dy, end))) {
+                    return current;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of a direction in the {@link NavigationGrid} directions.
+     *
+     * @param dx The X step of the direction.
+     * @param dy The Y step of the direction.
+     * @return The direction index.
+     */
+    private static int direction(int dx, int dy) {
+        return DIRECTION_INDEXES[(dy + 1) * 3 + dx + 1];
+    }
+
+    /**
+     * Computes the directions worth scanning from a cell reached from its parent: the natural
+     * directions, plus the forced ones when an obstacle hides a neighbour from the parent.
+     *
+     * @param cell The cell to expand.
+     * @param parent The parent of the cell, or -1 for the start cell.
+     * @param end The target cell.
+     * @return The directions, as a mask of {@link NavigationGrid} direction indexes.
+     */
+    private int directions(int cell, int parent, int end) {
+        if (parent < 0) return (1 << NavigationGrid.DIRECTIONS) - 1;
+
+        int width = getGrid().getWidth();
+        int column = cell % width;
+        int row = cell / width;
+        int dx = Integer.signum(column - parent % width);
+        int dy = Integer.signum(row - parent / width);
+
+        int found;
+        if (dx != 0 && dy != 0) {
+            found = 1 << direction(dx, 0) | 1 << direction(0, dy) | 1 << direction(dx, dy);
+            if (!isOpen(column - dx, row, end)) found |= 1 << direction(-dx, dy);
+            if (!isOpen(column, row - dy, end)) found |= 1 << direction(dx, -dy);
+        } else if (dx != 0) {
+            found = 1 << direction(dx, 0);
+            if (!isOpen(column, row + 1, end)) found |= 1 << direction(dx, 1);
+            if (!isOpen(column, row - 1, end)) found |= 1 << direction(dx, -1);
+        } else {
+            found = 1 << direction(0, dy);
+            if (!isOpen(column + 1, row, end)) found |= 1 << direction(1, dy);
+            if (!isOpen(column - 1, row, end)) found |= 1 << direction(-1, dy);
+        }
+        return found;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The search runs on the {@link SearchSpace} of the calling thread, as the A* search does.
+     */
+    @Override
+    protected int[] search(int start, int end) {
+        NavigationGrid grid = getGrid();
+        SearchSpace space = SearchSpace.acquire(grid.getCellCount());
+        CellHeap open = space.getOpen();
+
+        space.setDistance(start, 0, -1);
+        open.push(grid.estimate(start, end), start);
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            if (!space.close(cell)) continue;
+            countExpandedNode();
+            if (cell == end) return fillPath(space.buildPath(end));
+
+            int distance = space.getDistance(cell);
+            int directions = directions(cell, space.getParent(cell), end);
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                if ((directions & 1 << direction) == 0) continue;
+                int jumpPoint = jump(cell, NavigationGrid.getDirectionX(direction), NavigationGrid.getDirectionY(direction), end);
+                if (jumpPoint < 0 || space.isClosed(jumpPoint)) continue;
+
+                // the jump point is reached by a single straight or diagonal line
+                int candidate = distance + grid.estimate(cell, jumpPoint);
+                if (candidate < space.getDistance(jumpPoint)) {
+                    space.setDistance(jumpPoint, candidate, cell);
+                    open.push(candidate + grid.estimate(jumpPoint, end), jumpPoint);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Expands a sequence of jump points into the sequence of every cell crossed.
+     *
+     * @param jumpPoints The jump points, each one on a straight or diagonal line from the previous one.
+     * @return The cells of the path.
+     */
+    private int[] fillPath(int[] jumpPoints) {
+        int width = getGrid().getWidth();
+        int length = 1;
+        for (int i = 1; i < jumpPoints.length; i++) {
+            length += Math.max(Math.abs(jumpPoints[i] % width - jumpPoints[i - 1] % width),
+                               Math.abs(jumpPoints[i] / width - jumpPoints[i - 1] / width));
+        }
+        int[] cells = new int[length];
+        int index = 0;
+        cells[index++] = jumpPoints[0];
+        for (int i = 1; i < jumpPoints.length; i++) {
+            int step = Integer.signum(jumpPoints[i] / width - jumpPoints[i - 1] / width) * width
+                     + Integer.signum(jumpPoints[i] % width - jumpPoints[i - 1] % width);
+            for (int cell = jumpPoints[i - 1]; cell != jumpPoints[i]; ) {
+                cell += step;
+                cells[index++] = cell;
+            }
+        }
+        return cells;
+    }
+}
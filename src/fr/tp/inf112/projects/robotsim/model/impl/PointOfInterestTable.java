@@ -0,0 +1,261 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+
+/**
+ * Precomputed routes to the points of interest of a factory (see {@link Component#isPointOfInterest()}):
+ * the visit positions of its machines, conveyors and charging stations.
+ *
+ * <p>
+ * The {@link FlowField} of each point of interest is computed once over the whole {@link NavigationGrid}.
+ * A route from any cell to a point of interest is then walked down its field without any search,
+ * and the distance and next hop between two points of interest are read from a table. The routes
+ * are as short as the ones of {@link AStarGraphFactoryPathFinder}.
+ * </p>
+ *
+ * <p>
+ * The table follows the points of interest version of the factory: when one is added or its visit
+ * position changes, only the new positions are searched, in parallel, and the table is switched to
+ * the new routes at once, so that it can still be read meanwhile. Layout changes discard the whole
+ * table, as for the other cached structures.
+ * </p>
+ *
+ * @author team-24
+ */
+public class PointOfInterestTable {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(PointOfInterestTable.class.getName());
+
+    /** Distance between two points of interest that cannot reach each other. */
+    public static final int UNREACHABLE = FlowField.UNREACHABLE;
+
+    private final Factory factory;
+    private final NavigationGrid grid;
+    /** Serializes the updates, which read the table outside of its monitor. */
+    private final Object updating = new Object();
+    /** Points of interest version of the routes of the table. */
+    private volatile long version;
+    /** Cell of each point of interest. */
+    private int[] cells;
+    /** Flow field of each point of interest. */
+    private FlowField[] fields;
+    /** Shortest distances between the points of interest. */
+    private int[][] distances;
+
+    /**
+     * Builds the table of the points of interest of a factory on a navigation grid.
+     *
+     * @param factory The factory, whose points of interest are the destinations of the table.
+     * @param grid The navigation grid of the factory for the robot footprint.
+     */
+    public PointOfInterestTable(Factory factory, NavigationGrid grid) {
+        this.factory = factory;
+        this.grid = grid;
+        this.version = -1;
+        this.cells = new int[0];
+        this.fields = new FlowField[0];
+        this.distances = new int[0][];
+        update();
+    }
+
+    /**
+     * Gets the table of a footprint from the navigation cache, building it if needed and
+     * bringing it up to date with the points of interest of the factory.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The cached table.
+     */
+    public static PointOfInterestTable get(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        PointOfInterestTable table = cache.get(PointOfInterestTable.class, robotWidth, robotHeight,
+                                               () -> new PointOfInterestTable(cache.getFactory(), grid));
+        table.update();
+        return table;
+    }
+
+    /**
+     * Gets the table of a footprint from the navigation cache if it is built and up to date with
+     * the points of interest of the factory, without searching any route. A table missing from the
+     * cache is built in the background, and a table out of date is brought up to date in the
+     * background.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The cached table, or null if it is not built yet or out of date.
+     * @see NavigationCache#getIfBuilt(Class, int, int, java.util.function.Supplier)
+     */
+    public static PointOfInterestTable getIfCurrent(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        PointOfInterestTable table = cache.getIfBuilt(PointOfInterestTable.class, robotWidth, robotHeight,
+                                                      () -> new PointOfInterestTable(cache.getFactory(), grid));
+        if (table == null) return null;
+        if (table.isCurrent()) return table;
+        cache.runInBackground(PointOfInterestTable.class, robotWidth, robotHeight, table::update);
+        return null;
+    }
+
+    /**
+     * Tells if the table is up to date with the points of interest of the factory.
+     *
+     * @return true if no point of interest changed since the last update.
+     */
+    public boolean isCurrent() {
+        return version == factory.getPointsOfInterestVersion();
+    }
+
+    /**
+     * Brings the table up to date with the points of interest of the factory. Routes to visit
+     * positions already in the table are kept, new ones are searched.
+     */
+    public void update() {
+        synchronized (updating) {
+            long current = factory.getPointsOfInterestVersion();
+            if (current != version) update(current);
+        }
+    }
+
+    /**
+     * Searches the routes to the points of interest of a version, then switches the table to them.
+     */
+    private void update(long current) {
+        int[] newCells = new int[0];
+        for (Component component : factory.getComponents()) {
+            if (!component.isPointOfInterest() || component.getVisit() == null) continue;
+            int cell = grid.cellId(component.getxVisit(), component.getyVisit());
+            if (cell < 0 || indexOf(newCells, cell) >= 0) continue;
+            newCells = Arrays.copyOf(newCells, newCells.length + 1);
+            newCells[newCells.length - 1] = cell;
+        }
+
+        FlowField[] newFields = new FlowField[newCells.length];
+        int[] missing = new int[0];
+        for (int i = 0; i < newCells.length; i++) {
+            int previous = indexOf(cells, newCells[i]);
+            if (previous >= 0) {
+                newFields[i] = fields[previous];
+            } else {
+                missing = Arrays.copyOf(missing, missing.length + 1);
+                missing[missing.length - 1] = i;
+            }
+        }
+        // the searches are independent, each thread runs them on its own search space
+        int[] searchedCells = newCells;
+        IntStream.of(missing).parallel().forEach(i -> newFields[i] = new FlowField(grid, searchedCells[i]));
+
+        int[][] newDistances = new int[newCells.length][newCells.length];
+        for (int from = 0; from < newCells.length; from++) {
+            for (int to = 0; to < newCells.length; to++) {
+                newDistances[from][to] = newFields[to].getDistance(newCells[from]);
+            }
+        }
+
+        synchronized (this) {
+            cells = newCells;
+            fields = newFields;
+            distances = newDistances;
+            version = current;
+        }
+        LOGGER.info("Point of interest table of " + grid + " updated with " + cells.length
+                    + " points of interest, " + missing.length + " of them searched.");
+    }
+
+    /**
+     * Finds a cell among the cells of points of interest.
+     */
+    private static int indexOf(int[] cells, int cell) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] == cell) return i;
+        }
+        return -1;
+    }
+
+    /** @return The navigation grid the table is built on. */
+    public NavigationGrid getGrid() { return grid; }
+
+    /** @return The number of points of interest. */
+    public synchronized int size() { return cells.length; }
+
+    /**
+     * Gets the index of a point of interest from its cell.
+     *
+     * @param cell The cell identifier.
+     * @return The index of the point of interest, or -1 if no point of interest lies on the cell.
+     */
+    public synchronized int indexOf(int cell) {
+        return indexOf(cells, cell);
+    }
+
+    /**
+     * Gets the index of the point of interest at the visit position of a visitable.
+     *
+     * @param visitable The visitable.
+     * @return The index of the point of interest, or -1 if none lies on the visit position.
+     */
+    public int indexOf(Visitable visitable) {
+        int cell = grid.cellId(visitable.getxVisit(), visitable.getyVisit());
+        return cell < 0 ? -1 : indexOf(cell);
+    }
+
+    /**
+     * Gets the cell of a point of interest.
+     *
+     * @param index The index of the point of interest.
+     * @return The cell identifier.
+     */
+    public synchronized int getCell(int index) {
+        return cells[index];
+    }
+
+    /**
+     * Gets the shortest distance between two points of interest.
+     *
+     * @param from The index of the point of interest to start from.
+     * @param to The index of the point of interest to reach.
+     * @return The distance in move weight units, or {@link #UNREACHABLE}.
+     */
+    public synchronized int getDistance(int from, int to) {
+        return distances[from][to];
+    }
+
+    /**
+     * Gets the first step of the shortest route between two points of interest.
+     *
+     * @param from The index of the point of interest to start from.
+     * @param to The index of the point of interest to reach.
+     * @return The cell following {@code from} on the route, or -1 if both are the same or {@code to}
+     *         is unreachable.
+     */
+    public synchronized int getNextHop(int from, int to) {
+        return fields[to].next(cells[from]);
+    }
+
+    /**
+     * Gets the flow field of a point of interest.
+     *
+     * @param index The index of the point of interest.
+     * @return The flow field towards the point of interest.
+     */
+    public synchronized FlowField getField(int index) {
+        return fields[index];
+    }
+
+    /**
+     * Computes the shortest route from any cell to a point of interest, by following its flow field.
+     *
+     * @param from The cell to start from.
+     * @param to The index of the point of interest to reach.
+     * @return The cells of the route, start and end included, or null if the point is unreachable.
+     */
+    public int[] route(int from, int to) {
+        return getField(to).route(from);
+    }
+}
@@ -0,0 +1,205 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+/**
+ * Space-time reservation table of the factory floor: the footprints the robots will take at each
+ * tick of a planning horizon, keyed by (cell, tick) of a coarse grid.
+ *
+ * <p>
+ * A footprint is recorded in every cell it overlaps, as a list of entries of primitive arrays, and
+ * checked exactly against the footprints recorded in the cells of the footprint tested: robots
+ * whose reservations never overlap never collide, and robots next to each other do not get in the
+ * way of each other. The cells are as large as the largest robot, so that a footprint overlaps a
+ * few cells only. Ticks are counted from the start of the planning round. Like the
+ * {@link SearchSpace}, the table is generation-stamped, so clearing it for a new round is
+ * constant time.
+ * </p>
+ *
+ * @author team-24
+ */
+public class ReservationTable {
+    /** Owner of a free cell. */
+    public static final int FREE = -1;
+
+    private final int originX;
+    private final int originY;
+    private final int cellSize;
+    private final int columns;
+    private final int rows;
+    private final int horizon;
+    /** First entry of each (cell, tick), valid if its stamp is the current generation. */
+    private final int[] heads;
+    private final int[] stamps;
+    private int generation = 1;
+    /** Entries {next, owner, left, top, right, bottom}, bounds included. */
+    private int[] entries = new int[6 * 1024];
+    private int size;
+
+    /**
+     * Constructs an empty reservation table.
+     *
+     * @param originX X-coordinate of the top left corner of the area covered.
+     * @param originY Y-coordinate of the top left corner of the area covered.
+     * @param width Width of the area covered.
+     * @param height Height of the area covered.
+     * @param cellSize Side of the cells, in pixels.
+     * @param horizon Number of ticks after the start of the round that can be reserved.
+     */
+    public ReservationTable(int originX, int originY, int width, int height, int cellSize, int horizon) {
+        this.originX = originX;
+        this.originY = originY;
+        this.cellSize = Math.max(1, cellSize);
+        this.columns = Math.max(1, (width + this.cellSize - 1) / this.cellSize);
+        this.rows = Math.max(1, (height + this.cellSize - 1) / this.cellSize);
+        this.horizon = horizon;
+        this.heads = new int[columns * rows * (horizon + 1)];
+        this.stamps = new int[heads.length];
+    }
+
+    /** @return The side of the cells, in pixels. */
+    public int getCellSize() { return cellSize; }
+
+    /** @return The number of ticks after the start of the round that can be reserved. */
+    public int getHorizon() { return horizon; }
+
+    /**
+     * Tells if the table covers the given area with cells of the given size.
+     *
+     * @param originX X-coordinate of the top left corner of the area.
+     * @param originY Y-coordinate of the top left corner of the area.
+     * @param width Width of the area.
+     * @param height Height of the area.
+     * @param cellSize Side of the cells, in pixels.
+     * @return true if the table can be reused for the area.
+     */
+    public boolean covers(int originX, int originY, int width, int height, int cellSize) {
+        return this.originX == originX && this.originY == originY && this.cellSize == cellSize
+            && columns == Math.max(1, (width + cellSize - 1) / cellSize)
+            && rows == Math.max(1, (height + cellSize - 1) / cellSize);
+    }
+
+    /**
+     * Frees every cell, for a new planning round.
+     */
+    public void clear() {
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            generation = 1;
+        }
+        size = 0;
+    }
+
+    /** @return The number of footprints recorded, one per cell they overlap. */
+    public int size() { return size; }
+
+    private int column(int x) {
+        return Math.min(columns - 1, Math.max(0, Math.floorDiv(x - originX, cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, Math.floorDiv(y - originY, cellSize)));
+    }
+
+    private int head(int index) {
+        return stamps[index] == generation ? heads[index] : -1;
+    }
+
+    /**
+     * Gets a robot reserving a point at a tick.
+     *
+     * @param x X-coordinate of the point.
+     * @param y Y-coordinate of the point.
+     * @param tick The tick, from the start of the round.
+     * @return The owner of a footprint containing the point, or {@link #FREE}.
+     */
+    public int getOwner(int x, int y, int tick) {
+        if (tick > horizon) return FREE;
+        for (int entry = head((tick * rows + row(y)) * columns + column(x)); entry >= 0; entry = entries[entry]) {
+            if (entries[entry + 1] != FREE && entries[entry + 2] <= x && x <= entries[entry + 4]
+                && entries[entry + 3] <= y && y <= entries[entry + 5]) return entries[entry + 1];
+        }
+        return FREE;
+    }
+
+    /**
+     * Tells if a footprint can be taken by a robot at a tick: it overlaps no footprint reserved
+     * for another robot. Ticks beyond the horizon are always free.
+     *
+     * @param left Left bound of the footprint.
+     * @param top Top bound of the footprint.
+     * @param width Width of the footprint.
+     * @param height Height of the footprint.
+     * @param tick The tick, from the start of the round.
+     * @param owner The robot.
+     * @return true if the footprint is free for the robot.
+     */
+    public boolean isFree(int left, int top, int width, int height, int tick, int owner) {
+        if (tick > horizon) return true;
+        int right = left + width - 1, bottom = top + height - 1;
+        int fromColumn = column(left), toColumn = column(right);
+        for (int row = row(top), toRow = row(bottom); row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int entry = head((tick * rows + row) * columns + column); entry >= 0; entry = entries[entry]) {
+                    int other = entries[entry + 1];
+                    if (other != owner && other != FREE && entries[entry + 2] <= right && left <= entries[entry + 4]
+                        && entries[entry + 3] <= bottom && top <= entries[entry + 5]) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reserves a footprint for a robot at a tick. Ticks beyond the horizon are ignored.
+     *
+     * @param left Left bound of the footprint.
+     * @param top Top bound of the footprint.
+     * @param width Width of the footprint.
+     * @param height Height of the footprint.
+     * @param tick The tick, from the start of the round.
+     * @param owner The robot.
+     */
+    public void reserve(int left, int top, int width, int height, int tick, int owner) {
+        if (tick > horizon) return;
+        int right = left + width - 1, bottom = top + height - 1;
+        int fromColumn = column(left), toColumn = column(right);
+        for (int row = row(top), toRow = row(bottom); row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                int index = (tick * rows + row) * columns + column;
+                if (6 * size + 6 > entries.length) entries = Arrays.copyOf(entries, 2 * entries.length);
+                int entry = 6 * size++;
+                entries[entry] = head(index);
+                entries[entry + 1] = owner;
+                entries[entry + 2] = left;
+                entries[entry + 3] = top;
+                entries[entry + 4] = right;
+                entries[entry + 5] = bottom;
+                heads[index] = entry;
+                stamps[index] = generation;
+            }
+        }
+    }
+
+    /**
+     * Frees the footprints reserved for a robot at a tick around an area.
+     *
+     * @param left Left bound of the area.
+     * @param top Top bound of the area.
+     * @param width Width of the area.
+     * @param height Height of the area.
+     * @param tick The tick, from the start of the round.
+     * @param owner The robot.
+     */
+    public void release(int left, int top, int width, int height, int tick, int owner) {
+        if (tick > horizon) return;
+        int fromColumn = column(left), toColumn = column(left + width - 1);
+        for (int row = row(top), toRow = row(top + height - 1); row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                for (int entry = head((tick * rows + row) * columns + column); entry >= 0; entry = entries[entry]) {
+                    if (entries[entry + 1] == owner) entries[entry + 1] = FREE;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Door;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Room;
+
+/**
+ * Abstract graph of a factory used by the {@link HierarchicalFactoryPathFinder}.
+ *
+ * <p>
+ * The cells of the {@link NavigationGrid} are split into regions: the inside of each {@link Room}
+ * (the innermost one for nested rooms), and region 0 for everything outside the rooms. Each
+ * {@link Door} wide enough for the robot footprint is a node joining the two regions on each side
+ * of its wall, located at the center of the doorway.
+ * </p>
+ *
+ * <p>
+ * For each door and each of its two regions, a distance field gives the length of the shortest
+ * path from every cell of the region to the door, staying inside the region. The fields give the
+ * door-to-door distances of the abstract graph, connect any cell to the doors of its region in
+ * constant time, and let a segment of path be refined by simply walking down the field, without
+ * any search.
+ * </p>
+ *
+ * @author team-24
+ */
+public class RoomDoorGraph {
+    private static final java.util.logging.Logger LOGGER = java.util.logging.Logger.getLogger(RoomDoorGraph.class.getName());
+
+    /** Distance of the cells from which a door cannot be reached. */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final NavigationGrid grid;
+    /** Region of each cell, 0 for the outside of the rooms. */
+    private final int[] regions;
+    /** Index of each cell among the cells of its region. */
+    private final int[] localIndex;
+    private final int[] regionSizes;
+    /** Node cell of each door. */
+    private final int[] doorCells;
+    /** The two regions {inside, outside} joined by each door. */
+    private final int[][] doorRegions;
+    /** Distance fields {@code fields[door][side][local index]} to each door, per side. */
+    private final int[][][] fields;
+    /** Shortest door-to-door distances through a single region. */
+    private final int[][] doorDistances;
+    /** Side of the destination door, i.e. region, through which each door-to-door distance is reached. */
+    private final int[][] doorSides;
+
+    /**
+     * Builds the abstract graph of a factory on a navigation grid.
+     *
+     * @param factory The factory, whose rooms and doors are the nodes of the graph.
+     * @param grid The navigation grid of the factory for the robot footprint.
+     */
+    public RoomDoorGraph(Factory factory, NavigationGrid grid) {
+        LOGGER.info("Building room and door graph for " + grid + "...");
+        this.grid = grid;
+        int cellCount = grid.getCellCount();
+
+        List<Room> rooms = new ArrayList<>();
+        for (Component component : factory.getComponents()) {
+            if (component instanceof Room) rooms.add((Room) component);
+        }
+        // larger rooms first, so that nested rooms overwrite the rooms containing them
+        rooms.sort((a, b) -> Long.compare((long) b.getWidth() * b.getHeight(), (long) a.getWidth() * a.getHeight()));
+
+        regions = new int[cellCount];
+        for (int i = 0; i < rooms.size(); i++) {
+            Room room = rooms.get(i);
+            for (int y = room.getyCoordinate() + 1; y < room.getyCoordinate() + room.getHeight(); y++) {
+                for (int x = room.getxCoordinate() + 1; x < room.getxCoordinate() + room.getWidth(); x++) {
+                    int cell = grid.cellId(x, y);
+                    if (cell >= 0) regions[cell] = i + 1;
+                }
+            }
+        }
+
+        regionSizes = new int[rooms.size() + 1];
+        localIndex = new int[cellCount];
+        for (int cell = 0; cell < cellCount; cell++) {
+            localIndex[cell] = regionSizes[regions[cell]]++;
+        }
+
+        List<int[]> nodes = new ArrayList<>();
+        for (Room room : rooms) {
+            for (Door door : room.getDoors()) {
+                int[] node = doorNode(room, door);
+                if (node != null) nodes.add(node);
+            }
+        }
+        int doorCount = nodes.size();
+        doorCells = new int[doorCount];
+        doorRegions = new int[doorCount][];
+        fields = new int[doorCount][2][];
+        for (int door = 0; door < doorCount; door++) {
+            doorCells[door] = nodes.get(door)[0];
+            doorRegions[door] = new int[] {nodes.get(door)[1], nodes.get(door)[2]};
+            for (int side = 0; side < 2; side++) {
+                fields[door][side] = computeField(doorCells[door], doorRegions[door][side]);
+            }
+        }
+
+        doorDistances = new int[doorCount][doorCount];
+        doorSides = new int[doorCount][doorCount];
+        for (int from = 0; from < doorCount; from++) {
+            for (int to = 0; to < doorCount; to++) {
+                doorDistances[from][to] = UNREACHABLE;
+                if (from == to) continue;
+                for (int side = 0; side < 2; side++) {
+                    if (getSide(from, doorRegions[to][side]) < 0) continue;
+                    int distance = getDistance(to, side, doorCells[from]);
+                    if (distance < doorDistances[from][to]) {
+                        doorDistances[from][to] = distance;
+                        doorSides[from][to] = side;
+                    }
+                }
+            }
+        }
+        LOGGER.info("Room and door graph built with " + regionSizes.length + " regions and " + doorCount + " doors.");
+    }
+
+    /**
+     * Gets the room and door graph of a footprint from the navigation cache, building it if needed.
+     *
+     * @param cache The navigation cache of the factory.
+     * @param robotWidth The width of the robot footprint.
+     * @param robotHeight The height of the robot footprint.
+     * @return The cached graph.
+     */
+    public static RoomDoorGraph get(NavigationCache cache, int robotWidth, int robotHeight) {
+        NavigationGrid grid = cache.getGrid(robotWidth, robotHeight);
+        return cache.get(RoomDoorGraph.class, robotWidth, robotHeight, () -> new RoomDoorGraph(cache.getFactory(), grid));
+    }
+
+    /**
+     * Computes the node of a door: the cell at the center of the doorway, on the room wall,
+     * and the regions inside and outside the wall.
+     *
+     * @return {cell, inside region, outside region}, or null if the robot cannot stand in the doorway.
+     */
+    private int[] doorNode(Room room, Door door) {
+        int x = door.getxCoordinate() + door.getWidth() / 2;
+        int y = door.getyCoordinate() + door.getHeight() / 2;
+        int cell = grid.cellId(x, y);
+        if (cell < 0 || !grid.isWalkable(cell)) return null;
+
+        int inside;
+        int outside;
+        if (door.isVertical()) {
+            int step = x == room.getxCoordinate() ? 1 : -1;
+            inside = grid.cellId(x + step, y);
+            outside = grid.cellId(x - step, y);
+        } else {
+            int step = y == room.getyCoordinate() ? 1 : -1;
+            inside = grid.cellId(x, y + step);
+            outside = grid.cellId(x, y - step);
+        }
+        if (inside < 0 || outside < 0 || regions[inside] == regions[outside]) return null;
+        return new int[] {cell, regions[inside], regions[outside]};
+    }
+
+    /**
+     * Computes the distance field to a door cell within a region, with Dijkstra's algorithm.
+     *
+     * @param source The door cell, which may lie on the wall, outside the region.
+     * @param region The region the field covers.
+     * @return The distance of each cell of the region, by local index.
+     */
+    private int[] computeField(int source, int region) {
+        int[] field = new int[regionSizes[region]];
+        Arrays.fill(field, UNREACHABLE);
+        CellHeap open = new CellHeap(field.length);
+
+        if (regions[source] == region) {
+            field[localIndex[source]] = 0;
+            open.push(0, source);
+        } else {
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(source, direction);
+                if (neighbour < 0 || regions[neighbour] != region) continue;
+                int weight = NavigationGrid.getWeight(direction);
+                if (weight < field[localIndex[neighbour]]) {
+                    field[localIndex[neighbour]] = weight;
+                    open.push(weight, neighbour);
+                }
+            }
+        }
+
+        while (!open.isEmpty()) {
+            int cell = open.pop();
+            int distance = open.lastKey();
+            if (distance > field[localIndex[cell]]) continue;
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0 || regions[neighbour] != region) continue;
+                int candidate = distance + NavigationGrid.getWeight(direction);
+                if (candidate < field[localIndex[neighbour]]) {
+                    field[localIndex[neighbour]] = candidate;
+                    open.push(candidate, neighbour);
+                }
+            }
+        }
+        return field;
+    }
+
+    /** @return The navigation grid the graph is built on. */
+    public NavigationGrid getGrid() { return grid; }
+
+    /** @return The number of door nodes. */
+    public int getDoorCount() { return doorCells.length; }
+
+    /**
+     * Gets the region of a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The region of the cell, 0 outside the rooms.
+     */
+    public int getRegion(int cell) { return regions[cell]; }
+
+    /**
+     * Gets the node cell of a door.
+     *
+     * @param door The door index.
+     * @return The cell at the center of the doorway.
+     */
+    public int getDoorCell(int door) { return doorCells[door]; }
+
+    /**
+     * Gets the side of a door facing a region.
+     *
+     * @param door The door index.
+     * @param region The region.
+     * @return 0 for the inside of the door room, 1 for the outside, -1 if the door does not open on the region.
+     */
+    public int getSide(int door, int region) {
+        if (doorRegions[door][0] == region) return 0;
+        if (doorRegions[door][1] == region) return 1;
+        return -1;
+    }
+
+    /**
+     * Gets the region on a side of a door.
+     *
+     * @param door The door index.
+     * @param side The side of the door.
+     * @return The region on that side.
+     */
+    public int getRegion(int door, int side) { return doorRegions[door][side]; }
+
+    /**
+     * Gets the shortest distance between two doors through a region they both open on.
+     *
+     * @param from The first door index.
+     * @param to The second door index.
+     * @return The distance, or {@link #UNREACHABLE}.
+     */
+    public int getDoorDistance(int from, int to) { return doorDistances[from][to]; }
+
+    /**
+     * Gets the side of {@code to} through which {@link #getDoorDistance(int, int)} is reached.
+     *
+     * @param from The first door index.
+     * @param to The second door index.
+     * @return The side of the second door.
+     */
+    public int getDoorSide(int from, int to) { return doorSides[from][to]; }
+
+    /**
+     * Gets the distance from a cell to a door, staying in the region on one side of the door.
+     * The cell must belong to the region or border it (e.g. the node cell of another door).
+     *
+     * @param door The door index.
+     * @param side The side of the door.
+     * @param cell The cell identifier.
+     * @return The distance, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(int door, int side, int cell) {
+        if (cell == doorCells[door]) return 0;
+        int region = doorRegions[door][side];
+        int[] field = fields[door][side];
+        if (regions[cell] == region) return field[localIndex[cell]];
+
+        int best = UNREACHABLE;
+        for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+            int neighbour = grid.move(cell, direction);
+            if (neighbour < 0) continue;
+            int weight = NavigationGrid.getWeight(direction);
+            if (neighbour == doorCells[door]) {
+                best = Math.min(best, weight);
+            } else if (regions[neighbour] == region && field[localIndex[neighbour]] != UNREACHABLE) {
+                best = Math.min(best, field[localIndex[neighbour]] + weight);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Refines the path from a cell to a door by walking down the distance field of the door.
+     *
+     * @param door The door index.
+     * @param side The side of the door the cell lies on.
+     * @param from The cell to start from.
+     * @return The cells from {@code from} to the door cell, both included, or null if the door is unreachable.
+     */
+    public int[] descend(int door, int side, int from) {
+        int target = doorCells[door];
+        int region = doorRegions[door][side];
+        int[] field = fields[door][side];
+
+        int distance = getDistance(door, side, from);
+        if (distance == UNREACHABLE) return null;
+        int[] cells = new int[16];
+        int length = 0;
+        cells[length++] = from;
+        for (int cell = from; cell != target; ) {
+            int next = -1;
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS && next < 0; direction++) {
+                int neighbour = grid.move(cell, direction);
+                if (neighbour < 0) continue;
+                int weight = NavigationGrid.getWeight(direction);
+                if (neighbour == target ? weight == distance
+                    : regions[neighbour] == region && field[localIndex[neighbour]] == distance - weight) {
+                    next = neighbour;
+                    distance -= weight;
+                }
+            }
+            if (next < 0) return null; // the grid changed since the field was computed
+            if (length == cells.length) cells = Arrays.copyOf(cells, length * 2);
+            cells[length++] = next;
+            cell = next;
+        }
+        return Arrays.copyOf(cells, length);
+    }
+}
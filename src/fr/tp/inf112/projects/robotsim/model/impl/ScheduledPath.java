@@ -0,0 +1,119 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+
+/**
+ * Path given a timing by the cooperative planner: the position of the robot at each tick, waits
+ * included, so that it never meets the robots planned before it. Each call to {@link #walk(double)}
+ * moves to the position of the next tick, whatever the distance available; the waypoints are those
+ * of the route the schedule follows.
+ *
+ * <p>
+ * A schedule may stop short of the target, at the end of the planning horizon. The path then
+ * invalidates itself when its last position is reached, so that the target is not taken as
+ * visited and the robot is planned again from there.
+ * </p>
+ *
+ * @author team-24
+ */
+public class ScheduledPath extends Path {
+    /** Positions of the robot center at each tick, as {x0, y0, x1, y1, ...}. */
+    private final int[] schedule;
+    private final boolean complete;
+    private int tick;
+
+    /**
+     * Constructs a scheduled path.
+     *
+     * @param waypoints The waypoints of the route, as {x0, y0, x1, y1, ...}.
+     * @param target The visitable target the path is leading to.
+     * @param schedule The positions of the robot center at each tick from now, as {x0, y0, x1, y1, ...}.
+     * @param complete Whether the schedule reaches the target.
+     */
+    public ScheduledPath(int[] waypoints, Visitable target, int[] schedule, boolean complete) {
+        super(waypoints, target);
+        this.schedule = schedule;
+        this.complete = complete;
+    }
+
+    /**
+     * Gets the number of ticks of the schedule, its start included.
+     *
+     * @return The number of scheduled positions.
+     */
+    public int getTickCount() {
+        return schedule.length / 2;
+    }
+
+    /**
+     * Gets the number of ticks of the schedule already walked.
+     *
+     * @return The index of the current scheduled position.
+     */
+    public int getCurrentTick() {
+        return tick;
+    }
+
+    /**
+     * Gets the X-coordinate of the robot center at a tick of the schedule.
+     *
+     * @param tick The tick, from the start of the schedule.
+     * @return The scheduled X-coordinate.
+     */
+    public int getScheduledX(int tick) {
+        return schedule[2 * tick];
+    }
+
+    /**
+     * Gets the Y-coordinate of the robot center at a tick of the schedule.
+     *
+     * @param tick The tick, from the start of the schedule.
+     * @return The scheduled Y-coordinate.
+     */
+    public int getScheduledY(int tick) {
+        return schedule[2 * tick + 1];
+    }
+
+    /**
+     * Tells if the schedule reaches the target, rather than stopping at the planning horizon.
+     *
+     * @return true if the last scheduled position is the target.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getCurrentX() {
+        return getScheduledX(tick);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int getCurrentY() {
+        return getScheduledY(tick);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext() {
+        return tick < getTickCount() - 1;
+    }
+
+    /**
+     * Moves to the position of the next tick of the schedule.
+     *
+     * @param distance The distance available, covered by the schedule.
+     * @return The distance between the two positions, 0 for a wait.
+     */
+    @Override
+    public double walk(double distance) {
+        if (!hasNext()) return 0;
+        tick++;
+        double walked = Math.hypot(getScheduledX(tick) - getScheduledX(tick - 1), getScheduledY(tick) - getScheduledY(tick - 1));
+        if (!hasNext() && !complete) invalidate();
+        return walked;
+    }
+}
@@ -0,0 +1,154 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+/**
+ * Working memory of a best-first search over the cells of a navigation grid: distances, parent
+ * links, closed flags and open list, all in primitive arrays indexed by cell.
+ *
+ * <p>
+ * Instead of being cleared before each search, the arrays are generation-stamped: a value is only
+ * valid if the stamp of its cell equals the current generation, and starting a new search just
+ * increments the generation. One instance is kept per thread and grows to the largest grid
+ * searched, so a steady-state search allocates nothing but its result.
+ * </p>
+ *
+ * @author team-24
+ */
+final class SearchSpace {
+    private static final ThreadLocal<SearchSpace> SPACES = ThreadLocal.withInitial(SearchSpace::new);
+    /** Second space of each thread, for the backward half of bidirectional searches. */
+    private static final ThreadLocal<SearchSpace> BACKWARD_SPACES = ThreadLocal.withInitial(SearchSpace::new);
+
+    private int generation;
+    private int[] stamps = new int[0];
+    private int[] closedStamps = new int[0];
+    private int[] distances = new int[0];
+    private int[] parents = new int[0];
+    private final CellHeap open = new CellHeap(1024);
+
+    /**
+     * Gets the search space of the calling thread, ready for a new search.
+     *
+     * @param cellCount The number of cells of the grid to search.
+     * @return The search space, with no reached cell and an empty open list.
+     */
+    static SearchSpace acquire(int cellCount) {
+        SearchSpace space = SPACES.get();
+        space.reset(cellCount);
+        return space;
+    }
+
+    /**
+     * Gets the second search space of the calling thread, ready for a new search, to run a search
+     * from the end cell alongside the one of {@link #acquire(int)}.
+     *
+     * @param cellCount The number of cells of the grid to search.
+     * @return The search space, with no reached cell and an empty open list.
+     */
+    static SearchSpace acquireBackward(int cellCount) {
+        SearchSpace space = BACKWARD_SPACES.get();
+        space.reset(cellCount);
+        return space;
+    }
+
+    /**
+     * Makes the space ready for a new search, for a space owned by a path finder rather than by
+     * the calling thread.
+     *
+     * @param cellCount The number of cells of the grid to search.
+     */
+    void reset(int cellCount) {
+        if (stamps.length < cellCount) {
+            stamps = new int[cellCount];
+            closedStamps = new int[cellCount];
+            distances = new int[cellCount];
+            parents = new int[cellCount];
+            generation = 0;
+        }
+        if (++generation == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            Arrays.fill(closedStamps, 0);
+            generation = 1;
+        }
+        open.clear();
+    }
+
+    /**
+     * Gets the best known distance to a cell.
+     *
+     * @param cell The cell identifier.
+     * @return The distance, or {@link Integer#MAX_VALUE} if the cell was not reached yet.
+     */
+    int getDistance(int cell) {
+        return stamps[cell] == generation ? distances[cell] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Records a better distance to a cell.
+     *
+     * @param cell The cell identifier.
+     * @param distance The new distance.
+     * @param parent The cell it is reached from, -1 for the start cell.
+     */
+    void setDistance(int cell, int distance, int parent) {
+        stamps[cell] = generation;
+        distances[cell] = distance;
+        parents[cell] = parent;
+    }
+
+    /**
+     * Gets the parent of a reached cell.
+     *
+     * @param cell The cell identifier.
+     * @return The cell it is reached from, -1 for the start cell.
+     */
+    int getParent(int cell) {
+        return parents[cell];
+    }
+
+    /**
+     * Closes a cell.
+     *
+     * @param cell The cell identifier.
+     * @return true if the cell was not closed yet.
+     */
+    boolean close(int cell) {
+        if (closedStamps[cell] == generation) return false;
+        closedStamps[cell] = generation;
+        return true;
+    }
+
+    /**
+     * Tells if a cell is closed.
+     *
+     * @param cell The cell identifier.
+     * @return true if the cell is closed.
+     */
+    boolean isClosed(int cell) {
+        return closedStamps[cell] == generation;
+    }
+
+    /** @return The open list of the search. */
+    CellHeap getOpen() {
+        return open;
+    }
+
+    /**
+     * Rebuilds the sequence of cells from the start cell to {@code end} by following parent links.
+     *
+     * @param end The end cell.
+     * @return The cells of the path, start and end included.
+     */
+    int[] buildPath(int end) {
+        int length = 1;
+        for (int cell = end; parents[cell] >= 0; cell = parents[cell]) {
+            length++;
+        }
+        int[] cells = new int[length];
+        for (int cell = end, i = length - 1; i >= 0; cell = parents[cell], i--) {
+            cells[i] = cell;
+        }
+        return cells;
+    }
+}
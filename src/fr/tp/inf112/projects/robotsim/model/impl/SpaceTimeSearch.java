@@ -0,0 +1,253 @@
+package fr.tp.inf112.projects.robotsim.model.impl;
+
+import java.util.Arrays;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+
+/**
+ * Windowed space-time A* search of the moves of a robot against a {@link ReservationTable}: at
+ * each tick, the robot waits, moves by its speed in one of the eight directions, or moves to a
+ * position of its route within reach. It can thus step aside to let another robot by, and get
+ * round the robots standing on its route, where following the route only could not.
+ *
+ * <p>
+ * The route of the robot guides the search: the ticks to go from a position are estimated as the
+ * ticks to reach a position of the route in straight line, plus the ticks left along the route
+ * from there. The search looks a window of ticks ahead, and expands a given number of states at most.
+ * The schedule kept ends at the target if the robot reaches it and can stay there until the
+ * horizon of the table; otherwise, at the position where it can stay until the horizon with the
+ * fewest ticks to go. One instance is reused from one search to the next.
+ * </p>
+ *
+ * @author team-24
+ */
+public class SpaceTimeSearch {
+    private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+    private static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    private final CellHeap open = new CellHeap(1024);
+    /** Node of each state (x, y, tick) reached. */
+    private final StateTable states = new StateTable();
+    /** Ticks to go from each position estimated, and the route step they go through, as {@code ticks << 16 | step}. */
+    private final StateTable estimates = new StateTable();
+    /** Nodes {x, y, tick, parent}. */
+    private int[] nodes = new int[4 * 1024];
+    private int size;
+    private int expandedNodes;
+    private boolean complete;
+
+    /**
+     * Searches the moves of a robot from its current position, the first one of its route.
+     *
+     * @param grid The navigation grid of the robot footprint.
+     * @param reservations The footprints reserved by the other robots.
+     * @param owner The robot, as identified in the reservations.
+     * @param width The width of the robot footprint.
+     * @param height The height of the robot footprint.
+     * @param speed The distance the robot covers in a tick.
+     * @param route The positions of the robot center along its route, one tick apart at full
+     *              speed, as {x0, y0, x1, y1, ...}, from its current position to its target.
+     * @param window The number of ticks searched ahead, at most the horizon of the reservations.
+     * @param maxExpansions The maximum number of states expanded.
+     * @return The positions of the robot center at each tick from now, as {x0, y0, x1, y1, ...},
+     *         or null if the robot had better stay where it stands.
+     */
+    public int[] search(NavigationGrid grid, ReservationTable reservations, int owner, int width, int height, int speed,
+                        int[] route, int window, int maxExpansions) {
+        states.clear();
+        estimates.clear();
+        open.clear();
+        size = 0;
+        expandedNodes = 0;
+        complete = false;
+        int steps = route.length / 2 - 1;
+        int horizon = reservations.getHorizon();
+        window = Math.min(window, horizon);
+        speed = Math.max(1, speed);
+        int diagonal = Math.max(1, (int) (speed / Math.sqrt(2)));
+        if (grid.cellId(route[0], route[1]) < 0) return null;
+
+        add(route[0], route[1], 0, -1);
+        open.push(estimate(route, steps, speed, route[0], route[1]) >>> 16, 0);
+        int best = -1;
+        int bestEstimate = Integer.MAX_VALUE;
+        while (open.size() > 0 && expandedNodes < maxExpansions) {
+            int node = open.pop();
+            expandedNodes++;
+            int x = nodes[4 * node], y = nodes[4 * node + 1], tick = nodes[4 * node + 2];
+            int estimate = estimate(route, steps, speed, x, y) >>> 16;
+            if (estimate < bestEstimate && isFreeUntilHorizon(reservations, owner, width, height, x, y, tick, horizon)) {
+                best = node;
+                bestEstimate = estimate;
+                if (x == route[2 * steps] && y == route[2 * steps + 1]) {
+                    complete = true;
+                    break;
+                }
+            }
+            if (tick >= window) continue;
+
+            expand(grid, reservations, owner, width, height, route, steps, speed, node, x, y, x, y);
+            for (int direction = 0; direction < DX.length; direction++) {
+                int step = DX[direction] != 0 && DY[direction] != 0 ? diagonal : speed;
+                expand(grid, reservations, owner, width, height, route, steps, speed, node, x, y,
+                       x + step * DX[direction], y + step * DY[direction]);
+            }
+            // the positions of the route within reach, to join it again, next to the step it heads for
+            int closest = estimate(route, steps, speed, x, y) & 0xffff;
+            for (int step = Math.max(0, closest - 2), last = Math.min(steps, closest + 2); step <= last; step++) {
+                int toX = route[2 * step], toY = route[2 * step + 1];
+                if ((toX != x || toY != y) && Math.hypot(toX - x, toY - y) <= speed) {
+                    expand(grid, reservations, owner, width, height, route, steps, speed, node, x, y, toX, toY);
+                }
+            }
+        }
+        if (best <= 0) return null;
+
+        int[] schedule = new int[2 * (nodes[4 * best + 2] + 1)];
+        for (int node = best; node >= 0; node = nodes[4 * node + 3]) {
+            int tick = nodes[4 * node + 2];
+            schedule[2 * tick] = nodes[4 * node];
+            schedule[2 * tick + 1] = nodes[4 * node + 1];
+        }
+        return schedule;
+    }
+
+    /**
+     * Tells if the last schedule found reaches the target.
+     *
+     * @return true if the schedule ends at the target.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Gets the number of states expanded by the last search.
+     *
+     * @return The number of expanded states.
+     */
+    public int getExpandedNodes() {
+        return expandedNodes;
+    }
+
+    /**
+     * Adds the state reached by a move of the robot at the next tick, if the move can be walked
+     * and the footprint is free then.
+     */
+    private void expand(NavigationGrid grid, ReservationTable reservations, int owner, int width, int height,
+                        int[] route, int steps, int speed, int node, int fromX, int fromY, int x, int y) {
+        int tick = nodes[4 * node + 2] + 1;
+        int to = grid.cellId(x, y);
+        if (to < 0 || !grid.isWalkable(to) || states.get(key(x, y, tick)) >= 0) return;
+        if (!grid.isVisible(grid.cellId(fromX, fromY), to) || !reservations.isFree(x - width / 2, y - height / 2, width, height, tick, owner)) return;
+        int next = add(x, y, tick, node);
+        open.push(tick + (estimate(route, steps, speed, x, y) >>> 16), next);
+    }
+
+    private int add(int x, int y, int tick, int parent) {
+        if (4 * size + 4 > nodes.length) nodes = Arrays.copyOf(nodes, 2 * nodes.length);
+        int node = size++;
+        nodes[4 * node] = x;
+        nodes[4 * node + 1] = y;
+        nodes[4 * node + 2] = tick;
+        nodes[4 * node + 3] = parent;
+        states.put(key(x, y, tick), node);
+        return node;
+    }
+
+    /**
+     * Estimates the ticks to go from a position: to a position of the route in straight line,
+     * then along the route.
+     *
+     * @return The ticks to go, shifted left by 16 bits, and the step of the route they go through.
+     */
+    private int estimate(int[] route, int steps, int speed, int x, int y) {
+        long position = key(x, y, 0);
+        int known = estimates.get(position);
+        if (known >= 0) return known;
+        int estimate = Integer.MAX_VALUE, closest = steps;
+        for (int step = steps; step >= 0 && steps - step < estimate; step--) {
+            int ticks = (int) Math.ceil(Math.hypot(route[2 * step] - x, route[2 * step + 1] - y) / speed) + steps - step;
+            if (ticks < estimate) {
+                estimate = ticks;
+                closest = step;
+            }
+        }
+        int packed = Math.min(estimate, 0x7fff) << 16 | Math.min(closest, 0xffff);
+        estimates.put(position, packed);
+        return packed;
+    }
+
+    private static boolean isFreeUntilHorizon(ReservationTable reservations, int owner, int width, int height,
+                                              int x, int y, int from, int horizon) {
+        for (int tick = from; tick <= horizon; tick++) {
+            if (!reservations.isFree(x - width / 2, y - height / 2, width, height, tick, owner)) return false;
+        }
+        return true;
+    }
+
+    private static long key(int x, int y, int tick) {
+        // the coordinates and the tick spread over the low 32 bits, hashed by the maps
+        return ((long) (y & 0xffff) << 36) | ((long) (x & 0xffff) << 20) | tick;
+    }
+
+    /**
+     * Table of int values keyed by state or position, with open addressing over primitive arrays.
+     * As the {@link SearchSpace}, it is generation-stamped, so clearing it is constant time.
+     */
+    private static final class StateTable {
+        private long[] keys = new long[4096];
+        private int[] values = new int[4096];
+        private int[] stamps = new int[4096];
+        private int generation = 1;
+        private int size;
+
+        void clear() {
+            if (++generation == Integer.MAX_VALUE) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+            size = 0;
+        }
+
+        /** @return The value of the key, -1 if it has none. */
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; stamps[slot] == generation; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return values[slot];
+            }
+            return -1;
+        }
+
+        /** Sets the value of a key, not in the table yet. */
+        void put(long key, int value) {
+            if (2 * (size + 1) > keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (stamps[slot] == generation) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = value;
+            stamps[slot] = generation;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values, oldStamps = stamps;
+            int oldGeneration = generation;
+            keys = new long[2 * oldKeys.length];
+            values = new int[keys.length];
+            stamps = new int[keys.length];
+            generation = 1;
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldStamps[slot] == oldGeneration) put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+
+        private static int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32));
+        }
+    }
+}
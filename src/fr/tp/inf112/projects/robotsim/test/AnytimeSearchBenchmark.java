@@ -0,0 +1,119 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.ChargingStation;
+import fr.tp.inf112.projects.robotsim.model.Conveyor;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationCache;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.PathFinderKind;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.TickMetrics;
+import fr.tp.inf112.projects.robotsim.model.impl.ChargingStationPartition;
+import fr.tp.inf112.projects.robotsim.model.impl.PointOfInterestTable;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the expansion budget of the ticks on scenario 0 with many robots travelling between
+ * random positions, all navigating with the {@link PathFinderKind#ANYTIME anytime} path finder, a
+ * charging station added after a quarter of the run and a conveyor added after three quarters. For
+ * several budgets, compares the tick latency with the number of searches suspended and the number
+ * of visits completed by the robots. The path finders keep their default settings: the structures
+ * the conveyor discards, and the point of interest table and charging station partition the
+ * station puts out of date, are rebuilt during the ticks without budget, and in the background
+ * with one. After the station is added, the table and the partition are asked for at each tick as
+ * under a budget, and the time they take to be up to date again is printed.
+ *
+ * @author team-24
+ */
+public class AnytimeSearchBenchmark {
+    private static final int ROBOTS = 30;
+    private static final int TICKS = 300;
+    private static final long SEED = 42;
+    private static final int[] BUDGETS = {0, 50000, 10000, 2000};
+
+    /**
+     * Builds the factory, with extra robots each going back and forth between two random positions.
+     */
+    private static Factory build() {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        Robot model = factory.getRobots().get(0);
+        NavigationGrid grid = factory.getNavigationCache().getGrid(model.getWidth(), model.getHeight());
+        Random random = new Random(SEED);
+        for (int i = 0; i < ROBOTS; i++) {
+            Position[] positions = new Position[3];
+            for (int j = 0; j < positions.length; j++) {
+                positions[j] = Benchmarks.randomWalkable(grid, random);
+            }
+            Robot robot = new Robot("Extra-" + i, positions[0].getxCoordinate() - model.getWidth() / 2,
+                                    positions[0].getyCoordinate() - model.getHeight() / 2, factory, true);
+            robot.addToVisit(positions[1]);
+            robot.addToVisit(positions[2]);
+        }
+        for (Robot robot : factory.getRobots()) {
+            robot.setPathFinderKind(PathFinderKind.ANYTIME);
+        }
+        return factory;
+    }
+
+    /**
+     * Runs the simulation with a budget and prints the tick statistics.
+     */
+    private static void run(String name, int budget) {
+        Factory factory = build();
+        factory.setPathExpansionBudget(budget);
+        factory.startSimulation();
+        NavigationCache cache = factory.getNavigationCache();
+        Robot model = factory.getRobots().get(0);
+        // time from the station until the table and the partition are up to date, -1 if not before the conveyor
+        long station = 0;
+        double tableMillis = -1, partitionMillis = -1;
+        double[] ticks = new double[TICKS];
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == TICKS / 4) {
+                new ChargingStation("Added station", 40, 250, 20, 20, factory);
+                station = System.nanoTime();
+            }
+            if (tick == TICKS * 3 / 4) new Conveyor("Blocking conveyor", 250, 120, 60, 120, factory);
+            factory.behave();
+            ticks[tick] = factory.getTickMetrics().getLastTickNanos() / 1e6;
+            if (tick >= TICKS / 4 && tick < TICKS * 3 / 4) {
+                if (tableMillis < 0 && PointOfInterestTable.getIfCurrent(cache, model.getWidth(), model.getHeight()) != null) {
+                    tableMillis = (System.nanoTime() - station) / 1e6;
+                }
+                if (partitionMillis < 0 && ChargingStationPartition.getIfBuilt(cache, model.getWidth(), model.getHeight()) != null) {
+                    partitionMillis = (System.nanoTime() - station) / 1e6;
+                }
+            }
+        }
+        factory.stopSimulation();
+        int visits = 0;
+        for (Robot robot : factory.getRobots()) {
+            visits += robot.getCurrentVisitIndex();
+        }
+
+        TickMetrics metrics = factory.getTickMetrics();
+        double total = Arrays.stream(ticks).sum();
+        Arrays.sort(ticks);
+        System.out.printf("  %-14s: tick mean %6.2f ms, p95 %7.2f ms, max %7.2f ms, %9d expanded nodes, %5d suspended searches, %3d visits,"
+                          + " table up to date after %6.1f ms, partition after %6.1f ms%n",
+                          name, total / TICKS, ticks[TICKS * 95 / 100], ticks[TICKS - 1],
+                          metrics.getTotalExpandedNodes(), metrics.getTotalSuspendedSearches(), visits, tableMillis, partitionMillis);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        System.out.printf("scenario 0 with %d more robots, %d ticks:%n", ROBOTS, TICKS);
+        run("warm-up", 0);
+        for (int budget : BUDGETS) {
+            run(budget == 0 ? "no budget" : budget + " nodes", budget);
+        }
+    }
+}
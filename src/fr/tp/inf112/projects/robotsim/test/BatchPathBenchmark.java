@@ -0,0 +1,93 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the batch path queries on the three built-in scenarios: from random walkable
+ * cells to growing numbers of random targets, compares one A* search per target with a single
+ * call to {@code findPaths}, by expanded nodes and latency.
+ *
+ * @author team-24
+ */
+public class BatchPathBenchmark {
+    private static final int STARTS = 20;
+    private static final int[] TARGETS = {2, 8, 32, 128};
+    private static final long SEED = 42;
+
+    /**
+     * Runs the queries, one path at a time or in one batch per start, once to warm up then measured.
+     *
+     * @return The total time in milliseconds, and the number of expanded nodes.
+     */
+    private static double[] run(AbstractGridFactoryPathFinder finder, Position[] starts,
+                                List<List<Visitable>> targets, boolean batch) {
+        double[] result = null;
+        for (int pass = 0; pass < 2; pass++) {
+            long expanded = finder.getExpandedNodes();
+            long start = System.nanoTime();
+            for (int i = 0; i < starts.length; i++) {
+                if (batch) {
+                    finder.findPaths(starts[i], targets.get(i));
+                } else {
+                    for (Visitable target : targets.get(i)) {
+                        finder.findPath(starts[i], target);
+                    }
+                }
+            }
+            result = new double[] {(System.nanoTime() - start) / 1e6, finder.getExpandedNodes() - expanded};
+        }
+        return result;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+            AbstractGridFactoryPathFinder finder = new AStarGraphFactoryPathFinder(robot, grid);
+            // the queries are repeated: every one of them must be searched
+            finder.setPathCaching(false);
+            finder.setPointOfInterestRouting(false);
+
+            System.out.printf("scenario %d, %dx%d grid, %d starts:%n", scenario, grid.getWidth(), grid.getHeight(), STARTS);
+            for (int count : TARGETS) {
+                Random random = new Random(SEED);
+                Position[] starts = new Position[STARTS];
+                List<List<Visitable>> targets = new ArrayList<>();
+                for (int i = 0; i < STARTS; i++) {
+                    starts[i] = Benchmarks.randomWalkable(grid, random);
+                    List<Visitable> batch = new ArrayList<>();
+                    for (int j = 0; j < count; j++) {
+                        batch.add(Benchmarks.randomWalkable(grid, random));
+                    }
+                    targets.add(batch);
+                }
+
+                double[] single = run(finder, starts, targets, false);
+                double[] batch = run(finder, starts, targets, true);
+                System.out.printf("  %3d targets: A* per target %8.1f ms, %9.0f expanded nodes; findPaths %8.1f ms, %9.0f expanded nodes (x%.1f faster)%n",
+                                  count, single[0], single[1], batch[0], batch[1], single[0] / batch[0]);
+            }
+
+            List<Path> legs = robot.planVisits();
+            System.out.printf("  visit cycle of the first robot: %d paths computed in advance%n", legs.size());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+
+/**
+ * Helpers shared by the path finding benchmarks: random walkable positions to search from and to,
+ * and the cost of the paths found, to compare the path finders with each other.
+ *
+ * @author team-24
+ */
+final class Benchmarks {
+    private Benchmarks() {
+    }
+
+    /**
+     * Computes the cost of a path, in move weight units. A path refined on the way, as the ones of
+     * the hierarchical path finder, is walked to its end first, so that every segment is counted.
+     *
+     * @param path The path.
+     * @return The cost of the path, or -1 if it is null.
+     */
+    static long cost(Path path) {
+        if (path.isNull()) return -1;
+        while (path.hasNext()) {
+            path.advance();
+        }
+        long cost = 0;
+        for (int i = 1; i < path.getWaypointCount(); i++) {
+            // a line between two waypoints costs as much as a shortest path between them
+            int dx = Math.abs(path.getX(i) - path.getX(i - 1));
+            int dy = Math.abs(path.getY(i) - path.getY(i - 1));
+            cost += NavigationGrid.STRAIGHT_WEIGHT * Math.max(dx, dy)
+                  + (NavigationGrid.DIAGONAL_WEIGHT - NavigationGrid.STRAIGHT_WEIGHT) * Math.min(dx, dy);
+        }
+        return cost;
+    }
+
+    /**
+     * Draws a random walkable cell of a grid.
+     *
+     * @param grid The navigation grid.
+     * @param random The random generator.
+     * @return The position of the center of the cell.
+     */
+    static Position randomWalkable(NavigationGrid grid, Random random) {
+        while (true) {
+            int cell = random.nextInt(grid.getCellCount());
+            if (grid.isWalkable(cell)) return new Position(grid.getX(cell), grid.getY(cell));
+        }
+    }
+
+    /**
+     * Draws a random walkable cell of a grid among a range of its columns.
+     *
+     * @param grid The navigation grid.
+     * @param random The random generator.
+     * @param fromColumn The first column of the range.
+     * @param toColumn The column following the range.
+     * @return The position of the center of the cell.
+     */
+    static Position randomWalkable(NavigationGrid grid, Random random, int fromColumn, int toColumn) {
+        while (true) {
+            int x = fromColumn + random.nextInt(toColumn - fromColumn);
+            int y = random.nextInt(grid.getHeight());
+            int cell = y * grid.getWidth() + x;
+            if (grid.isWalkable(cell)) return new Position(grid.getX(cell), grid.getY(cell));
+        }
+    }
+}
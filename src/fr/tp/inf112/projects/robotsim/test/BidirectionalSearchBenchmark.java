@@ -0,0 +1,106 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.BidirectionalFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.DijkstraGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the bidirectional path finder on the three built-in scenarios: Dijkstra and A*
+ * against their bidirectional versions, on random pairs of walkable cells anywhere in the factory
+ * and on pairs crossing it from its left fifth to its right fifth. Compares the number of expanded
+ * nodes, the query latency and the cost of the paths found.
+ *
+ * @author team-24
+ */
+public class BidirectionalSearchBenchmark {
+    private static final int QUERIES = 100;
+    private static final long SEED = 42;
+
+    /**
+     * Runs the queries with a path finder, once to warm up then measured.
+     *
+     * @return The total time in milliseconds, and the number of expanded nodes.
+     */
+    private static double[] run(AbstractGridFactoryPathFinder finder, Position[][] queries, long[] costs) {
+        // the queries are repeated: every one of them must be searched
+        finder.setPathCaching(false);
+        finder.setPointOfInterestRouting(false);
+        for (Position[] query : queries) {
+            finder.findPath(query[0], query[1]);
+        }
+        long expanded = finder.getExpandedNodes();
+        Path[] paths = new Path[queries.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < queries.length; i++) {
+            paths[i] = finder.findPath(queries[i][0], queries[i][1]);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        for (int i = 0; i < queries.length; i++) {
+            costs[i] = Benchmarks.cost(paths[i]);
+        }
+        return new double[] {millis, finder.getExpandedNodes() - expanded};
+    }
+
+    /**
+     * Runs the queries with a finder and its bidirectional version, and prints their statistics.
+     */
+    private static void compare(String name, AbstractGridFactoryPathFinder finder,
+                                AbstractGridFactoryPathFinder bidirectional, Position[][] queries) {
+        long[] costs = new long[queries.length];
+        double[] single = run(finder, queries, costs);
+        long[] bidirectionalCosts = new long[queries.length];
+        double[] both = run(bidirectional, queries, bidirectionalCosts);
+
+        int mismatches = 0;
+        for (int i = 0; i < queries.length; i++) {
+            if (costs[i] != bidirectionalCosts[i]) mismatches++;
+        }
+        System.out.printf("    %-8s: %8.1f ms (%6.2f ms/query), %9.0f expanded nodes%n",
+                          name, single[0], single[0] / queries.length, single[1]);
+        System.out.printf("    %-8s: %8.1f ms (%6.2f ms/query), %9.0f expanded nodes (x%.1f fewer, x%.1f faster), cost mismatches: %d%n",
+                          "bi-" + name, both[0], both[0] / queries.length, both[1],
+                          single[1] / Math.max(1, both[1]), single[0] / both[0], mismatches);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+            int fifth = grid.getWidth() / 5;
+
+            Random random = new Random(SEED);
+            Position[][] anywhere = new Position[QUERIES][];
+            Position[][] across = new Position[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                anywhere[i] = new Position[] {Benchmarks.randomWalkable(grid, random, 0, grid.getWidth()),
+                                              Benchmarks.randomWalkable(grid, random, 0, grid.getWidth())};
+                across[i] = new Position[] {Benchmarks.randomWalkable(grid, random, 0, fifth),
+                                            Benchmarks.randomWalkable(grid, random, grid.getWidth() - fifth, grid.getWidth())};
+            }
+
+            System.out.printf("scenario %d, %dx%d grid:%n", scenario, grid.getWidth(), grid.getHeight());
+            for (Position[][] queries : new Position[][][] {anywhere, across}) {
+                System.out.printf("  %d queries %s:%n", QUERIES, queries == anywhere ? "anywhere" : "across the factory");
+                compare("Dijkstra", new DijkstraGraphFactoryPathFinder(robot, grid),
+                        new BidirectionalFactoryPathFinder(robot, grid, false), queries);
+                compare("A*", new AStarGraphFactoryPathFinder(robot, grid),
+                        new BidirectionalFactoryPathFinder(robot, grid, true), queries);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import fr.tp.inf112.projects.robotsim.model.ConflictBasedSearchSolver;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.FleetPlan;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.CoarseGrid;
+import fr.tp.inf112.projects.robotsim.model.impl.ScheduledPath;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the Conflict-Based Search solver on scenario 0 with growing numbers of robots, each
+ * one starting at the center of a random cell of the fleet grid and visiting two random cells,
+ * all of them different. Prints the solve time and the size of the constraint tree of an optimal
+ * search with one thread and with every processor (at least two), and of a bounded suboptimal
+ * one, the sum of costs of the plan against the robots planned on their own (on the fleet grid,
+ * and by A* on the navigation grid), and checks the plan by replaying it tick by tick.
+ *
+ * @author team-24
+ */
+public class ConflictBasedSearchBenchmark {
+    private static final int[] ROBOTS = {2, 4, 8, 12, 16, 20, 24};
+    private static final double SUBOPTIMALITY = 1.05;
+    private static final int SIZE = 20;
+    private static final int SPEED = 10;
+    private static final long SEED = 42;
+
+    /**
+     * Draws a random walkable cell of the fleet grid, not taken yet, in the component of the first one drawn.
+     */
+    private static int randomCell(CoarseGrid grid, Random random, Set<Integer> taken, int[] distances) {
+        while (true) {
+            int cell = random.nextInt(grid.getCellCount());
+            if (grid.isWalkable(cell) && (distances == null || distances[cell] != Integer.MAX_VALUE) && taken.add(cell)) return cell;
+        }
+    }
+
+    /**
+     * Builds the factory, with the extra robots to plan.
+     */
+    private static List<Robot> build(Factory factory, int count) {
+        CoarseGrid grid = new CoarseGrid(factory.getNavigationCache().getGrid(SIZE, SIZE), factory.getxCoordinate(),
+                                         factory.getyCoordinate(), factory.getWidth(), factory.getHeight(), SIZE);
+        Random random = new Random(SEED);
+        Set<Integer> taken = new HashSet<>();
+        int[] distances = grid.distancesTo(randomCell(grid, random, taken, null));
+        List<Robot> robots = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int start = randomCell(grid, random, taken, distances);
+            Robot robot = new Robot("Fleet-" + i, grid.getCenterX(start) - SIZE / 2, grid.getCenterY(start) - SIZE / 2,
+                                    SIZE, SIZE, SPEED, 1000, factory, true);
+            for (int j = 0; j < 2; j++) {
+                int target = randomCell(grid, random, taken, distances);
+                robot.addToVisit(new Position(grid.getCenterX(target), grid.getCenterY(target)));
+            }
+            robots.add(robot);
+        }
+        return robots;
+    }
+
+    /**
+     * Sums the ticks the robots need to follow the paths of their path finder, one visit after the other.
+     */
+    private static long independentCost(List<Robot> robots) {
+        long ticks = 0;
+        for (Robot robot : robots) {
+            Position from = new Position(robot.getxCenter(), robot.getyCenter());
+            for (Path path : new AStarGraphFactoryPathFinder(robot).findPaths(from, robot.getToVisit())) {
+                if (path == null || path.isNull()) return -1;
+                while (path.hasNext()) {
+                    path.walk(robot.getSpeed());
+                    ticks++;
+                }
+            }
+        }
+        return ticks;
+    }
+
+    /**
+     * Replays a plan and counts the pairs of robots whose footprints overlap, summed over the ticks.
+     */
+    private static int collisions(FleetPlan plan) {
+        List<Robot> robots = plan.getRobots();
+        List<int[]> timelines = new ArrayList<>();
+        int length = 0;
+        for (Robot robot : robots) {
+            List<Integer> positions = new ArrayList<>();
+            for (Path path : plan.getPaths(robot)) {
+                ScheduledPath scheduled = (ScheduledPath) path;
+                // a leg starts where the previous one ends
+                for (int tick = positions.isEmpty() ? 0 : 1; tick < scheduled.getTickCount(); tick++) {
+                    positions.add(scheduled.getScheduledX(tick));
+                    positions.add(scheduled.getScheduledY(tick));
+                }
+            }
+            int[] timeline = positions.stream().mapToInt(Integer::intValue).toArray();
+            timelines.add(timeline);
+            length = Math.max(length, timeline.length / 2);
+        }
+        int count = 0;
+        for (int tick = 0; tick < length; tick++) {
+            for (int i = 0; i < timelines.size(); i++) {
+                int[] a = timelines.get(i);
+                int ai = 2 * Math.min(tick, a.length / 2 - 1);
+                for (int j = i + 1; j < timelines.size(); j++) {
+                    int[] b = timelines.get(j);
+                    int bi = 2 * Math.min(tick, b.length / 2 - 1);
+                    if (Math.abs(a[ai] - b[bi]) < SIZE && Math.abs(a[ai + 1] - b[bi + 1]) < SIZE) count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Solves the problem and prints its statistics.
+     */
+    private static void run(int count, int threads, double suboptimality, boolean print) {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        List<Robot> robots = build(factory, count);
+        ConflictBasedSearchSolver solver = new ConflictBasedSearchSolver(threads);
+        solver.setTimeLimitMillis(10000);
+        solver.setSuboptimality(suboptimality);
+        FleetPlan plan = solver.solve(factory, robots);
+        if (!print) return;
+        System.out.printf("    w=%.2f, %d threads: %8.1f ms, %6d nodes expanded, %6d generated, %9d low-level expansions, %s",
+                          suboptimality, threads, plan.getSolveNanos() / 1e6, plan.getExpandedNodes(), plan.getGeneratedNodes(),
+                          plan.getLowLevelExpansions(), plan.isSolved() ? (plan.isOptimal() ? "optimal" : "bounded") : "unsolved");
+        if (plan.isSolved()) {
+            System.out.printf(", sum of costs %5d ticks (fleet grid alone %5d, path finders alone %5d), %d collisions",
+                              plan.getSumOfCosts(), plan.getIndependentSumOfCosts(), independentCost(robots), collisions(plan));
+        }
+        System.out.println();
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        run(8, 1, 1, false); // warm-up
+        for (int count : ROBOTS) {
+            System.out.printf("scenario 0 with %d %dx%d robots visiting 2 cells each:%n", count, SIZE, SIZE);
+            run(count, 1, 1, true);
+            run(count, Math.max(2, processors), 1, true);
+            run(count, 1, SUBOPTIMALITY, true);
+        }
+    }
+}
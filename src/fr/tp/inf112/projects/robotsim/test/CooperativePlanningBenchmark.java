@@ -0,0 +1,140 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.List;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.CooperativePlanner;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the cooperative planner on scenario 0 with growing numbers of small robots, each
+ * going back and forth between two random positions from a random start, none of them overlapping
+ * at first. Compares the robots planning independently with the cooperative planner, by the number
+ * of collisions (pairs of robots whose footprints overlap, counted at each tick), the number of
+ * visits completed and the duration of the planning rounds.
+ *
+ * @author team-24
+ */
+public class CooperativePlanningBenchmark {
+    private static final int[] ROBOTS = {1, 10, 50, 100, 200, 500};
+    private static final int SIZE = 10;
+    private static final int TICKS = 200;
+    private static final long SEED = 42;
+
+    /**
+     * Draws a random walkable position of the grid, whose footprint does not overlap the given ones
+     * nor, if robots are given, any of them.
+     */
+    private static Position randomFree(NavigationGrid grid, Random random, int[] taken, int count, List<Robot> robots) {
+        while (true) {
+            int cell = random.nextInt(grid.getCellCount());
+            if (!grid.isWalkable(cell)) continue;
+            int x = grid.getX(cell), y = grid.getY(cell);
+            boolean free = true;
+            for (int i = 0; i < count && free; i++) {
+                free = Math.abs(taken[2 * i] - x) >= SIZE || Math.abs(taken[2 * i + 1] - y) >= SIZE;
+            }
+            for (int i = 0; robots != null && i < robots.size() && free; i++) {
+                Robot robot = robots.get(i);
+                free = 2 * Math.abs(robot.getxCenter() - x) >= robot.getWidth() + SIZE
+                       || 2 * Math.abs(robot.getyCenter() - y) >= robot.getHeight() + SIZE;
+            }
+            if (free) return new Position(x, y);
+        }
+    }
+
+    /**
+     * Builds the factory, with extra small robots.
+     */
+    private static Factory build(int count) {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        NavigationGrid grid = factory.getNavigationCache().getGrid(SIZE, SIZE);
+        Random random = new Random(SEED);
+        int[] starts = new int[2 * count];
+        int[] targets = new int[4 * count];
+        for (int i = 0; i < count; i++) {
+            Position start = randomFree(grid, random, starts, i, factory.getRobots());
+            starts[2 * i] = start.getxCoordinate();
+            starts[2 * i + 1] = start.getyCoordinate();
+            Robot robot = new Robot("Small-" + i, start.getxCoordinate() - SIZE / 2, start.getyCoordinate() - SIZE / 2,
+                                    SIZE, SIZE, 10, 1000, factory, true);
+            for (int j = 0; j < 2; j++) {
+                Position target = randomFree(grid, random, targets, 2 * i + j, null);
+                targets[2 * (2 * i + j)] = target.getxCoordinate();
+                targets[2 * (2 * i + j) + 1] = target.getyCoordinate();
+                robot.addToVisit(target);
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Counts the pairs of robots whose footprints overlap.
+     */
+    private static int collisions(List<Robot> robots) {
+        int count = 0;
+        for (int i = 0; i < robots.size(); i++) {
+            Robot a = robots.get(i);
+            for (int j = i + 1; j < robots.size(); j++) {
+                Robot b = robots.get(j);
+                if (2 * Math.abs(a.getxCenter() - b.getxCenter()) < a.getWidth() + b.getWidth()
+                    && 2 * Math.abs(a.getyCenter() - b.getyCenter()) < a.getHeight() + b.getHeight()) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs the simulation and prints its statistics.
+     */
+    private static void run(int count, CooperativePlanner planner) {
+        Factory factory = build(count);
+        factory.setCooperativePlanner(planner);
+        factory.startSimulation();
+        List<Robot> robots = factory.getRobots();
+        int[] visitIndexes = new int[robots.size()];
+        long collisions = 0;
+        int visits = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            factory.behave();
+            collisions += collisions(robots);
+            // the index of a robot changes when it completes a visit, wrapping round at the end of its list
+            for (int i = 0; i < robots.size(); i++) {
+                if (robots.get(i).getCurrentVisitIndex() != visitIndexes[i]) visits++;
+                visitIndexes[i] = robots.get(i).getCurrentVisitIndex();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        factory.stopSimulation();
+
+        System.out.printf("    %-12s: %6d collisions, %5d visits, %8.1f ms (%6.2f ms/tick)", planner == null ? "independent" : "cooperative",
+                          collisions, visits, millis, millis / TICKS);
+        if (planner != null) {
+            System.out.printf(", %4d rounds of %6.2f ms, %5d paths (%4d detours, %4d space-time), %6d waits", planner.getRoundCount(),
+                              planner.getTotalRoundNanos() / 1e6 / Math.max(1, planner.getRoundCount()),
+                              planner.getPlannedPathCount(), planner.getDetourCount(), planner.getSpaceTimePathCount(),
+                              planner.getWaitingRobotCount());
+        }
+        System.out.println();
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        run(10, null); // warm-up
+        run(10, new CooperativePlanner());
+        for (int count : ROBOTS) {
+            System.out.printf("scenario 0 with %d more %dx%d robots, %d ticks:%n", count, SIZE, SIZE, TICKS);
+            run(count, null);
+            run(count, new CooperativePlanner());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jgrapht.Graph;
+import org.jgrapht.Graphs;
+import org.jgrapht.graph.DefaultUndirectedWeightedGraph;
+import org.jgrapht.graph.DefaultWeightedEdge;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Regression benchmark of the factory graph construction on the three built-in scenarios.
+ * Compares the former single-pass construction (each cell tested once per neighbour) with
+ * the two-pass one (walkability mask, then edges), checks that both graphs have the same
+ * vertices, edges and set of positions reachable from the first robot, and that this set
+ * matches the one of the {@link NavigationGrid} (which has no cell for the factory right and
+ * bottom borders).
+ *
+ * @author team-24
+ */
+public class FactoryGraphBenchmark {
+
+    /**
+     * Former single-pass construction of the factory graph, kept as the reference.
+     *
+     * @param factory The factory to build the graph from.
+     * @param robotWidth The width of the robot.
+     * @param robotHeight The height of the robot.
+     * @return The constructed graph.
+     */
+    private static Graph<Position, DefaultWeightedEdge> buildSinglePass(Factory factory, int robotWidth, int robotHeight) {
+        Graph<Position, DefaultWeightedEdge> graph = new DefaultUndirectedWeightedGraph<>(DefaultWeightedEdge.class);
+
+        int startX = factory.getxCoordinate();
+        int startY = factory.getyCoordinate();
+        int endX = startX + factory.getWidth();
+        int endY = startY + factory.getHeight();
+
+        // Directions: {dx, dy, weight}
+        int[][] directions = {
+            {0, -1, 100}, {0, 1, 100}, {-1, 0, 100}, {1, 0, 100},
+            {-1, -1, 141}, {-1, 1, 141}, {1, -1, 141}, {1, 1, 141}
+        };
+
+        for (int x = startX; x <= endX; x++) {
+            for (int y = startY; y <= endY; y++) {
+                Position current = new Position(x, y);
+                graph.addVertex(current);
+
+                for (int[] dir : directions) {
+                    int nx = x + dir[0];
+                    int ny = y + dir[1];
+
+                    if (nx >= startX && nx < endX && ny >= startY && ny < endY &&
+                        !factory.isObstacle(nx, ny, robotWidth, robotHeight)) {
+
+                        Position neighbor = new Position(nx, ny);
+                        graph.addVertex(neighbor);
+
+                        if (!graph.containsEdge(current, neighbor)) {
+                            DefaultWeightedEdge edge = graph.addEdge(current, neighbor);
+                            graph.setEdgeWeight(edge, dir[2]);
+                        }
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Summary of a graph, small enough to be kept while the next graph is built.
+     */
+    private static class Summary {
+        int vertices;
+        int edges;
+        long edgeSignature;
+        Set<Position> reachable;
+        double buildMillis;
+
+        boolean sameAs(Summary other) {
+            return vertices == other.vertices && edges == other.edges
+                && edgeSignature == other.edgeSignature && reachable.equals(other.reachable);
+        }
+    }
+
+    /**
+     * Summarizes a graph: counts, an order-independent signature of the weighted edges and
+     * the set of positions reachable from {@code start}.
+     */
+    private static Summary summarize(Graph<Position, DefaultWeightedEdge> graph, Position start, double buildMillis) {
+        Summary summary = new Summary();
+        summary.vertices = graph.vertexSet().size();
+        summary.edges = graph.edgeSet().size();
+        summary.buildMillis = buildMillis;
+        for (DefaultWeightedEdge edge : graph.edgeSet()) {
+            int a = graph.getEdgeSource(edge).hashCode();
+            int b = graph.getEdgeTarget(edge).hashCode();
+            long h = (long) Math.min(a, b) * 1_000_003L + Math.max(a, b);
+            summary.edgeSignature += h * 31 + (long) graph.getEdgeWeight(edge);
+        }
+        summary.reachable = new HashSet<>();
+        Deque<Position> queue = new ArrayDeque<>();
+        summary.reachable.add(start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            for (Position next : Graphs.neighborListOf(graph, queue.poll())) {
+                if (summary.reachable.add(next)) queue.add(next);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Computes the set of positions reachable from {@code start} in a navigation grid.
+     */
+    private static Set<Position> reachable(NavigationGrid grid, Position start) {
+        Set<Position> reachable = new HashSet<>();
+        boolean[] seen = new boolean[grid.getCellCount()];
+        Deque<Integer> queue = new ArrayDeque<>();
+        int first = grid.cellId(start.getxCoordinate(), start.getyCoordinate());
+        seen[first] = true;
+        queue.add(first);
+        while (!queue.isEmpty()) {
+            int cell = queue.poll();
+            reachable.add(new Position(grid.getX(cell), grid.getY(cell)));
+            for (int direction = 0; direction < NavigationGrid.DIRECTIONS; direction++) {
+                int next = grid.move(cell, direction);
+                if (next >= 0 && !seen[next]) {
+                    seen[next] = true;
+                    queue.add(next);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Main method running the benchmark on scenarios 0, 1 and 2.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        boolean allIdentical = true;
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            Position start = new Position(robot.getxCenter(), robot.getyCenter());
+
+            long begin = System.nanoTime();
+            Graph<Position, DefaultWeightedEdge> graph = buildSinglePass(factory, robot.getWidth(), robot.getHeight());
+            Summary singlePass = summarize(graph, start, (System.nanoTime() - begin) / 1e6);
+            graph = null;
+
+            begin = System.nanoTime();
+            graph = AbstractGridFactoryPathFinder.buildFactoryGraph(factory, robot.getWidth(), robot.getHeight());
+            Summary twoPass = summarize(graph, start, (System.nanoTime() - begin) / 1e6);
+            graph = null;
+
+            begin = System.nanoTime();
+            NavigationGrid grid = NavigationGrid.build(factory, robot.getWidth(), robot.getHeight());
+            double maskMillis = (System.nanoTime() - begin) / 1e6;
+
+            // the grid has no cell for the right and bottom borders of the factory
+            Set<Position> graphReachable = new HashSet<>();
+            for (Position position : twoPass.reachable) {
+                if (grid.contains(position.getxCoordinate(), position.getyCoordinate())) graphReachable.add(position);
+            }
+
+            boolean identical = singlePass.sameAs(twoPass) && reachable(grid, start).equals(graphReachable);
+            allIdentical &= identical;
+            System.out.printf("scenario %d: single-pass %6.0f ms, two-pass %6.0f ms (x%.1f, mask alone %4.0f ms), %d vertices, %d edges, %d reachable: %s%n",
+                              scenario, singlePass.buildMillis, twoPass.buildMillis,
+                              singlePass.buildMillis / twoPass.buildMillis, maskMillis,
+                              twoPass.vertices, twoPass.edges, twoPass.reachable.size(),
+                              identical ? "identical" : "DIFFERENT");
+        }
+        if (!allIdentical) {
+            System.exit(1);
+        }
+    }
+}
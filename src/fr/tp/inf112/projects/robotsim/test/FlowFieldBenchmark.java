@@ -0,0 +1,80 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.FlowFieldFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the flow field path finder on the three built-in scenarios: many robots heading to
+ * the same destination from random cells, each running its own A* search, or all following the
+ * flow field of the destination. Also checks that both give paths of the same cost.
+ *
+ * @author team-24
+ */
+public class FlowFieldBenchmark {
+    private static final int ROBOTS = 100;
+    private static final long SEED = 42;
+
+    /**
+     * Runs the queries from every start to the destination.
+     *
+     * @return The total time in milliseconds.
+     */
+    private static double run(AbstractGridFactoryPathFinder finder, Position[] starts, Position destination, long[] costs) {
+        // every robot asks once: no route caching, no point of interest table
+        finder.setPathCaching(false);
+        finder.setPointOfInterestRouting(false);
+        long start = System.nanoTime();
+        Path[] paths = new Path[starts.length];
+        for (int i = 0; i < starts.length; i++) {
+            paths[i] = finder.findPath(starts[i], destination);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        for (int i = 0; i < starts.length; i++) {
+            costs[i] = Benchmarks.cost(paths[i]);
+        }
+        return millis;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+
+            Random random = new Random(SEED);
+            Position[] starts = new Position[ROBOTS];
+            for (int i = 0; i < ROBOTS; i++) {
+                starts[i] = Benchmarks.randomWalkable(grid, random);
+            }
+            Position destination = factory.getChargingStation(robot).getVisit();
+
+            long[] astarCosts = new long[ROBOTS];
+            double astarMillis = run(new AStarGraphFactoryPathFinder(robot, grid), starts, destination, astarCosts);
+            long[] fieldCosts = new long[ROBOTS];
+            double fieldMillis = run(new FlowFieldFactoryPathFinder(robot, grid), starts, destination, fieldCosts);
+
+            int mismatches = 0;
+            for (int i = 0; i < ROBOTS; i++) {
+                if (astarCosts[i] != fieldCosts[i]) mismatches++;
+            }
+            System.out.printf("scenario %d, %d robots to %s:%n", scenario, ROBOTS, destination);
+            System.out.printf("  A*        : %8.1f ms%n", astarMillis);
+            System.out.printf("  flow field: %8.1f ms, field included (x%.1f faster), cost mismatches: %d%n",
+                              fieldMillis, astarMillis / fieldMillis, mismatches);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the {@link NavigationGrid} construction on the 1200x700 scenario: per-cell
+ * sampling, sequentially and in parallel for an increasing number of cores, and obstacle
+ * inflation. The inflated grid is first checked against the sampled one for several footprints.
+ *
+ * @author team-24
+ */
+public class NavigationGridBenchmark {
+    private static final int RUNS = 5;
+    /** Footprints {width, height} for which the inflated grid is checked. */
+    private static final int[][] FOOTPRINTS = {{Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE}, {1, 1}, {2, 2}, {7, 12}, {21, 8}, {60, 60}};
+
+    /**
+     * Measures the average time of a grid construction by obstacle inflation.
+     *
+     * @param factory The factory to build the grid from.
+     * @return The average construction time in milliseconds.
+     */
+    private static double measureInflate(Factory factory) {
+        NavigationGrid.inflate(factory, Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            NavigationGrid.inflate(factory, Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE);
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    /**
+     * Measures the average time of a grid construction.
+     *
+     * @param factory The factory to build the grid from.
+     * @param parallel Whether to build the rows in parallel.
+     * @param pool The pool running the construction.
+     * @return The average construction time in milliseconds.
+     * @throws Exception If a construction fails.
+     */
+    private static double measure(Factory factory, boolean parallel, ForkJoinPool pool) throws Exception {
+        // warm-up
+        pool.submit(() -> NavigationGrid.sample(factory, Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE, parallel)).get();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < RUNS; i++) {
+            pool.submit(() -> NavigationGrid.sample(factory, Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE, parallel)).get();
+        }
+        return (System.nanoTime() - start) / 1e6 / RUNS;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments, optionally the scenario number (default 0).
+     * @throws Exception If a construction fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int scenario = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        Factory factory = SimulatorApplication.buildScenario(scenario);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        for (int[] footprint : FOOTPRINTS) {
+            NavigationGrid sampled = NavigationGrid.sample(factory, footprint[0], footprint[1], true);
+            if (!sampled.equals(NavigationGrid.inflate(factory, footprint[0], footprint[1]))) {
+                System.out.println("Inflated and sampled grids differ for a " + footprint[0] + "x" + footprint[1] + " robot");
+                System.exit(1);
+            }
+        }
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        double sequential = measure(factory, false, single);
+        single.shutdown();
+        System.out.printf("sequential        : %8.1f ms%n", sequential);
+
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            double parallel = measure(factory, true, pool);
+            pool.shutdown();
+            System.out.printf("parallel %3d core%s: %8.1f ms (speedup x%.2f)%n",
+                              threads, threads > 1 ? "s" : " ", parallel, sequential / parallel);
+            if (threads == cores) break;
+        }
+
+        double inflate = measureInflate(factory);
+        System.out.printf("inflated          : %8.1f ms (speedup x%.2f)%n", inflate, sequential / inflate);
+    }
+}
@@ -0,0 +1,103 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Conveyor;
+import fr.tp.inf112.projects.robotsim.model.Door;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.ProductionMachine;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Room;
+import fr.tp.inf112.projects.robotsim.model.exception.InvalidComponentPlacementException;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Regression benchmark of the incremental refresh of the cached navigation grids on scenario 0.
+ * Applies a series of layout edits (moves, resizes, new rooms and doors), checks after each one
+ * that every cached grid equals a grid rebuilt from scratch, and compares the edit time with the
+ * time of a full rebuild.
+ *
+ * @author team-24
+ */
+public class NavigationRefreshBenchmark {
+    /** Footprints {width, height} whose grids are cached during the edits. */
+    private static final int[][] FOOTPRINTS = {{Robot.DEFAULT_SIZE, Robot.DEFAULT_SIZE}, {21, 13}};
+
+    private static Factory factory;
+    private static boolean allIdentical = true;
+
+    /**
+     * A layout edit.
+     */
+    private interface Edit {
+        void apply() throws InvalidComponentPlacementException;
+    }
+
+    /**
+     * Finds a component of the factory by its name prefix.
+     */
+    private static Component find(String prefix) {
+        for (Component component : factory.getComponents()) {
+            if (component.getName().startsWith(prefix)) return component;
+        }
+        throw new IllegalStateException("No component named " + prefix);
+    }
+
+    /**
+     * Applies an edit, then checks the cached grids against full rebuilds.
+     */
+    private static void check(String name, Edit edit) throws InvalidComponentPlacementException {
+        long version = factory.getLayoutVersion();
+        long start = System.nanoTime();
+        edit.apply();
+        double editMillis = (System.nanoTime() - start) / 1e6;
+
+        double rebuildMillis = 0;
+        boolean identical = factory.getLayoutVersion() > version;
+        for (int[] footprint : FOOTPRINTS) {
+            start = System.nanoTime();
+            NavigationGrid rebuilt = NavigationGrid.inflate(factory, footprint[0], footprint[1]);
+            rebuildMillis += (System.nanoTime() - start) / 1e6;
+            identical &= rebuilt.equals(factory.getNavigationCache().getGrid(footprint[0], footprint[1]))
+                      && rebuilt.equals(NavigationGrid.sample(factory, footprint[0], footprint[1], true));
+        }
+        allIdentical &= identical;
+        System.out.printf("%-28s: edit %6.2f ms, full rebuilds %6.2f ms: %s%n",
+                          name, editMillis, rebuildMillis, identical ? "identical" : "DIFFERENT");
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     * @throws InvalidComponentPlacementException If an edit places a component badly.
+     */
+    public static void main(String[] args) throws InvalidComponentPlacementException {
+        factory = SimulatorApplication.buildScenario(0);
+        for (int[] footprint : FOOTPRINTS) {
+            factory.getNavigationCache().getGrid(footprint[0], footprint[1]);
+        }
+        int builds = factory.getNavigationCache().getBuildCount();
+
+        ProductionMachine machine = (ProductionMachine) find("Production Machine-0");
+        Conveyor conveyor = (Conveyor) find("Conveyor-0");
+        Room room = (Room) find("Room-2");
+
+        check("move production machine", () -> machine.setCoordinate(150, 120));
+        check("resize conveyor", () -> conveyor.setDimension(80, 200));
+        check("add door", () -> new Door(room.getxCoordinate() + room.getWidth(), room.getyCoordinate() + 100, 80, room));
+        check("move door", () -> room.getDoors().get(room.getDoors().size() - 1).setCoordinate(room.getxCoordinate() + room.getWidth() - 2, room.getyCoordinate() + 180));
+        check("add room", () -> new Room("Room-extra", 580, 200, 40, 300, factory));
+        check("add door to new room", () -> new Door(600, 200, 20, (Room) find("Room-extra")));
+        check("move room", () -> find("Room-extra").setCoordinate(585, 220));
+        check("add conveyor", () -> new Conveyor("Conveyor-extra", 200, 500, 60, 60, 1, factory));
+
+        if (factory.getNavigationCache().getBuildCount() != builds) {
+            System.out.println("The cached grids were rebuilt instead of refreshed");
+            allIdentical = false;
+        }
+        if (!allIdentical) {
+            System.exit(1);
+        }
+    }
+}
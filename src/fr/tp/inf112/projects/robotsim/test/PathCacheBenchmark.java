@@ -0,0 +1,73 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.List;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.PathCache;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Visitable;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the path cache on the three built-in scenarios: replays the queries of a robot
+ * looping over its visit list, with and without route caching, and compares the query time.
+ *
+ * @author team-24
+ */
+public class PathCacheBenchmark {
+    private static final int LAPS = 20;
+
+    /**
+     * Replays the laps of a robot over its visit list.
+     *
+     * @return The total time in milliseconds.
+     */
+    private static double replay(AbstractGridFactoryPathFinder finder, List<Visitable> visits) {
+        long start = System.nanoTime();
+        for (int lap = 0; lap < LAPS; lap++) {
+            for (int i = 0; i < visits.size(); i++) {
+                Position from = visits.get(i).getVisit();
+                finder.findPath(new Position(from.getxCoordinate(), from.getyCoordinate()), visits.get((i + 1) % visits.size()));
+            }
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            List<Visitable> visits = robot.getToVisit();
+            AbstractGridFactoryPathFinder finder = new AStarGraphFactoryPathFinder(robot);
+            // routes to points of interest would not be searched anyway
+            finder.setPointOfInterestRouting(false);
+
+            finder.setPathCaching(false);
+            replay(finder, visits); // warm-up
+            long expanded = finder.getExpandedNodes();
+            double uncached = replay(finder, visits);
+            long uncachedExpanded = finder.getExpandedNodes() - expanded;
+
+            finder.setPathCaching(true);
+            expanded = finder.getExpandedNodes();
+            double cached = replay(finder, visits);
+            long cachedExpanded = finder.getExpandedNodes() - expanded;
+
+            PathCache cache = finder.getPathCache();
+            System.out.printf("scenario %d, %d laps over %d visits:%n", scenario, LAPS, visits.size());
+            System.out.printf("  without cache: %8.1f ms, %9d expanded nodes%n", uncached, uncachedExpanded);
+            System.out.printf("  with cache   : %8.1f ms, %9d expanded nodes (x%.0f faster)%n",
+                              cached, cachedExpanded, uncached / cached);
+            System.out.printf("  cache: %d hits, %d misses, %d evictions, %d routes%n",
+                              cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.size());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.HierarchicalFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.JumpPointSearchFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the grid path finders on the three built-in scenarios: A* against Jump Point Search
+ * and hierarchical search on the same random pairs of walkable cells, comparing the number of
+ * expanded nodes, the query latency and the cost of the paths found. The latency of the hierarchical
+ * finder only covers the refinement of the first segment; the cost covers the whole path.
+ *
+ * @author team-24
+ */
+public class PathFinderBenchmark {
+    private static final int QUERIES = 200;
+    private static final long SEED = 42;
+
+    /**
+     * Runs the queries with a path finder.
+     *
+     * @return The total time in milliseconds.
+     */
+    private static double run(AbstractGridFactoryPathFinder finder, Position[][] queries, long[] costs) {
+        // the queries are repeated: every one of them must be searched
+        finder.setPathCaching(false);
+        Path[] paths = new Path[queries.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < queries.length; i++) {
+            paths[i] = finder.findPath(queries[i][0], queries[i][1]);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        for (int i = 0; i < queries.length; i++) {
+            costs[i] = Benchmarks.cost(paths[i]);
+        }
+        return millis;
+    }
+
+    /**
+     * Runs the queries with a path finder and prints its statistics against the A* reference.
+     */
+    private static void compare(String name, AbstractGridFactoryPathFinder finder, Position[][] queries,
+                                long[] reference, double referenceMillis, long referenceExpanded) {
+        run(finder, queries, new long[QUERIES]); // warm-up
+        long expanded = finder.getExpandedNodes();
+        long[] costs = new long[QUERIES];
+        double millis = run(finder, queries, costs);
+        expanded = finder.getExpandedNodes() - expanded;
+
+        int different = 0;
+        int reachability = 0;
+        double excess = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            if ((reference[i] < 0) != (costs[i] < 0)) reachability++;
+            if (reference[i] < 0 || costs[i] < 0) continue;
+            if (costs[i] != reference[i]) different++;
+            excess = Math.max(excess, (double) (costs[i] - reference[i]) / Math.max(1, reference[i]));
+        }
+        System.out.printf("  %-4s: %8.1f ms (%6.2f ms/query), %9d expanded nodes (x%.0f fewer, x%.1f faster)%n",
+                          name, millis, millis / QUERIES, expanded,
+                          (double) referenceExpanded / Math.max(1, expanded), referenceMillis / millis);
+        System.out.printf("        paths of different cost: %d (max excess %.2f%%), reachability mismatches: %d%n",
+                          different, excess * 100, reachability);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+
+            Random random = new Random(SEED);
+            Position[][] queries = new Position[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = new Position[] {Benchmarks.randomWalkable(grid, random), Benchmarks.randomWalkable(grid, random)};
+            }
+
+            AbstractGridFactoryPathFinder astar = new AStarGraphFactoryPathFinder(robot, grid);
+            run(astar, queries, new long[QUERIES]); // warm-up
+            long astarExpanded = astar.getExpandedNodes();
+            long[] astarCosts = new long[QUERIES];
+            double astarMillis = run(astar, queries, astarCosts);
+            astarExpanded = astar.getExpandedNodes() - astarExpanded;
+
+            int found = 0;
+            for (long cost : astarCosts) {
+                if (cost >= 0) found++;
+            }
+            System.out.printf("scenario %d, %d queries (%d with a path):%n", scenario, QUERIES, found);
+            System.out.printf("  A*  : %8.1f ms (%6.2f ms/query), %9d expanded nodes%n",
+                              astarMillis, astarMillis / QUERIES, astarExpanded);
+            compare("JPS", new JumpPointSearchFactoryPathFinder(robot, grid), queries, astarCosts, astarMillis, astarExpanded);
+            compare("HPA*", new HierarchicalFactoryPathFinder(robot, grid), queries, astarCosts, astarMillis, astarExpanded);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Conveyor;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.PathPlanner;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the path planner on scenario 0 with many robots travelling between random
+ * positions, so that they all plan at the start and often replan together, and a conveyor added
+ * in the middle of the run invalidating the paths through it. The ticks are paced like those of the
+ * simulator controller. Compares the tick latency when the robots compute their paths during the
+ * tick or hand them to the path planner, and the number of ticks the robots spend waiting for it.
+ *
+ * @author team-24
+ */
+public class PathPlannerBenchmark {
+    private static final int ROBOTS = 30;
+    private static final int TICKS = 300;
+    /** Tick period of the simulator controller, in milliseconds. */
+    private static final long PERIOD = 100;
+    private static final long SEED = 42;
+
+    /**
+     * Builds the factory, with extra robots each going back and forth between two random positions.
+     */
+    private static Factory build() {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        Robot model = factory.getRobots().get(0);
+        NavigationGrid grid = factory.getNavigationCache().getGrid(model.getWidth(), model.getHeight());
+        Random random = new Random(SEED);
+        for (int i = 0; i < ROBOTS; i++) {
+            Position[] positions = new Position[3];
+            for (int j = 0; j < positions.length; j++) {
+                int cell;
+                do {
+                    cell = random.nextInt(grid.getCellCount());
+                } while (!grid.isWalkable(cell));
+                positions[j] = new Position(grid.getX(cell), grid.getY(cell));
+            }
+            Robot robot = new Robot("Extra-" + i, positions[0].getxCoordinate() - model.getWidth() / 2,
+                                    positions[0].getyCoordinate() - model.getHeight() / 2, factory, true);
+            robot.addToVisit(positions[1]);
+            robot.addToVisit(positions[2]);
+        }
+        return factory;
+    }
+
+    /**
+     * Runs the simulation and prints the tick latency statistics.
+     */
+    private static void run(String name, PathPlanner planner) throws InterruptedException {
+        Factory factory = build();
+        factory.setPathPlanner(planner);
+        factory.startSimulation();
+        double[] ticks = new double[TICKS];
+        long waiting = 0;
+        for (int tick = 0; tick < TICKS; tick++) {
+            if (tick == 1) {
+                // every robot searches on its own: no route caching, no point of interest table
+                for (Robot robot : factory.getRobots()) {
+                    ((AbstractGridFactoryPathFinder) robot.getPathFinder()).setPathCaching(false);
+                    ((AbstractGridFactoryPathFinder) robot.getPathFinder()).setPointOfInterestRouting(false);
+                }
+            }
+            if (tick == TICKS / 2) new Conveyor("Blocking conveyor", 250, 120, 60, 120, factory);
+            long start = System.nanoTime();
+            factory.behave();
+            ticks[tick] = (System.nanoTime() - start) / 1e6;
+            waiting += factory.getRobots().stream().filter(Robot::isPlanning).count();
+            Thread.sleep(Math.max(0, PERIOD - (long) ticks[tick]));
+        }
+        factory.stopSimulation();
+
+        double total = Arrays.stream(ticks).sum();
+        Arrays.sort(ticks);
+        System.out.printf("  %-12s: %8.1f ms total, tick mean %6.2f ms, p50 %6.2f ms, p95 %7.2f ms, max %7.2f ms%s%n",
+                          name, total, total / TICKS, ticks[TICKS / 2], ticks[TICKS * 95 / 100], ticks[TICKS - 1],
+                          planner == null ? "" : String.format(", %d paths planned, %d robot ticks waiting",
+                                                               planner.getSubmittedCount(), waiting));
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     * @throws InterruptedException If interrupted while pacing the ticks.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("scenario 0 with %d more robots, %d ticks of %d ms:%n", ROBOTS, TICKS, PERIOD);
+        run("warm-up", null);
+        run("in the tick", null);
+        PathPlanner planner = new PathPlanner();
+        run("planner", planner);
+        planner.shutdown();
+    }
+}
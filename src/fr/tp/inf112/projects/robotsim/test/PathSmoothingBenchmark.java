@@ -0,0 +1,107 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the compression of paths into waypoints on the three built-in scenarios: on random
+ * pairs of walkable cells, compares the number of cells of the routes with the number of waypoints
+ * of the paths, and the time taken to walk them at the robot speed, one cell at a time
+ * or one line at a time.
+ *
+ * @author team-24
+ */
+public class PathSmoothingBenchmark {
+    private static final int QUERIES = 200;
+    private static final int LAPS = 50;
+    private static final long SEED = 42;
+
+    /**
+     * Lists the cells of a path, by walking its lines one step at a time.
+     */
+    private static List<Position> cells(Path path) {
+        int[] waypoints = new int[2 * path.getWaypointCount()];
+        for (int i = 0; i < path.getWaypointCount(); i++) {
+            waypoints[2 * i] = path.getX(i);
+            waypoints[2 * i + 1] = path.getY(i);
+        }
+        Path walker = new Path(waypoints, path.getTarget());
+        List<Position> cells = new ArrayList<>();
+        cells.add(walker.getCurrentPosition());
+        while (walker.hasNext()) {
+            walker.walk(1.5);
+            cells.add(walker.getCurrentPosition());
+        }
+        return cells;
+    }
+
+    /**
+     * Walks the paths from their start to their end, a robot speed at a time.
+     *
+     * @return The total time in milliseconds.
+     */
+    private static double walk(List<Path> paths, int speed) {
+        long start = System.nanoTime();
+        for (int lap = 0; lap < LAPS; lap++) {
+            for (Path path : paths) {
+                path.setCurrentIndex(0);
+                while (path.hasNext()) {
+                    path.walk(speed);
+                }
+            }
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+            AbstractGridFactoryPathFinder finder = new AStarGraphFactoryPathFinder(robot, grid);
+            finder.setPathCaching(false);
+            finder.setPointOfInterestRouting(false);
+
+            Random random = new Random(SEED);
+            List<Path> smoothed = new ArrayList<>();
+            List<Path> raw = new ArrayList<>();
+            long cellCount = 0;
+            long waypointCount = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                Path path = finder.findPath(Benchmarks.randomWalkable(grid, random), Benchmarks.randomWalkable(grid, random));
+                if (path.isNull()) continue;
+                List<Position> cells = cells(path);
+                smoothed.add(path);
+                raw.add(new Path(cells, path.getTarget()));
+                cellCount += cells.size();
+                waypointCount += path.getWaypointCount();
+            }
+
+            walk(raw, robot.getSpeed()); // warm-up
+            walk(smoothed, robot.getSpeed());
+            double rawMillis = walk(raw, robot.getSpeed());
+            double smoothedMillis = walk(smoothed, robot.getSpeed());
+            System.out.printf("scenario %d, %d paths:%n", scenario, smoothed.size());
+            System.out.printf("  cells per route: %8.1f, waypoints per path: %5.1f (x%.0f fewer)%n",
+                              (double) cellCount / smoothed.size(), (double) waypointCount / smoothed.size(),
+                              (double) cellCount / waypointCount);
+            System.out.printf("  walking %d laps: %8.1f ms by cells, %8.1f ms by lines (x%.1f faster)%n",
+                              LAPS, rawMillis, smoothedMillis, rawMillis / smoothedMillis);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Path;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.impl.AStarGraphFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.AbstractGridFactoryPathFinder;
+import fr.tp.inf112.projects.robotsim.model.impl.PointOfInterestTable;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the point of interest table on the three built-in scenarios: checks that the
+ * distances between points of interest and the routes from random cells have the cost of the
+ * A* paths, and compares the time of a route walked down the table with the time of a search.
+ *
+ * @author team-24
+ */
+public class PointOfInterestBenchmark {
+    private static final int QUERIES = 50;
+    private static final long SEED = 42;
+
+    /**
+     * Computes the cost of a sequence of cells, in move weight units.
+     */
+    private static long cost(NavigationGrid grid, int[] cells) {
+        long cost = 0;
+        for (int i = 1; i < cells.length; i++) {
+            // cells or waypoints, a line between two of them costing as much as a shortest path
+            cost += grid.estimate(cells[i - 1], cells[i]);
+        }
+        return cost;
+    }
+
+    /**
+     * Computes the cost of a path, in move weight units, or -1 if there is none.
+     */
+    private static long cost(NavigationGrid grid, Path path) {
+        if (path.isNull()) return -1;
+        int[] cells = new int[path.getWaypointCount()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = grid.cellId(path.getX(i), path.getY(i));
+        }
+        return cost(grid, cells);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        for (int scenario = 0; scenario <= 2; scenario++) {
+            Factory factory = SimulatorApplication.buildScenario(scenario);
+            Robot robot = factory.getRobots().get(0);
+            NavigationGrid grid = factory.getNavigationCache().getGrid(robot.getWidth(), robot.getHeight());
+
+            long start = System.nanoTime();
+            PointOfInterestTable table = PointOfInterestTable.get(factory.getNavigationCache(), robot.getWidth(), robot.getHeight());
+            double buildMillis = (System.nanoTime() - start) / 1e6;
+
+            AbstractGridFactoryPathFinder astar = new AStarGraphFactoryPathFinder(robot, grid);
+            astar.setPathCaching(false);
+            astar.setPointOfInterestRouting(false);
+
+            int mismatches = 0;
+            for (int from = 0; from < table.size(); from++) {
+                for (int to = 0; to < table.size(); to++) {
+                    Position source = new Position(grid.getX(table.getCell(from)), grid.getY(table.getCell(from)));
+                    Position target = new Position(grid.getX(table.getCell(to)), grid.getY(table.getCell(to)));
+                    long reference = cost(grid, astar.findPath(source, target));
+                    int distance = table.getDistance(from, to);
+                    if (reference != (distance == PointOfInterestTable.UNREACHABLE ? -1 : distance)) mismatches++;
+                }
+            }
+
+            Random random = new Random(SEED);
+            int[][] queries = new int[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                int cell;
+                do {
+                    cell = random.nextInt(grid.getCellCount());
+                } while (!grid.isWalkable(cell));
+                queries[i] = new int[] {cell, random.nextInt(table.size())};
+            }
+
+            long[] references = new long[QUERIES];
+            start = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                Position source = new Position(grid.getX(queries[i][0]), grid.getY(queries[i][0]));
+                int cell = table.getCell(queries[i][1]);
+                references[i] = cost(grid, astar.findPath(source, new Position(grid.getX(cell), grid.getY(cell))));
+            }
+            double searchMillis = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            int[][] routes = new int[QUERIES][];
+            for (int i = 0; i < QUERIES; i++) {
+                routes[i] = table.route(queries[i][0], queries[i][1]);
+            }
+            double tableMillis = (System.nanoTime() - start) / 1e6;
+            for (int i = 0; i < QUERIES; i++) {
+                if (references[i] != (routes[i] == null ? -1 : cost(grid, routes[i]))) mismatches++;
+            }
+
+            System.out.printf("scenario %d, %d points of interest, table built in %.1f ms:%n", scenario, table.size(), buildMillis);
+            System.out.printf("  %d routes from random cells: A* %.2f ms/query, table %.4f ms/query (x%.0f faster)%n",
+                              QUERIES, searchMillis / QUERIES, tableMillis / QUERIES, searchMillis / tableMillis);
+            System.out.printf("  cost mismatches with A*: %d%n", mismatches);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import fr.tp.inf112.projects.robotsim.model.ChargingStation;
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Conveyor;
+import fr.tp.inf112.projects.robotsim.model.Door;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.NavigationGrid;
+import fr.tp.inf112.projects.robotsim.model.Position;
+import fr.tp.inf112.projects.robotsim.model.ProductionMachine;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.RobotOccupancy;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the robot occupancy grid on scenario 0 with growing numbers of small robots, each
+ * going back and forth between two random positions from a random start, none of them overlapping
+ * at first.
+ *
+ * <p>
+ * Compares the cost of the questions the doors, conveyors, machines and charging stations ask
+ * about robots at each tick, scanning every robot, filtering the components of the spatial index,
+ * or looking up the occupancy grid; then runs the simulation without and with collision
+ * avoidance, counting the collisions (pairs of robots whose footprints overlap, at each tick) and
+ * the visits completed.
+ * </p>
+ *
+ * @author team-24
+ */
+public class RobotOccupancyBenchmark {
+    private static final int[] ROBOTS = {10, 100, 500};
+    private static final int SIZE = 10;
+    private static final int TICKS = 200;
+    private static final int QUERY_ROUNDS = 2000;
+    private static final long SEED = 42;
+
+    /**
+     * Draws a random walkable position of the grid, whose footprint does not overlap the given ones
+     * nor, if robots are given, any of them.
+     */
+    private static Position randomFree(NavigationGrid grid, Random random, int[] taken, int count, List<Robot> robots) {
+        while (true) {
+            int cell = random.nextInt(grid.getCellCount());
+            if (!grid.isWalkable(cell)) continue;
+            int x = grid.getX(cell), y = grid.getY(cell);
+            boolean free = true;
+            for (int i = 0; i < count && free; i++) {
+                free = Math.abs(taken[2 * i] - x) >= SIZE || Math.abs(taken[2 * i + 1] - y) >= SIZE;
+            }
+            for (int i = 0; robots != null && i < robots.size() && free; i++) {
+                Robot robot = robots.get(i);
+                free = 2 * Math.abs(robot.getxCenter() - x) >= robot.getWidth() + SIZE
+                       || 2 * Math.abs(robot.getyCenter() - y) >= robot.getHeight() + SIZE;
+            }
+            if (free) return new Position(x, y);
+        }
+    }
+
+    /**
+     * Builds the factory, with extra small robots.
+     */
+    private static Factory build(int count) {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        NavigationGrid grid = factory.getNavigationCache().getGrid(SIZE, SIZE);
+        Random random = new Random(SEED);
+        int[] starts = new int[2 * count];
+        for (int i = 0; i < count; i++) {
+            Position start = randomFree(grid, random, starts, i, factory.getRobots());
+            starts[2 * i] = start.getxCoordinate();
+            starts[2 * i + 1] = start.getyCoordinate();
+            Robot robot = new Robot("Small-" + i, start.getxCoordinate() - SIZE / 2, start.getyCoordinate() - SIZE / 2,
+                                    SIZE, SIZE, 10, 1000, factory, true);
+            for (int j = 0; j < 2; j++) {
+                robot.addToVisit(randomFree(grid, random, null, 0, null));
+            }
+        }
+        return factory;
+    }
+
+    /**
+     * Gets the areas the components ask about, as {left, top, right, bottom}, right and bottom excluded:
+     * the doors and charging stations for the robots on them, the conveyors and machines for the
+     * robots at their visit position.
+     */
+    private static List<int[]> areas(Factory factory) {
+        List<int[]> areas = new ArrayList<>();
+        for (Component component : factory.getComponents()) {
+            if (component instanceof Door || component instanceof ChargingStation) {
+                int left = component.getxCoordinate(), top = component.getyCoordinate();
+                areas.add(new int[] {left, top, left + component.getWidth(), top + component.getHeight()});
+            } else if (component instanceof Conveyor || component instanceof ProductionMachine) {
+                int x = component.getxVisit(), y = component.getyVisit();
+                areas.add(new int[] {x, y, x + 1, y + 1});
+            }
+        }
+        return areas;
+    }
+
+    private static boolean overlaps(Component component, int[] area) {
+        return component.getxCoordinate() < area[2] && component.getxCoordinate() + component.getWidth() > area[0]
+               && component.getyCoordinate() < area[3] && component.getyCoordinate() + component.getHeight() > area[1];
+    }
+
+    /**
+     * Times the queries of the components, per tick.
+     */
+    private static void query(int count) {
+        Factory factory = build(count);
+        List<int[]> areas = areas(factory);
+        RobotOccupancy occupancy = factory.getRobotOccupancy();
+        long found = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            for (int[] area : areas) {
+                for (Robot robot : factory.getRobots()) {
+                    if (overlaps(robot, area)) {
+                        found++;
+                        break;
+                    }
+                }
+            }
+        }
+        double scan = (System.nanoTime() - start) / 1e3 / QUERY_ROUNDS;
+        start = System.nanoTime();
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            for (int[] area : areas) {
+                for (Component component : factory.getComponentsNear(area[0], area[1], area[2] - 1, area[3] - 1)) {
+                    if (component instanceof Robot && overlaps(component, area)) {
+                        found--;
+                        break;
+                    }
+                }
+            }
+        }
+        double index = (System.nanoTime() - start) / 1e3 / QUERY_ROUNDS;
+        start = System.nanoTime();
+        for (int round = 0; round < QUERY_ROUNDS; round++) {
+            for (int[] area : areas) {
+                if (occupancy.getRobotOverlapping(area[0], area[1], area[2], area[3], null) != null) found++;
+            }
+        }
+        double grid = (System.nanoTime() - start) / 1e3 / QUERY_ROUNDS;
+        System.out.printf("    %d queries per tick: %8.2f us scanning the robots, %6.2f us with the spatial index,"
+                          + " %6.2f us with the occupancy grid (%d found)%n",
+                          areas.size(), scan, index, grid, found / QUERY_ROUNDS);
+    }
+
+    /**
+     * Counts the pairs of robots whose footprints overlap.
+     */
+    private static int collisions(List<Robot> robots) {
+        int count = 0;
+        for (int i = 0; i < robots.size(); i++) {
+            Robot a = robots.get(i);
+            for (int j = i + 1; j < robots.size(); j++) {
+                Robot b = robots.get(j);
+                if (2 * Math.abs(a.getxCenter() - b.getxCenter()) < a.getWidth() + b.getWidth()
+                    && 2 * Math.abs(a.getyCenter() - b.getyCenter()) < a.getHeight() + b.getHeight()) count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs the simulation and prints its statistics.
+     */
+    private static void run(int count, boolean avoidance) {
+        Factory factory = build(count);
+        factory.setCollisionAvoidance(avoidance);
+        factory.startSimulation();
+        List<Robot> robots = factory.getRobots();
+        int[] visitIndexes = new int[robots.size()];
+        long collisions = 0;
+        int visits = 0;
+        long start = System.nanoTime();
+        for (int tick = 0; tick < TICKS; tick++) {
+            factory.behave();
+            collisions += collisions(robots);
+            for (int i = 0; i < robots.size(); i++) {
+                if (robots.get(i).getCurrentVisitIndex() != visitIndexes[i]) visits++;
+                visitIndexes[i] = robots.get(i).getCurrentVisitIndex();
+            }
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        factory.stopSimulation();
+        System.out.printf("    %-20s: %7d collisions, %5d visits, %8.1f ms (%6.2f ms/tick)%n",
+                          avoidance ? "collision avoidance" : "no avoidance", collisions, visits, millis, millis / TICKS);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        query(100); // warm-up
+        run(10, true);
+        for (int count : ROBOTS) {
+            System.out.printf("scenario 0 with %d more %dx%d robots, %d ticks:%n", count, SIZE, SIZE, TICKS);
+            query(count);
+            run(count, false);
+            run(count, true);
+        }
+    }
+}
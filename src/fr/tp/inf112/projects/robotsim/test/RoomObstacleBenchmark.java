@@ -0,0 +1,89 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.Room;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Micro-benchmark of {@link Room#isObstacle(int, int, int, int)} on the rooms of scenario 0,
+ * comparing the former per-query door stream with the compiled door openings.
+ * Every cell of the factory is queried with the default robot footprint.
+ *
+ * @author team-24
+ */
+public class RoomObstacleBenchmark {
+    private static final int ROUNDS = 10;
+
+    /**
+     * Former implementation of the room obstacle test, kept as the reference.
+     */
+    private static boolean streamIsObstacle(Room room, int x, int y, int width, int height) {
+        return room.isOnBorder(x, y, width, height) && room.getDoors().stream().noneMatch(door -> door.fitsInDoor(x, y, width, height));
+    }
+
+    /**
+     * Runs one round of queries over the whole factory.
+     *
+     * @return The number of obstacle cells, so that the JIT cannot discard the queries.
+     */
+    private static int round(Factory factory, List<Room> rooms, boolean compiled) {
+        int size = Robot.DEFAULT_SIZE;
+        int count = 0;
+        for (int y = 0; y < factory.getHeight(); y++) {
+            for (int x = 0; x < factory.getWidth(); x++) {
+                for (Room room : rooms) {
+                    if (compiled ? room.isObstacle(x, y, size, size) : streamIsObstacle(room, x, y, size, size)) count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Measures the average time of a round, in milliseconds.
+     */
+    private static double measure(Factory factory, List<Room> rooms, boolean compiled) {
+        round(factory, rooms, compiled); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round(factory, rooms, compiled);
+        }
+        return (System.nanoTime() - start) / 1e6 / ROUNDS;
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        List<Room> rooms = new ArrayList<>();
+        for (Component component : factory.getComponents()) {
+            if (component instanceof Room) rooms.add((Room) component);
+        }
+        int queries = factory.getWidth() * factory.getHeight() * rooms.size();
+
+        int size = Robot.DEFAULT_SIZE;
+        for (int y = 0; y < factory.getHeight(); y++) {
+            for (int x = 0; x < factory.getWidth(); x++) {
+                for (Room room : rooms) {
+                    if (room.isObstacle(x, y, size, size) != streamIsObstacle(room, x, y, size, size)) {
+                        System.out.println("Compiled openings and door stream disagree at (" + x + "," + y + ") for " + room.getName());
+                        System.exit(1);
+                    }
+                }
+            }
+        }
+
+        double stream = measure(factory, rooms, false);
+        double compiled = measure(factory, rooms, true);
+        System.out.printf("door stream      : %7.1f ms (%5.1f ns/query)%n", stream, stream * 1e6 / queries);
+        System.out.printf("compiled openings: %7.1f ms (%5.1f ns/query), x%.1f%n", compiled, compiled * 1e6 / queries, stream / compiled);
+    }
+}
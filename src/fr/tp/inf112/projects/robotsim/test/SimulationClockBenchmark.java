@@ -0,0 +1,73 @@
+package fr.tp.inf112.projects.robotsim.test;
+
+import fr.tp.inf112.projects.canvas.controller.Observer;
+import fr.tp.inf112.projects.robotsim.controller.SimulationClock;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.view.SimulatorApplication;
+
+/**
+ * Benchmark of the simulation clock on scenario 0, with an observer counting its notifications
+ * as a viewer would: prints the ticks run per second of wall clock at several real-time factors,
+ * the simulated time against the real time elapsed, and the ticks dropped to catch up.
+ *
+ * @author team-24
+ */
+public class SimulationClockBenchmark {
+    private static final long PACED_MILLIS = 3000;
+    private static final long FAST_TICKS = 20000;
+
+    /**
+     * Runs the clock and prints its statistics.
+     */
+    private static void run(String label, double factor, boolean headless, long ticks) {
+        Factory factory = SimulatorApplication.buildScenario(0);
+        int[] notifications = new int[1];
+        factory.addObserver(new Observer() {
+            @Override
+            public void modelChanged() {
+                notifications[0]++;
+            }
+        });
+        SimulationClock clock = new SimulationClock(factory);
+        clock.setRealTimeFactor(factor);
+        clock.setHeadless(headless);
+        // the navigation structures and visit paths are prepared on starting, outside of the timing
+        factory.startSimulation();
+        long start = System.nanoTime();
+        if (ticks > 0) {
+            clock.run(ticks);
+        } else {
+            // stops the paced simulation from another thread, as the viewer does
+            Thread stopper = new Thread(() -> {
+                try {
+                    Thread.sleep(PACED_MILLIS);
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                factory.stopSimulation();
+            });
+            stopper.start();
+            clock.run();
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("    %-22s: %6d ticks in %8.1f ms, %9.1f ticks/s, %9.1f s simulated (%7.1fx), %d dropped, %d notifications%n",
+                          label, clock.getTickCount(), millis, clock.getTickCount() / millis * 1000,
+                          clock.getSimulatedMillis() / 1000.0, clock.getSimulatedMillis() / millis, clock.getDroppedTicks(),
+                          notifications[0]);
+    }
+
+    /**
+     * Main method running the benchmark.
+     *
+     * @param args Command-line arguments (not used).
+     */
+    public static void main(String[] args) {
+        run("warm-up", SimulationClock.AS_FAST_AS_POSSIBLE, false, FAST_TICKS);
+        System.out.printf("scenario 0, timestep %d ms:%n", SimulationClock.DEFAULT_TIMESTEP_MILLIS);
+        run("1x", 1, false, 0);
+        run("10x", 10, false, 0);
+        run("100x", 100, false, 0);
+        run("as fast as possible", SimulationClock.AS_FAST_AS_POSSIBLE, false, FAST_TICKS);
+        run("headless", 1, true, FAST_TICKS);
+    }
+}
@@ -0,0 +1,269 @@
+package fr.tp.inf112.projects.robotsim.view;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.logging.Logger;
+
+import fr.tp.inf112.projects.canvas.model.Canvas;
+import fr.tp.inf112.projects.canvas.model.impl.BasicCanvasPersistenceManager;
+import fr.tp.inf112.projects.robotsim.controller.SimulationClock;
+import fr.tp.inf112.projects.robotsim.model.Component;
+import fr.tp.inf112.projects.robotsim.model.Factory;
+import fr.tp.inf112.projects.robotsim.model.ProductionMachine;
+import fr.tp.inf112.projects.robotsim.model.Robot;
+import fr.tp.inf112.projects.robotsim.model.TickMetrics;
+
+/**
+ * Headless entry point of the simulator: loads a factory, runs a number of ticks as fast as
+ * possible without any viewer, and writes the key performance indicators of the run as CSV or JSON.
+ *
+ * <p>
+ * Usage: {@code BatchSimulationRunner <scenario|file.rsim> [-ticks N] [-timestep MS] [-format csv|json] [-output FILE]}
+ * </p>
+ *
+ * <p>
+ * The factory is one of the scenarios of {@link SimulatorApplication} (0, 1 or 2), or a factory
+ * saved by the viewer. The robots compute their paths during the ticks, so that two runs of the
+ * same factory give the same indicators. Each run writes one CSV row, with a header if the output
+ * is new or empty, or one JSON object on its own line: runs appended to the same file can be
+ * compared side by side. Without {@code -output}, the indicators are written to the standard output.
+ * </p>
+ *
+ * @author team-24
+ */
+public class BatchSimulationRunner {
+    private static final Logger LOGGER = Logger.getLogger(BatchSimulationRunner.class.getName());
+
+    /** Default number of ticks run. */
+    public static final long DEFAULT_TICKS = 10000;
+
+    private static final String USAGE = "Usage: BatchSimulationRunner <scenario|file.rsim> [-ticks N] [-timestep MS]"
+                                        + " [-format csv|json] [-output FILE]";
+    private static final String[] COLUMNS = {
+        "factory", "robots", "machines", "ticks", "simulatedSeconds", "wallSeconds", "ticksPerSecond", "meanTickMillis",
+        "maxTickMillis", "pathSearches", "distanceTravelled", "batteryUsed", "visitsCompleted", "machineUtilisation"
+    };
+
+    /**
+     * Key performance indicators of a batch run.
+     */
+    public static class Report {
+        private final String factory;
+        private final Object[] values;
+
+        private Report(String factory, Object[] values) {
+            this.factory = factory;
+            this.values = values;
+        }
+
+        /**
+         * Gets the name of the factory run, the scenario or file it was loaded from.
+         *
+         * @return The name of the factory.
+         */
+        public String getFactory() {
+            return factory;
+        }
+
+        /**
+         * Formats the indicators as a CSV row, in the order of {@link #csvHeader()}.
+         *
+         * @return The CSV row, without line separator.
+         */
+        public String toCsv() {
+            StringBuilder row = new StringBuilder(csvString(factory));
+            for (Object value : values) row.append(',').append(format(value));
+            return row.toString();
+        }
+
+        /**
+         * Formats the indicators as a JSON object.
+         *
+         * @return The JSON object, on a single line.
+         */
+        public String toJson() {
+            StringBuilder json = new StringBuilder("{\"").append(COLUMNS[0]).append("\":").append(jsonString(factory));
+            for (int i = 0; i < values.length; i++) {
+                json.append(",\"").append(COLUMNS[i + 1]).append("\":").append(format(values[i]));
+            }
+            return json.append('}').toString();
+        }
+
+        /**
+         * Gets the header of the CSV rows.
+         *
+         * @return The names of the columns, separated by commas.
+         */
+        public static String csvHeader() {
+            return String.join(",", COLUMNS);
+        }
+
+        private static String format(Object value) {
+            if (!(value instanceof Double)) return String.valueOf(value);
+            // 6 significant digits, without exponent: small utilisations stay readable
+            return new BigDecimal((Double) value).round(new MathContext(6)).stripTrailingZeros().toPlainString();
+        }
+
+        private static String csvString(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        private static String jsonString(String value) {
+            return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+        }
+    }
+
+    /**
+     * Loads a factory: one of the predefined scenarios, or a factory saved to a file.
+     *
+     * @param source The scenario number, or the path of the file.
+     * @return The {@link Factory}.
+     * @throws IOException if the file cannot be read or does not hold a factory.
+     * @throws IllegalArgumentException if the scenario does not exist.
+     */
+    public static Factory load(String source) throws IOException {
+        if (source.matches("\\d+")) {
+            Factory factory = SimulatorApplication.buildScenario(Integer.parseInt(source));
+            if (factory == null) throw new IllegalArgumentException("Unknown scenario: " + source);
+            return factory;
+        }
+        if (!new File(source).isFile()) throw new FileNotFoundException("No such file: " + source);
+        Canvas canvas = new BasicCanvasPersistenceManager().read(source);
+        if (!(canvas instanceof Factory)) throw new IOException("No factory could be read from " + source);
+        return (Factory) canvas;
+    }
+
+    /**
+     * Runs the simulation of a factory, headless and as fast as possible.
+     *
+     * @param name The name of the factory in the report.
+     * @param factory The factory to simulate; its observers are removed.
+     * @param ticks The number of ticks to run.
+     * @param timestepMillis The simulated duration of a tick, in milliseconds.
+     * @return The {@link Report} of the run.
+     */
+    public static Report run(String name, Factory factory, long ticks, long timestepMillis) {
+        factory.removeObservers();
+        SimulationClock clock = new SimulationClock(factory, timestepMillis);
+        clock.setHeadless(true);
+        // the navigation structures and visit paths are prepared on starting, outside of the timing
+        factory.startSimulation();
+        long start = System.nanoTime();
+        long run = clock.run(ticks);
+        double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+        long pathSearches = 0, visits = 0;
+        double distance = 0, battery = 0, utilisation = 0;
+        int machines = 0;
+        for (Robot robot : factory.getRobots()) {
+            pathSearches += robot.getPathSearches();
+            distance += robot.getDistanceTravelled();
+            battery += robot.getBatteryUsed();
+            visits += robot.getCurrentVisitIndex();
+        }
+        for (Component component : factory.getComponents()) {
+            if (component instanceof ProductionMachine) {
+                utilisation += ((ProductionMachine) component).getUtilisation();
+                machines++;
+            }
+        }
+        TickMetrics metrics = factory.getTickMetrics();
+        return new Report(name, new Object[] {
+            factory.getRobots().size(), machines, run, clock.getSimulatedMillis() / 1000.0, wallSeconds,
+            wallSeconds == 0 ? 0.0 : run / wallSeconds, metrics.getMeanTickNanos() / 1e6, metrics.getMaxTickNanos() / 1e6,
+            pathSearches, distance, battery, visits, machines == 0 ? 0.0 : utilisation / machines
+        });
+    }
+
+    /**
+     * Writes a report to a file, or to the standard output.
+     *
+     * @param report The report to write.
+     * @param json true for a JSON object, false for a CSV row.
+     * @param output The file to append the report to, or null for the standard output.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void write(Report report, boolean json, String output) throws IOException {
+        boolean header = !json && (output == null || !new File(output).exists() || new File(output).length() == 0);
+        if (output == null) {
+            // the standard output stays open for the caller
+            print(new PrintWriter(System.out), report, json, header);
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(output, true))) {
+            print(out, report, json, header);
+        }
+    }
+
+    private static void print(PrintWriter out, Report report, boolean json, boolean header) throws IOException {
+        if (header) out.println(Report.csvHeader());
+        out.println(json ? report.toJson() : report.toCsv());
+        if (out.checkError()) throw new IOException("The report could not be written.");
+    }
+
+    private static void fail(String message) {
+        System.err.println(message);
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+
+    /**
+     * Main method running a batch simulation.
+     *
+     * @param args Command-line arguments: the factory, then the options.
+     */
+    public static void main(String[] args) {
+        LOGGER.config("With parameters " + Arrays.toString(args) + ".");
+        if (args.length == 0) fail("Missing factory.");
+
+        long ticks = DEFAULT_TICKS;
+        long timestep = SimulationClock.DEFAULT_TIMESTEP_MILLIS;
+        boolean json = false;
+        String output = null;
+        for (int i = 1; i < args.length; i++) {
+            if (i + 1 >= args.length) fail("Missing value of " + args[i] + ".");
+            String value = args[++i];
+            try {
+                switch (args[i - 1]) {
+                    case "-ticks":
+                        ticks = Long.parseLong(value);
+                        if (ticks < 0) throw new NumberFormatException();
+                        break;
+                    case "-timestep":
+                        timestep = Long.parseLong(value);
+                        if (timestep <= 0) throw new NumberFormatException();
+                        break;
+                    case "-format":
+                        if (!value.equals("csv") && !value.equals("json")) fail("Unknown format: " + value + ".");
+                        json = value.equals("json");
+                        break;
+                    case "-output":
+                        output = value;
+                        break;
+                    default:
+                        fail("Unknown option: " + args[i - 1] + ".");
+                }
+            } catch (NumberFormatException e) {
+                fail("Invalid value of " + args[i - 1] + ": " + value + ".");
+            }
+        }
+
+        try {
+            Factory factory = load(args[0]);
+            LOGGER.info("Running " + ticks + " ticks of " + args[0] + "...");
+            Report report = run(args[0], factory, ticks, timestep);
+            write(report, json, output);
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.severe(e.getMessage());
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -33,8 +33,6 @@ public class SimulatorApplication {
         LOGGER.info("Starting the robot simulator...");
         LOGGER.config("With parameters " + Arrays.toString(args) + ".");
 
-        Factory factory = null;
-
         int scenario = 0;
 
         if (args.length > 0) {
@@ -51,6 +49,27 @@ public class SimulatorApplication {
             }
         }
 
+        Factory factory = buildScenario(scenario);
+
+        if (factory != null) {
+            // the paths are computed off the simulation tick, which keeps the animation smooth
+            factory.setPathPlanner(new PathPlanner());
+            CanvasPersistenceManager persistenceManager = new BasicCanvasPersistenceManager();
+            SimulatorController controller = new SimulatorController(factory, persistenceManager);
+            CanvasViewer viewer = new CanvasViewer(controller);
+        }
+
+    }
+
+    /**
+     * Builds the factory of one of the predefined scenarios.
+     *
+     * @param scenario The scenario number (0, 1 or 2).
+     * @return The {@link Factory} of the scenario, or null if the scenario does not exist.
+     */
+    public static Factory buildScenario(int scenario) {
+        Factory factory = null;
+
         if (scenario == 0 || scenario == 1) {
             factory = new Factory(null, "Factory-" + scenario, 1200, 700);
 
@@ -237,11 +256,6 @@ public class SimulatorApplication {
             robot0.addToVisit(conveyors.get(0));
         }
 
-        if (factory != null) {
-            CanvasPersistenceManager persistenceManager = new BasicCanvasPersistenceManager();
-            SimulatorController controller = new SimulatorController(factory, persistenceManager);
-            CanvasViewer viewer = new CanvasViewer(controller);
-        }
-
+        return factory;
     }
 }